@@ -7,5 +7,8 @@ TEXT       : ~[$]+ | '$' ;
 mode EXPRESSION;
 EXPR_END      : '}' -> popMode ;
 ID            : [a-zA-Z_][a-zA-Z0-9_]* ;
+FORMAT        : ':' ~[}]* ;
+SAFE_DOT      : '?.' ;
+DOT           : '.' ;
 WS            : [ \t\r\n]+ -> skip ;
 BLOCK_COMMENT : '/*' .*? '*/' -> skip ;
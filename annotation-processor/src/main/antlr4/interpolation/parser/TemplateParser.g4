@@ -7,4 +7,5 @@ part        : text | escape | expression ;
 text        : TEXT ;
 escape      : ESCAPE ;
 expression  : EXPR_START expr EXPR_END ;
-expr        : ID ;
+expr        : path FORMAT? ;
+path        : ID ((DOT | SAFE_DOT) ID)* ;
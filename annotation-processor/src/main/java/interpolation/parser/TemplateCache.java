@@ -0,0 +1,158 @@
+package interpolation.parser;
+
+import interpolation.internal.parser.ParsedTemplate;
+import interpolation.internal.parser.TemplateParseException;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded, thread-safe cache of parsed templates keyed by template text.
+ *
+ * <p>Large code bases repeat the same template literals across many call sites, so each distinct
+ * template is parsed once per compilation. Parsed templates are also deduplicated: equal fragment
+ * and variable name strings are shared, and so are equal fragment arrays, even between different
+ * templates such as {@code "id=${id}"} and {@code "id=${key}"}. The returned arrays are shared and
+ * must not be modified. Shared strings and arrays are counted by the cached templates using them,
+ * and dropped with the last one evicted, so deduplication stays within the size bound.
+ *
+ * <p>Templates that fail to parse are not cached; every lookup rethrows the parser's
+ * {@link TemplateParseException}.
+ */
+public final class TemplateCache {
+
+    /**
+     * Default maximum number of cached templates.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final Function<String, ParsedTemplate> parser;
+    private final Map<String, ParsedTemplate> templates;
+    private final Map<String, Shared<String>> strings = new HashMap<>();
+    private final Map<List<String>, Shared<String[]>> arrays = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a new TemplateCache.
+     *
+     * @param parser the parser used on cache misses, such as
+     *     {@link TemplateParserWrapper#parse(String)}
+     * @param maxSize the maximum number of cached templates, least recently used are evicted first
+     */
+    public TemplateCache(Function<String, ParsedTemplate> parser, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.parser = parser;
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedTemplate> eldest) {
+                if (size() > maxSize) {
+                    evictions++;
+                    release(eldest.getValue().fragments());
+                    release(eldest.getValue().varNames());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the parsed template, parsing it on the first lookup.
+     *
+     * @param template the template string to parse
+     * @return the shared, deduplicated parsed template
+     * @throws TemplateParseException if the template is malformed
+     */
+    public synchronized ParsedTemplate parse(String template) {
+        ParsedTemplate parsed = templates.get(template);
+        if (parsed != null) {
+            hits++;
+            return parsed;
+        }
+        misses++;
+        parsed = parser.apply(template);
+        parsed = new ParsedTemplate(intern(parsed.fragments()), intern(parsed.varNames()),
+                parsed.formats());
+        templates.put(template, parsed);
+        return parsed;
+    }
+
+    /**
+     * Returns the lookup statistics.
+     *
+     * @return a snapshot of the statistics
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, templates.size());
+    }
+
+    /**
+     * Returns the number of shared strings and arrays, for tests.
+     */
+    synchronized int shared() {
+        return strings.size() + arrays.size();
+    }
+
+    private String[] intern(String[] array) {
+        final Shared<String[]> existing = arrays.get(Arrays.asList(array));
+        if (existing != null) {
+            existing.references++;
+            return existing.value;
+        }
+        for (int i = 0; i < array.length; i++) {
+            final Shared<String> string = strings.computeIfAbsent(array[i], Shared::new);
+            string.references++;
+            array[i] = string.value;
+        }
+        final Shared<String[]> shared = new Shared<>(array);
+        shared.references++;
+        arrays.put(Arrays.asList(array), shared);
+        return array;
+    }
+
+    private void release(String[] array) {
+        final List<String> key = Arrays.asList(array);
+        if (--arrays.get(key).references > 0) {
+            return;
+        }
+        arrays.remove(key);
+        for (String value : array) {
+            if (--strings.get(value).references == 0) {
+                strings.remove(value);
+            }
+        }
+    }
+
+    /**
+     * A shared string or array and the number of its uses by cached templates.
+     */
+    private static final class Shared<T> {
+
+        final T value;
+        int references;
+
+        Shared(T value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Snapshot of cache statistics.
+     *
+     * @param hits lookups answered from the cache
+     * @param misses lookups that parsed the template, including failed parses
+     * @param evictions templates evicted to respect the size bound
+     * @param size templates currently cached
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+}
@@ -1,8 +1,12 @@
 package interpolation.parser;
 
+import interpolation.internal.parser.ParsedTemplate;
+import interpolation.internal.parser.TemplateParseException;
+
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Parser;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 import org.antlr.v4.runtime.Token;
@@ -26,6 +30,10 @@ public final class TemplateParserWrapper {
      * <p>Template syntax:
      * <ul>
      *   <li>{@code ${varName}} - variable interpolation</li>
+     *   <li>{@code ${varName:spec}} - variable interpolation with a format specifier, such as
+     *       {@code %.2f} or {@code iso}</li>
+     *   <li>{@code ${user.address?.city}} - property path, returned as a variable name with
+     *       whitespace removed; {@code ?.} marks a null-safe step</li>
      *   <li>{@code $${} - escaped literal {@code ${}</li>
      *   <li>Any other text - literal text</li>
      * </ul>
@@ -57,7 +65,7 @@ public final class TemplateParserWrapper {
         TemplateVisitor visitor = new TemplateVisitor();
         visitor.visit(tree);
 
-        return ParsedTemplate.of(visitor.fragments, visitor.varNames);
+        return ParsedTemplate.of(visitor.fragments, visitor.varNames, visitor.formats);
     }
 
     /**
@@ -66,6 +74,7 @@ public final class TemplateParserWrapper {
     private static class TemplateVisitor extends TemplateParserBaseVisitor<Void> {
         final List<String> fragments = new ArrayList<>();
         final List<String> varNames = new ArrayList<>();
+        final List<String> formats = new ArrayList<>();
         private final StringBuilder currentFragment = new StringBuilder();
 
         @Override
@@ -97,8 +106,9 @@ public final class TemplateParserWrapper {
 
             TemplateParser.ExprContext exprCtx = ctx.expr();
             if (exprCtx != null) {
-                Token idToken = exprCtx.ID().getSymbol();
-                String varName = idToken.getText();
+                Token idToken = exprCtx.path().ID(0).getSymbol();
+                // Skipped whitespace and comments are not part of the path text
+                String varName = exprCtx.path().getText();
                 if (varName == null || varName.isEmpty()) {
                     throw new TemplateParseException(
                             "Empty variable name",
@@ -107,11 +117,28 @@ public final class TemplateParserWrapper {
                     );
                 }
                 varNames.add(varName);
+                formats.add(exprCtx.FORMAT() == null ? null : format(exprCtx.FORMAT().getSymbol()));
             }
             return null;
         }
     }
 
+    /**
+     * Returns the specifier of a {@code FORMAT} token, the text after the colon without leading
+     * and trailing whitespace.
+     */
+    private static String format(Token formatToken) {
+        String format = formatToken.getText().substring(1).strip();
+        if (format.isEmpty()) {
+            throw new TemplateParseException(
+                    "Empty format specifier",
+                    formatToken.getLine(),
+                    formatToken.getCharPositionInLine()
+            );
+        }
+        return format;
+    }
+
     /**
      * Error listener that throws TemplateParseException on syntax errors.
      *
@@ -123,7 +150,7 @@ public final class TemplateParserWrapper {
         public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
                                 int line, int charPositionInLine,
                                 String msg, RecognitionException e) {
-            String betterMsg = improveSyntaxErrorMessage(offendingSymbol);
+            String betterMsg = improveSyntaxErrorMessage(recognizer, offendingSymbol);
             throw new TemplateParseException(
                     betterMsg != null ? betterMsg : msg,
                     line,
@@ -131,7 +158,8 @@ public final class TemplateParserWrapper {
             );
         }
 
-        private String improveSyntaxErrorMessage(Object offendingSymbol) {
+        private String improveSyntaxErrorMessage(Recognizer<?, ?> recognizer,
+                                                 Object offendingSymbol) {
             if (!(offendingSymbol instanceof Token token)) {
                 return null;
             }
@@ -141,6 +169,16 @@ public final class TemplateParserWrapper {
                 return "Unclosed ${...} expression";
             }
 
+            // Detect missing property: closing brace right after a dot
+            if (token.getType() == TemplateLexer.EXPR_END
+                    && recognizer instanceof Parser parser) {
+                Token previous = parser.getTokenStream().LT(-1);
+                if (previous != null && (previous.getType() == TemplateLexer.DOT
+                        || previous.getType() == TemplateLexer.SAFE_DOT)) {
+                    return "Missing property name after '" + previous.getText() + "'";
+                }
+            }
+
             // Detect empty variable: closing brace immediately after opening
             if (token.getType() == TemplateLexer.EXPR_END) {
                 return "Empty variable name in ${}";
@@ -0,0 +1,619 @@
+package interpolation.processor;
+
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+import interpolation.ValueFormat;
+import interpolation.internal.parser.EscapingContext;
+import interpolation.internal.parser.ParsedTemplate;
+import interpolation.internal.parser.TemplateParseException;
+import interpolation.parser.TemplateCache;
+import interpolation.processor.VariableResolver.Resolution;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Finds the calls of {@code Interpolator.str(...)} and the other {@link Placeholder}s in each
+ * analyzed class, parses their templates, resolves their variables and reports malformed ones
+ * through the compiler diagnostics.
+ *
+ * <p>Most compilation units never call a placeholder. Before walking the tree of a unit, its
+ * source text is checked for the identifier {@code Interpolator} and a placeholder name, which
+ * every call needs, through a static import or a qualified name. Units missing either are pruned
+ * without traversal or scope resolution. Sources with unicode escapes are always scanned, since
+ * an escape may spell either identifier.
+ */
+final class CallSiteCollector implements TaskListener {
+
+  static final String INTERPOLATOR = "interpolation.Interpolator";
+
+  private static final String INTERPOLATOR_NAME = "Interpolator";
+  private static final String INTERPOLATOR_PACKAGE = "interpolation";
+
+  private final Trees trees;
+  private final Elements elements;
+  private final TemplateCache templates;
+  private final Consumer<CallSiteInfo> callSites;
+  private final ProcessorStats stats;
+  private final VariableResolver resolver;
+
+  // Pre-filter verdict of each unit, whose classes are analyzed one event at a time
+  private final Map<CompilationUnitTree, Boolean> candidates = new WeakHashMap<>();
+
+  private int unitsScanned;
+  private int unitsPruned;
+  private long filterNanos;
+  private long scanNanos;
+  private int constantsFolded;
+  private int constantCallSites;
+
+  /**
+   * Creates a new CallSiteCollector.
+   *
+   * @param trees the compiler trees
+   * @param elements the element utilities
+   * @param types the type utilities
+   * @param templates the template parse cache
+   * @param stats records the analysis time of each class
+   * @param callSites receives every well-formed call site
+   */
+  CallSiteCollector(Trees trees, Elements elements, Types types, TemplateCache templates,
+      ProcessorStats stats, Consumer<CallSiteInfo> callSites) {
+    this.trees = trees;
+    this.elements = elements;
+    this.templates = templates;
+    this.stats = stats;
+    this.callSites = callSites;
+    this.resolver = new VariableResolver(trees, elements, types);
+  }
+
+  @Override
+  public void finished(TaskEvent event) {
+    if (event.getKind() != TaskEvent.Kind.ANALYZE || event.getTypeElement() == null) {
+      return;
+    }
+    final CompilationUnitTree unit = event.getCompilationUnit();
+    if (!isCandidate(unit)) {
+      return;
+    }
+    final TreePath path = trees.getPath(event.getTypeElement());
+    if (path != null) {
+      final long start = System.nanoTime();
+      new Scanner(unit).scan(path, null);
+      scanNanos += System.nanoTime() - start;
+      stats.record(ProcessorStats.Phase.ANALYZE, start);
+    }
+  }
+
+  /**
+   * Returns the counters and timings of the compilation so far.
+   *
+   * @return a snapshot of the statistics
+   */
+  Stats stats() {
+    return new Stats(unitsScanned, unitsPruned, filterNanos, scanNanos, resolver.scopes(),
+        resolver.scopeHits(), constantsFolded, constantCallSites);
+  }
+
+  private boolean isCandidate(CompilationUnitTree unit) {
+    Boolean candidate = candidates.get(unit);
+    if (candidate == null) {
+      final long start = System.nanoTime();
+      candidate = mayCallStr(unit);
+      filterNanos += System.nanoTime() - start;
+      candidates.put(unit, candidate);
+      if (candidate) {
+        unitsScanned++;
+      } else {
+        unitsPruned++;
+      }
+    }
+    return candidate;
+  }
+
+  private static boolean mayCallStr(CompilationUnitTree unit) {
+    if (unit.getPackageName() != null
+        && unit.getPackageName().toString().equals(INTERPOLATOR_PACKAGE)) {
+      // Interpolator's own package needs no import
+      return true;
+    }
+    try {
+      return mayCallStr(unit.getSourceFile().getCharContent(true));
+    } catch (IOException | RuntimeException e) {
+      return true;
+    }
+  }
+
+  /**
+   * Checks whether a source may call {@code Interpolator.str()} or another placeholder.
+   *
+   * @param source the source text of a compilation unit
+   * @return false only if the source cannot call a placeholder
+   */
+  static boolean mayCallStr(CharSequence source) {
+    final String text = source.toString();
+    if (text.contains("\\u")) {
+      return true;
+    }
+    if (!containsIdentifier(text, INTERPOLATOR_NAME)) {
+      return false;
+    }
+    for (Placeholder placeholder : Placeholder.values()) {
+      if (containsIdentifier(text, placeholder.methodName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean containsIdentifier(String text, String identifier) {
+    for (int i = text.indexOf(identifier); i >= 0; i = text.indexOf(identifier, i + 1)) {
+      final int end = i + identifier.length();
+      if ((i == 0 || !Character.isJavaIdentifierPart(text.charAt(i - 1)))
+          && (end == text.length() || !Character.isJavaIdentifierPart(text.charAt(end)))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Renders a JVM type descriptor as a Java type name for error messages, such as
+   * {@code java.lang.String[]} for {@code [Ljava/lang/String;}.
+   */
+  static String typeName(String descriptor) {
+    int dimensions = 0;
+    while (descriptor.charAt(dimensions) == '[') {
+      dimensions++;
+    }
+    final String element = switch (descriptor.charAt(dimensions)) {
+      case 'Z' -> "boolean";
+      case 'B' -> "byte";
+      case 'C' -> "char";
+      case 'S' -> "short";
+      case 'I' -> "int";
+      case 'J' -> "long";
+      case 'F' -> "float";
+      case 'D' -> "double";
+      default -> descriptor.substring(dimensions + 1, descriptor.length() - 1).replace('/', '.');
+    };
+    return element + "[]".repeat(dimensions);
+  }
+
+  /**
+   * Scans one top level class, tracking the enclosing class, method and lambda of each call.
+   */
+  private final class Scanner extends TreePathScanner<Void, Void> {
+
+    private final CompilationUnitTree unit;
+    private String className;
+    private ClassCalls calls;
+    private String methodName;
+    private String methodDescriptor;
+    private Constructor constructor;
+    private int lambda = -1;
+
+    Scanner(CompilationUnitTree unit) {
+      this.unit = unit;
+    }
+
+    @Override
+    public Void visitClass(ClassTree node, Void unused) {
+      final String outerClassName = className;
+      final ClassCalls outerCalls = calls;
+      final String outerMethodName = methodName;
+      final String outerMethodDescriptor = methodDescriptor;
+      final Constructor outerConstructor = constructor;
+      final int outerLambda = lambda;
+      final Element type = trees.getElement(getCurrentPath());
+      className = type instanceof TypeElement typeElement
+          ? elements.getBinaryName(typeElement).toString()
+          : null;
+      calls = new ClassCalls();
+      methodName = null;
+      methodDescriptor = null;
+      constructor = null;
+      lambda = -1;
+      try {
+        super.visitClass(node, unused);
+        if (className != null) {
+          calls.emit(className, callSites);
+        }
+        return null;
+      } finally {
+        className = outerClassName;
+        calls = outerCalls;
+        methodName = outerMethodName;
+        methodDescriptor = outerMethodDescriptor;
+        constructor = outerConstructor;
+        lambda = outerLambda;
+      }
+    }
+
+    @Override
+    public Void visitMethod(MethodTree node, Void unused) {
+      final String outerMethodName = methodName;
+      final String outerMethodDescriptor = methodDescriptor;
+      final Constructor outerConstructor = constructor;
+      methodName = node.getName().toString();
+      methodDescriptor = trees.getElement(getCurrentPath()) instanceof ExecutableElement method
+          ? descriptor(method)
+          : null;
+      constructor = methodName.equals("<init>") ? constructor(node, methodDescriptor) : null;
+      try {
+        return super.visitMethod(node, unused);
+      } finally {
+        methodName = outerMethodName;
+        methodDescriptor = outerMethodDescriptor;
+        constructor = outerConstructor;
+      }
+    }
+
+    @Override
+    public Void visitLambdaExpression(LambdaExpressionTree node, Void unused) {
+      final int outerLambda = lambda;
+      lambda = calls.lambdas++;
+      try {
+        return super.visitLambdaExpression(node, unused);
+      } finally {
+        lambda = outerLambda;
+      }
+    }
+
+    /**
+     * Registers a constructor with the class, finding where its explicit {@code super(...)} or
+     * {@code this(...)} call ends. The implicit {@code super()} javac inserts has no end position
+     * and no statement before it.
+     */
+    private Constructor constructor(MethodTree node, String descriptor) {
+      long prologueEnd = -1;
+      boolean delegates = false;
+      for (StatementTree statement : node.getBody() == null
+          ? List.<StatementTree>of() : node.getBody().getStatements()) {
+        if (statement instanceof ExpressionStatementTree expression
+            && expression.getExpression() instanceof MethodInvocationTree invocation) {
+          final String name = invocation.getMethodSelect() instanceof IdentifierTree identifier
+              ? identifier.getName().toString()
+              : invocation.getMethodSelect() instanceof MemberSelectTree member
+                  ? member.getIdentifier().toString() : null;
+          if ("super".equals(name) || "this".equals(name)) {
+            prologueEnd = trees.getSourcePositions().getEndPosition(unit, statement);
+            delegates = "this".equals(name);
+            break;
+          }
+        }
+      }
+      final Constructor registered = new Constructor(descriptor, delegates, prologueEnd);
+      calls.constructors.add(registered);
+      return registered;
+    }
+
+    @Override
+    public Void visitMethodInvocation(MethodInvocationTree node, Void unused) {
+      final Placeholder placeholder = placeholder(node);
+      if (placeholder != null) {
+        collect(node, placeholder);
+      }
+      return super.visitMethodInvocation(node, unused);
+    }
+
+    private Placeholder placeholder(MethodInvocationTree node) {
+      final ExpressionTree select = node.getMethodSelect();
+      final String name = select instanceof IdentifierTree identifier
+          ? identifier.getName().toString()
+          : select instanceof MemberSelectTree member ? member.getIdentifier().toString() : null;
+      if (name == null || !Placeholder.isPlaceholderName(name)) {
+        return null;
+      }
+      final Element method = trees.getElement(getCurrentPath());
+      if (method instanceof ExecutableElement executable
+          && method.getKind() == ElementKind.METHOD
+          && method.getEnclosingElement() instanceof TypeElement owner
+          && owner.getQualifiedName().contentEquals(INTERPOLATOR)) {
+        return Placeholder.of(name, descriptor(executable));
+      }
+      return null;
+    }
+
+    private String descriptor(ExecutableElement method) {
+      final StringBuilder descriptor = new StringBuilder("(");
+      for (VariableElement parameter : method.getParameters()) {
+        descriptor.append(resolver.descriptor(parameter.asType()));
+      }
+      return descriptor.append(')').append(resolver.descriptor(method.getReturnType()))
+          .toString();
+    }
+
+    private void collect(MethodInvocationTree node, Placeholder placeholder) {
+      final ExpressionTree argument = node.getArguments().get(0);
+      if (argument.getKind() != Tree.Kind.STRING_LITERAL) {
+        error("Interpolator." + placeholder.methodName()
+            + "() template must be a string literal", argument);
+        return;
+      }
+      final ParsedTemplate template;
+      try {
+        template = templates.parse((String) ((LiteralTree) argument).getValue());
+      } catch (TemplateParseException e) {
+        error("Malformed template " + e.getMessage(), argument);
+        return;
+      }
+      final String misplaced = EscapingContext.check(template);
+      if (misplaced != null) {
+        error(misplaced, argument);
+        return;
+      }
+      final Resolution[] resolutions = resolver.resolve(getCurrentPath(), template.varNames());
+      boolean resolved = true;
+      for (int i = 0; i < resolutions.length; i++) {
+        if (resolutions[i].error() != null) {
+          error(resolutions[i].error(), argument);
+          resolved = false;
+        } else if (!formatApplies(template.formats()[i], template.varNames()[i],
+            resolutions[i].valueDescriptor(), argument)) {
+          resolved = false;
+        }
+      }
+      if (className == null || !resolved) {
+        return;
+      }
+      final ParsedTemplate folded = template.fold(constantTexts(template, resolutions));
+      final List<Resolution> variables = variables(resolutions, folded != template);
+      final String method = methodName != null ? methodName : initializerName();
+      final String descriptor = methodName != null ? methodDescriptor
+          : method.equals("<clinit>") ? "()V" : null;
+      final Section section;
+      if (lambda < 0 && methodName == null && descriptor == null) {
+        section = Section.INITIALIZER;
+      } else if (lambda < 0 && constructor != null && constructor.prologueEnd() >= 0
+          && trees.getSourcePositions().getStartPosition(unit, node) < constructor.prologueEnd()) {
+        section = Section.PROLOGUE;
+      } else {
+        section = Section.BODY;
+      }
+      calls.calls.add(new Call(method, descriptor, lambda, section, placeholder, folded,
+          variables.stream().map(Resolution::varInfo).toArray(VarInfo[]::new),
+          variables.stream().map(Resolution::path).toArray(PropertyAccess[][]::new)));
+    }
+
+    /**
+     * Renders the values of constant variables as the runtime would append or format them, so
+     * folding them into the template does not change its output.
+     */
+    private String[] constantTexts(ParsedTemplate template, Resolution[] resolutions) {
+      final String[] texts = new String[resolutions.length];
+      for (int i = 0; i < resolutions.length; i++) {
+        final Object constant = resolutions[i].constant();
+        if (constant != null) {
+          final String format = template.formats()[i];
+          texts[i] = format == null
+              ? String.valueOf(constant)
+              : ValueFormat.of(format).format(constant);
+          constantsFolded++;
+        }
+      }
+      return texts;
+    }
+
+    /**
+     * Keeps the resolutions of the variables left in a template, after folding its constants.
+     */
+    private List<Resolution> variables(Resolution[] resolutions, boolean folded) {
+      final List<Resolution> variables = new ArrayList<>();
+      for (Resolution resolution : resolutions) {
+        if (resolution.constant() == null) {
+          variables.add(resolution);
+        }
+      }
+      if (folded && variables.isEmpty()) {
+        constantCallSites++;
+      }
+      return variables;
+    }
+
+    /**
+     * Checks that a format specifier is valid and applies to the type of its variable, reporting
+     * an error otherwise, so a template that compiles never fails to format at runtime.
+     */
+    private boolean formatApplies(String specifier, String varName, String typeDescriptor,
+        Tree argument) {
+      if (specifier == null) {
+        return true;
+      }
+      final ValueFormat format;
+      try {
+        format = ValueFormat.of(specifier);
+      } catch (IllegalArgumentException e) {
+        error(e.getMessage(), argument);
+        return false;
+      }
+      if (!format.accepts(typeDescriptor)) {
+        error("Format '" + specifier + "' does not apply to variable '" + varName
+            + "' of type " + typeName(typeDescriptor) + ", it expects "
+            + format.expected(), argument);
+        return false;
+      }
+      return true;
+    }
+
+    /**
+     * Names the initializer holding a call outside any method: {@code <clinit>} for static fields
+     * and blocks, {@code <init>} for instance ones.
+     */
+    private String initializerName() {
+      TreePath member = getCurrentPath();
+      while (member.getParentPath() != null
+          && !(member.getParentPath().getLeaf() instanceof ClassTree)) {
+        member = member.getParentPath();
+      }
+      final Tree owner = member.getParentPath() == null ? null : member.getParentPath().getLeaf();
+      final boolean isStatic = switch (owner == null ? Tree.Kind.CLASS : owner.getKind()) {
+        case INTERFACE, ANNOTATION_TYPE -> true;
+        default -> member.getLeaf() instanceof BlockTree block
+            ? block.isStatic()
+            : member.getLeaf() instanceof VariableTree variable
+                && variable.getModifiers().getFlags().contains(Modifier.STATIC);
+      };
+      return isStatic ? "<clinit>" : "<init>";
+    }
+
+    private void error(String message, Tree tree) {
+      trees.printMessage(Diagnostic.Kind.ERROR, message, tree, unit);
+    }
+  }
+
+  /**
+   * Where javac lays out the code of a call within its method, in bytecode order.
+   */
+  private enum Section {
+    /** Up to the explicit {@code super(...)} or {@code this(...)} call of a constructor. */
+    PROLOGUE,
+    /** An instance initializer, copied into constructors right after their prologue. */
+    INITIALIZER,
+    /** The rest of a method, constructor or lambda body. */
+    BODY
+  }
+
+  /**
+   * A constructor of the class being scanned.
+   *
+   * @param descriptor erased JVM descriptor of the constructor
+   * @param delegates true if the constructor calls {@code this(...)}, so javac copies no
+   *     initializer into it
+   * @param prologueEnd source position where its explicit constructor call ends, {@code -1} if
+   *     it has none
+   */
+  private record Constructor(String descriptor, boolean delegates, long prologueEnd) {
+  }
+
+  /**
+   * A call site collected before its class is fully scanned.
+   */
+  private record Call(String methodName, String methodDescriptor, int lambda, Section section,
+      Placeholder placeholder, ParsedTemplate template, VarInfo[] varInfos,
+      PropertyAccess[][] paths) {
+  }
+
+  /**
+   * A call site in the method it is compiled into.
+   */
+  private record Located(Call call, String methodDescriptor) {
+
+    String method() {
+      return call.methodName() + methodDescriptor + '#' + call.lambda();
+    }
+  }
+
+  /**
+   * The call sites and constructors of one class. The calls are indexed once every member is
+   * scanned, since an instance initializer is copied into constructors declared before it.
+   */
+  private static final class ClassCalls {
+
+    private final List<Call> calls = new ArrayList<>();
+    private final List<Constructor> constructors = new ArrayList<>();
+    private int lambdas;
+
+    /**
+     * Indexes the calls of each method in the order javac lays them out, and passes them on in
+     * source order, a call in an instance initializer once per constructor it is copied into.
+     */
+    void emit(String className, Consumer<CallSiteInfo> callSites) {
+      final List<Located> located = new ArrayList<>();
+      for (Call call : calls) {
+        if (call.section() != Section.INITIALIZER) {
+          located.add(new Located(call, call.methodDescriptor()));
+          continue;
+        }
+        for (Constructor constructor : constructors) {
+          if (!constructor.delegates()) {
+            located.add(new Located(call, constructor.descriptor()));
+          }
+        }
+      }
+      final Map<String, List<Located>> methods = new HashMap<>();
+      for (Located site : located) {
+        methods.computeIfAbsent(site.method(), method -> new ArrayList<>()).add(site);
+      }
+      final Map<Located, Integer> indexes = new IdentityHashMap<>();
+      for (List<Located> method : methods.values()) {
+        method.sort(Comparator.comparing(site -> site.call().section()));
+        for (int i = 0; i < method.size(); i++) {
+          indexes.put(method.get(i), i);
+        }
+      }
+      for (Located site : located) {
+        final Call call = site.call();
+        callSites.accept(new CallSiteInfo(className, call.methodName(), site.methodDescriptor(),
+            call.lambda(), indexes.get(site), call.placeholder(), call.template(),
+            call.varInfos(), call.paths()));
+      }
+    }
+  }
+
+  /**
+   * Counters and timings of the call site collection.
+   *
+   * @param unitsScanned compilation units whose trees were scanned
+   * @param unitsPruned compilation units skipped by the source pre-filter
+   * @param filterNanos time spent in the pre-filter
+   * @param scanNanos time spent scanning trees, resolving variables included
+   * @param scopes scopes computed with {@code Trees.getScope}
+   * @param scopeHits variables resolved in a cached scope
+   * @param constantsFolded constant variables folded into their templates
+   * @param constantCallSites call sites whose template folded to a constant string
+   */
+  record Stats(int unitsScanned, int unitsPruned, long filterNanos, long scanNanos, long scopes,
+      long scopeHits, int constantsFolded, int constantCallSites) {
+
+    /**
+     * Describes the collection for the build log, e.g. {@code Scanned 2 of 40 compilation units
+     * in 3.1 ms, 38 pruned in 0.4 ms, 3 scopes computed, 2 cached, 4 constants folded}.
+     *
+     * @return the summary
+     */
+    String summary() {
+      return "Scanned " + unitsScanned + " of " + (unitsScanned + unitsPruned)
+          + " compilation units in " + millis(scanNanos) + " ms, " + unitsPruned + " pruned in "
+          + millis(filterNanos) + " ms, " + scopes + " scopes computed, " + scopeHits + " cached, "
+          + constantsFolded + " constants folded";
+    }
+
+    private static String millis(long nanos) {
+      return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package interpolation.processor;
+
+import interpolation.internal.parser.ParsedTemplate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Information about a specific placeholder call site, such as {@code str()}.
+ *
+ * <p>Constant variables, such as {@code static final} fields initialized with a literal, are
+ * folded into the fragments of {@link #template()} at collection, and have no {@link VarInfo}.
+ *
+ * <p>A variable written as a property path, such as {@code ${user.address?.city}}, has the
+ * {@link VarInfo} of its first name, {@code user}, and the resolved steps reading the rest in
+ * {@link #paths()}.
+ *
+ * <p>A call site is located by the method whose body contains it, its name and erased descriptor
+ * telling overloads apart, and by its index among the calls of that method. Two cases do not map
+ * one to one to the source:
+ * <ul>
+ *   <li>A call in the body of a lambda expression is compiled into the synthetic method of the
+ *       lambda. It has the {@link #lambda()} ordinal of the innermost lambda containing it, and
+ *       its index counts the calls of that lambda only.</li>
+ *   <li>A call in an instance field initializer or initializer block is copied by javac into every
+ *       constructor that does not start with {@code this(...)}. It is collected once per such
+ *       constructor, with the constructor's descriptor, and indexed where the copy lands: after
+ *       the calls of the constructor up to its {@code super(...)} call, before those of the rest
+ *       of its body.</li>
+ * </ul>
+ *
+ * @param className binary name of the class containing the call, such as
+ *     {@code com.example.Outer$Inner}
+ * @param methodName containing method, {@code <init>} or {@code <clinit>} for initializers
+ * @param methodDescriptor erased JVM descriptor of the containing method as declared, such as
+ *     {@code (Ljava/lang/String;I)Ljava/lang/String;}, without the synthetic parameters javac adds
+ *     to constructors of inner classes and enums; {@code null} for a lambda in an instance
+ *     initializer, which belongs to no single constructor
+ * @param lambda ordinal of the lambda expression containing the call among the lambdas of its
+ *     class, in source order, or {@code -1} outside lambdas
+ * @param callSiteIndex index of the call among the placeholder calls of its method, or of its
+ *     lambda (0, 1, 2...)
+ * @param placeholder the placeholder method called
+ * @param template the parsed template
+ * @param varInfos the resolved template variables, in template order
+ * @param paths the property path of each variable, empty for a plain variable
+ */
+record CallSiteInfo(
+    String className,
+    String methodName,
+    String methodDescriptor,
+    int lambda,
+    int callSiteIndex,
+    Placeholder placeholder,
+    ParsedTemplate template,
+    VarInfo[] varInfos,
+    PropertyAccess[][] paths
+) {
+
+  /**
+   * Creates the information of a call site outside lambdas whose variables have no property path.
+   *
+   * @param className binary name of the class containing the call
+   * @param methodName containing method
+   * @param methodDescriptor erased JVM descriptor of the containing method
+   * @param callSiteIndex index of the call among the placeholder calls of its method
+   * @param placeholder the placeholder method called
+   * @param template the parsed template
+   * @param varInfos the resolved template variables, in template order
+   */
+  CallSiteInfo(String className, String methodName, String methodDescriptor,
+      int callSiteIndex, Placeholder placeholder, ParsedTemplate template, VarInfo[] varInfos) {
+    this(className, methodName, methodDescriptor, -1, callSiteIndex, placeholder, template,
+        varInfos, new PropertyAccess[varInfos.length][0]);
+  }
+
+  /**
+   * Returns the types of the values appended to the template, those of the variables or of the
+   * last property of their paths, from which a rewritten call site picks its {@code process}
+   * overload.
+   *
+   * @return the JVM type descriptors of the values, in template order
+   */
+  List<String> valueDescriptors() {
+    final List<String> descriptors = new ArrayList<>(varInfos.length);
+    for (int i = 0; i < varInfos.length; i++) {
+      descriptors.add(PropertyAccess.valueDescriptor(varInfos[i], paths[i]));
+    }
+    return descriptors;
+  }
+
+  /**
+   * Returns whether the call site is a {@code str()} call whose template has no variable, left
+   * after folding its constant variables. Such a call site needs no interpolator, only an
+   * {@code ldc} of its only fragment.
+   *
+   * @return true if the call site evaluates to a constant string
+   */
+  boolean isConstant() {
+    return placeholder == Placeholder.STR && varInfos.length == 0;
+  }
+}
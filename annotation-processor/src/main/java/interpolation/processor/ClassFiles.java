@@ -0,0 +1,90 @@
+package interpolation.processor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reads and rewrites class files in the compiler output directory.
+ *
+ * <p>Files are read into a single array sized from the channel, with no intermediate stream
+ * buffers. Rewrites are skipped when the bytes did not change, and go through a temporary file
+ * renamed over the original, so an interrupted build never leaves a truncated class file behind.
+ */
+final class ClassFiles {
+
+  private ClassFiles() {
+    // Utility class
+  }
+
+  /**
+   * Reads a class file.
+   *
+   * @param file the class file
+   * @return the file content
+   * @throws IOException if the file cannot be read
+   */
+  static byte[] read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Class file too large: " + file);
+      }
+      final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          throw new IOException("Class file truncated while reading: " + file);
+        }
+      }
+      return buffer.array();
+    }
+  }
+
+  /**
+   * Replaces a class file with its transformed content, unless the content is unchanged.
+   *
+   * @param file the class file
+   * @param original the content read from the file, or {@code null} if it does not exist yet
+   * @param transformed the transformed content
+   * @return true if the file was rewritten
+   * @throws IOException if the file cannot be written, the original file is then left untouched
+   */
+  static boolean write(Path file, byte[] original, byte[] transformed) throws IOException {
+    if (transformed == original || Arrays.equals(original, transformed)) {
+      return false;
+    }
+    // Not Files.createTempFile, which would narrow the permissions of the class file
+    final Path temp = file.resolveSibling(file.getFileName() + "."
+        + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.WRITE)) {
+        final ByteBuffer buffer = ByteBuffer.wrap(transformed);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      move(temp, file);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    return true;
+  }
+
+  private static void move(Path temp, Path file) throws IOException {
+    try {
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      // Same directory, so only exotic file systems get here
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package interpolation.processor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs one transformation task per class on a bounded pool of worker threads.
+ *
+ * <p>Outcomes are returned in class name order whatever order the tasks complete in, so the
+ * diagnostics reported from them do not depend on scheduling. Failures are captured per class and
+ * never cancel the other tasks.
+ */
+final class ClassTransformRunner {
+
+  private final int threads;
+
+  /**
+   * Creates a new ClassTransformRunner.
+   *
+   * @param threads the maximum number of worker threads, 1 to run tasks on the calling thread
+   */
+  ClassTransformRunner(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Thread count must be positive: " + threads);
+    }
+    this.threads = threads;
+  }
+
+  /**
+   * Runs the task on every class and waits for all of them.
+   *
+   * @param classNames binary names of the classes to transform
+   * @param task the per-class task
+   * @return the outcome of every task, in class name order, with timings
+   */
+  Report run(Collection<String> classNames, Task task) {
+    final List<String> sorted = new ArrayList<>(new TreeSet<>(classNames));
+    final int workers = Math.min(threads, sorted.size());
+    final List<Outcome> outcomes = new ArrayList<>(sorted.size());
+    final long start = System.nanoTime();
+    if (workers <= 1) {
+      for (String className : sorted) {
+        outcomes.add(execute(className, task));
+      }
+    } else {
+      final ExecutorService executor = Executors.newFixedThreadPool(workers, new Workers());
+      try {
+        final List<Future<Outcome>> futures = new ArrayList<>(sorted.size());
+        for (String className : sorted) {
+          futures.add(executor.submit(() -> execute(className, task)));
+        }
+        for (Future<Outcome> future : futures) {
+          outcomes.add(await(future));
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+    return new Report(outcomes, System.nanoTime() - start, Math.max(workers, 1));
+  }
+
+  private static Outcome execute(String className, Task task) {
+    final long start = System.nanoTime();
+    Exception failure = null;
+    try {
+      task.run(className);
+    } catch (Exception e) {
+      failure = e;
+    }
+    return new Outcome(className, System.nanoTime() - start, failure);
+  }
+
+  private static Outcome await(Future<Outcome> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while transforming classes", e);
+    } catch (ExecutionException e) {
+      // execute() catches every Exception, only Errors get here
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Transformation of a single class.
+   */
+  @FunctionalInterface
+  interface Task {
+
+    /**
+     * Transforms a class.
+     *
+     * @param className binary name of the class
+     * @throws Exception if the class cannot be transformed
+     */
+    void run(String className) throws Exception;
+  }
+
+  /**
+   * Outcome of the task of one class.
+   *
+   * @param className binary name of the class
+   * @param nanos time spent in the task
+   * @param failure the exception thrown by the task, or {@code null}
+   */
+  record Outcome(String className, long nanos, Exception failure) {
+  }
+
+  /**
+   * Outcomes and timings of a run.
+   *
+   * @param outcomes the outcome of every class, in class name order
+   * @param wallNanos elapsed time of the whole run
+   * @param threads the number of threads used
+   */
+  record Report(List<Outcome> outcomes, long wallNanos, int threads) {
+
+    /**
+     * Creates a new Report.
+     *
+     * @param outcomes the outcome of every class
+     * @param wallNanos elapsed time of the whole run
+     * @param threads the number of threads used
+     */
+    Report {
+      outcomes = List.copyOf(outcomes);
+    }
+
+    /**
+     * Returns the failed outcomes, in class name order.
+     *
+     * @return the failures
+     */
+    List<Outcome> failures() {
+      return outcomes.stream().filter(outcome -> outcome.failure() != null).toList();
+    }
+
+    /**
+     * Returns the slowest classes, slowest first.
+     *
+     * @param limit the maximum number of outcomes returned
+     * @return the slowest outcomes
+     */
+    List<Outcome> slowest(int limit) {
+      return outcomes.stream()
+          .sorted(Comparator.comparingLong(Outcome::nanos).reversed()
+              .thenComparing(Outcome::className))
+          .limit(limit)
+          .toList();
+    }
+
+    /**
+     * Describes the run for the build log, e.g. {@code Transformed 2 classes in 3.1 ms on 2
+     * threads, slowest: a.B 2.0 ms, a.C 1.1 ms}.
+     *
+     * @param limit the maximum number of slowest classes listed
+     * @return the summary
+     */
+    String summary(int limit) {
+      final StringBuilder summary = new StringBuilder("Transformed ")
+          .append(outcomes.size()).append(outcomes.size() == 1 ? " class in " : " classes in ")
+          .append(millis(wallNanos)).append(" ms on ")
+          .append(threads).append(threads == 1 ? " thread" : " threads");
+      String separator = ", slowest: ";
+      for (Outcome outcome : slowest(limit)) {
+        summary.append(separator).append(outcome.className()).append(' ')
+            .append(millis(outcome.nanos())).append(" ms");
+        separator = ", ";
+      }
+      return summary.toString();
+    }
+
+    private static String millis(long nanos) {
+      return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+  }
+
+  /**
+   * Creates daemon worker threads, so a stuck transformation never keeps javac alive.
+   */
+  private static final class Workers implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(runnable,
+          "interpolation-transform-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package interpolation.processor;
+
+import java.util.List;
+
+/**
+ * Rewrites the {@code Interpolator.str(...)} call sites of one compiled class.
+ *
+ * <p>Implementations are called concurrently for different classes and must not share mutable
+ * state.
+ */
+@FunctionalInterface
+interface ClassTransformer {
+
+  /**
+   * Leaves every class unchanged.
+   */
+  ClassTransformer UNCHANGED = (className, classBytes, callSites) -> classBytes;
+
+  /**
+   * Transforms a class file.
+   *
+   * @param className binary name of the class
+   * @param classBytes the class file as written by javac
+   * @param callSites the call sites of the class, in source order
+   * @return the transformed class file, or {@code classBytes} itself when nothing changed
+   * @throws Exception if the class cannot be transformed
+   */
+  byte[] transform(String className, byte[] classBytes, List<CallSiteInfo> callSites)
+      throws Exception;
+}
@@ -0,0 +1,205 @@
+package interpolation.processor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Persisted results of previous class transformations, keyed by fingerprint.
+ *
+ * <p>The fingerprint of a class covers everything its transformation depends on: the class file
+ * written by javac, which fixes the local variable layout the call sites read, the templates and
+ * resolved variables of its call sites and the options shaping the emitted code. A class
+ * recompiled to the same bytes with the same call sites, which is what happens to most classes
+ * when a build recompiles a whole module, reuses the stored result instead of being transformed
+ * again.
+ *
+ * <p>The index is a directory holding one {@value #RESULT_SUFFIX} file per fingerprint, empty when
+ * the transformation left the class unchanged, and a {@value #CLASSES} file mapping each class to
+ * its current fingerprint, so that results no class refers to anymore are deleted on
+ * {@link #save()}. Other files are never deleted, and a non-empty directory without a
+ * {@value #CLASSES} file is not used, so an index pointed at the build output cannot wipe it.
+ * Lookups and stores may run concurrently.
+ */
+final class FingerprintIndex {
+
+  static final String CLASSES = "classes";
+  static final String RESULT_SUFFIX = ".interpolated";
+
+  private static final byte[] UNCHANGED = new byte[0];
+
+  private final Path directory;
+  private final Map<String, String> classes = new ConcurrentHashMap<>();
+
+  private FingerprintIndex(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Opens the index stored in a directory, creating it if needed.
+   *
+   * @param directory the index directory, missing, empty or holding an index
+   * @return the index
+   * @throws IOException if the directory cannot be created, the index cannot be read, or the
+   *     directory holds other files but no index
+   */
+  static FingerprintIndex open(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    final FingerprintIndex index = new FingerprintIndex(directory);
+    final Path classesFile = directory.resolve(CLASSES);
+    if (!Files.exists(classesFile)) {
+      try (Stream<Path> files = Files.list(directory)) {
+        if (files.findAny().isPresent()) {
+          throw new IOException("Not a fingerprint index, refusing to use the non-empty directory "
+              + directory);
+        }
+      }
+      // Marks the directory as an index before any result is stored in it
+      ClassFiles.write(classesFile, null, new byte[0]);
+    } else {
+      for (String line : Files.readAllLines(classesFile, StandardCharsets.UTF_8)) {
+        final int space = line.indexOf(' ');
+        if (space > 0) {
+          index.classes.put(line.substring(0, space), line.substring(space + 1));
+        }
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Computes the fingerprint of a class transformation.
+   *
+   * @param classBytes the class file written by javac
+   * @param callSites the call sites of the class
+   * @param options the options the transformation depends on
+   * @return the fingerprint, a SHA-256 hex string
+   */
+  static String fingerprint(byte[] classBytes, List<CallSiteInfo> callSites, String options) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required on every JVM", e);
+    }
+    update(digest, options);
+    digest.update(classBytes);
+    for (CallSiteInfo callSite : callSites) {
+      update(digest, callSite.methodName());
+      update(digest, String.valueOf(callSite.methodDescriptor()));
+      update(digest, Integer.toString(callSite.lambda()));
+      update(digest, Integer.toString(callSite.callSiteIndex()));
+      update(digest, callSite.placeholder().name());
+      update(digest, Integer.toString(callSite.template().fragments().length));
+      for (String fragment : callSite.template().fragments()) {
+        update(digest, fragment);
+      }
+      for (String format : callSite.template().formats()) {
+        update(digest, String.valueOf(format));
+      }
+      for (int i = 0; i < callSite.varInfos().length; i++) {
+        final VarInfo varInfo = callSite.varInfos()[i];
+        update(digest, varInfo.name());
+        update(digest, varInfo.typeDescriptor());
+        update(digest, String.valueOf(varInfo.fieldOwner()));
+        for (PropertyAccess step : callSite.paths()[i]) {
+          update(digest, step.toString());
+        }
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /**
+   * Returns the stored result of a transformation.
+   *
+   * @param fingerprint the fingerprint of the transformation
+   * @param classBytes the class file the result applies to
+   * @return the transformed class file, {@code classBytes} itself if the transformation left it
+   *     unchanged, or {@code null} if no result is stored
+   * @throws IOException if the result cannot be read
+   */
+  byte[] lookup(String fingerprint, byte[] classBytes) throws IOException {
+    final Path file = directory.resolve(fingerprint + RESULT_SUFFIX);
+    if (!Files.exists(file)) {
+      return null;
+    }
+    final byte[] stored = ClassFiles.read(file);
+    return stored.length == 0 ? classBytes : stored;
+  }
+
+  /**
+   * Stores the result of a transformation.
+   *
+   * @param fingerprint the fingerprint of the transformation
+   * @param classBytes the class file written by javac
+   * @param transformed the transformed class file
+   * @throws IOException if the result cannot be written
+   */
+  void store(String fingerprint, byte[] classBytes, byte[] transformed) throws IOException {
+    final boolean unchanged = transformed == classBytes || Arrays.equals(classBytes, transformed);
+    ClassFiles.write(directory.resolve(fingerprint + RESULT_SUFFIX), null,
+        unchanged ? UNCHANGED : transformed);
+  }
+
+  /**
+   * Records the current fingerprint of a class.
+   *
+   * @param className binary name of the class
+   * @param fingerprint the fingerprint of its last transformation
+   */
+  void record(String className, String fingerprint) {
+    classes.put(className, fingerprint);
+  }
+
+  /**
+   * Writes the class mapping and deletes the results no class refers to. Only
+   * {@value #RESULT_SUFFIX} files are deleted.
+   *
+   * @throws IOException if the index cannot be written
+   */
+  void save() throws IOException {
+    final Map<String, String> sorted = new TreeMap<>(classes);
+    final List<String> lines = new ArrayList<>(sorted.size());
+    sorted.forEach((className, fingerprint) -> lines.add(className + ' ' + fingerprint));
+    final Path classesFile = directory.resolve(CLASSES);
+    final byte[] content = (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+    final byte[] previous = Files.exists(classesFile) ? ClassFiles.read(classesFile) : null;
+    ClassFiles.write(classesFile, previous, content);
+
+    final Set<String> live = new HashSet<>();
+    for (String fingerprint : sorted.values()) {
+      live.add(fingerprint + RESULT_SUFFIX);
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        final String name = file.getFileName().toString();
+        if (name.endsWith(RESULT_SUFFIX) && !live.contains(name)) {
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    digest.update((byte) (bytes.length >>> 24));
+    digest.update((byte) (bytes.length >>> 16));
+    digest.update((byte) (bytes.length >>> 8));
+    digest.update((byte) bytes.length);
+    digest.update(bytes);
+  }
+}
@@ -1,11 +1,37 @@
 package interpolation.processor;
 
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.Trees;
+import interpolation.internal.parser.ParsedTemplate;
+import interpolation.parser.TemplateCache;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
 
 /**
  * Interpolation annotation processor
@@ -13,11 +39,405 @@ import javax.lang.model.element.TypeElement;
 
 @SupportedAnnotationTypes("*")
 @SupportedSourceVersion(javax.lang.model.SourceVersion.RELEASE_25)
+@SupportedOptions({InterpolationProcessor.OPTION_PARSER, InterpolationProcessor.OPTION_THREADS,
+    InterpolationProcessor.OPTION_INCREMENTAL, InterpolationProcessor.OPTION_INDEX,
+    InterpolationProcessor.OPTION_STATS, InterpolationProcessor.OPTION_STATS_FILE})
 public class InterpolationProcessor extends AbstractProcessor {
 
+  /**
+   * Selects the {@link ParserMode} used on templates: {@code antlr} (default) or {@code scanner}.
+   */
+  public static final String OPTION_PARSER = "interpolation.parser";
+
+  /**
+   * Maximum number of threads transforming class files. Defaults to the number of processors.
+   */
+  public static final String OPTION_THREADS = "interpolation.threads";
+
+  /**
+   * Reuses the transformation of classes recompiled to the same bytes with the same call sites
+   * when {@code true}. Defaults to {@code false}. See {@link FingerprintIndex}.
+   */
+  public static final String OPTION_INCREMENTAL = "interpolation.incremental";
+
+  /**
+   * Directory of the {@link FingerprintIndex}. Defaults to a sibling of the class output
+   * directory, e.g. {@code target/classes-interpolation} for {@code target/classes}.
+   */
+  public static final String OPTION_INDEX = "interpolation.index";
+
+  /**
+   * Collects counters and per-phase timings when {@code true}, reported as a note and as a JSON
+   * file, and notes the pruned compilation units and the slowest classes. See
+   * {@link ProcessorStats}.
+   */
+  public static final String OPTION_STATS = "interpolation.stats";
+
+  /**
+   * File of the JSON statistics report. Defaults to a sibling of the class output directory, e.g.
+   * {@code target/classes-interpolation-stats.json} for {@code target/classes}.
+   */
+  public static final String OPTION_STATS_FILE = "interpolation.stats.file";
+
+  private static final String INDEX_SUFFIX = "-interpolation";
+  private static final String STATS_SUFFIX = "-interpolation-stats.json";
+
+  // Resolved, never created, to locate the class output directory
+  private static final String OUTPUT_PROBE = "interpolation.probe";
+
+  // Bump when the emitted bytecode changes, so stale fingerprint index entries are not reused
+  private static final int INDEX_VERSION = 1;
+
+  private static final int SLOWEST_CLASSES = 5;
+
+  private final ClassTransformer transformer;
+  private ParserMode parserMode = ParserMode.ANTLR;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private boolean incremental;
+  private String indexDirectory;
+  private String statsFile;
+  private ProcessorStats stats = new ProcessorStats(false);
+  private TemplateCache templateCache;
+  private CallSiteCollector collector;
+  private FingerprintIndex index;
+  private final AtomicInteger reused = new AtomicInteger();
+  private final List<CallSiteInfo> callSites = new ArrayList<>();
+  private final Set<String> generatedClasses = new HashSet<>();
+
+  /**
+   * Creates a new InterpolationProcessor.
+   */
+  public InterpolationProcessor() {
+    this(ClassTransformer.UNCHANGED);
+  }
+
+  /**
+   * Creates a new InterpolationProcessor.
+   *
+   * @param transformer rewrites the call sites of each generated class
+   */
+  InterpolationProcessor(ClassTransformer transformer) {
+    this.transformer = transformer;
+  }
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    final Map<String, String> options = processingEnv.getOptions();
+    try {
+      parserMode = ParserMode.fromOption(options.get(OPTION_PARSER));
+      threads = Options.intOption(OPTION_THREADS, options.get(OPTION_THREADS), threads, 1);
+      incremental = Options.booleanOption(OPTION_INCREMENTAL, options.get(OPTION_INCREMENTAL),
+          false);
+      indexDirectory = options.get(OPTION_INDEX);
+      stats = new ProcessorStats(
+          Options.booleanOption(OPTION_STATS, options.get(OPTION_STATS), false));
+      statsFile = options.get(OPTION_STATS_FILE);
+    } catch (IllegalArgumentException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage());
+    }
+    final Function<String, ParsedTemplate> parser = parserMode.parser();
+    templateCache = new TemplateCache(template -> {
+      final long start = stats.start();
+      try {
+        return parser.apply(template);
+      } finally {
+        stats.record(ProcessorStats.Phase.PARSE, start);
+      }
+    }, TemplateCache.DEFAULT_MAX_SIZE);
+    try {
+      final JavacTask task = JavacTask.instance(processingEnv);
+      collector = new CallSiteCollector(Trees.instance(processingEnv), processingEnv.getElementUtils(),
+          processingEnv.getTypeUtils(), templateCache, stats, callSites::add);
+      task.addTaskListener(collector);
+      task.addTaskListener(new TaskListener() {
+        @Override
+        public void finished(TaskEvent event) {
+          if (event.getKind() == TaskEvent.Kind.GENERATE && event.getTypeElement() != null) {
+            generatedClasses.add(processingEnv.getElementUtils()
+                .getBinaryName(event.getTypeElement()).toString());
+          } else if (event.getKind() == TaskEvent.Kind.COMPILATION) {
+            transformClasses();
+            reportStats();
+          }
+        }
+      });
+    } catch (IllegalArgumentException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+          "Interpolation requires javac, Interpolator.str() calls are not processed");
+    }
+  }
+
+  /**
+   * Returns the parser mode selected for this compilation.
+   *
+   * @return the parser mode
+   */
+  ParserMode parserMode() {
+    return parserMode;
+  }
+
+  /**
+   * Returns the maximum number of threads transforming class files.
+   *
+   * @return the thread count
+   */
+  int threads() {
+    return threads;
+  }
+
+  /**
+   * Returns the template cache shared by every call site of this compilation.
+   *
+   * @return the template cache
+   */
+  TemplateCache templateCache() {
+    return templateCache;
+  }
+
+  /**
+   * Returns the number of classes whose transformation was reused from the fingerprint index.
+   *
+   * @return the reused class count
+   */
+  int reused() {
+    return reused.get();
+  }
+
+  /**
+   * Returns the call site collection statistics of this compilation.
+   *
+   * @return the statistics
+   */
+  CallSiteCollector.Stats collectorStats() {
+    return collector.stats();
+  }
+
+  /**
+   * Returns the counters and timings of this compilation.
+   *
+   * @return the statistics, disabled unless {@code -Ainterpolation.stats=true}
+   */
+  ProcessorStats stats() {
+    return stats;
+  }
+
+  /**
+   * Returns the call sites collected so far, in compilation order.
+   *
+   * @return the collected call sites
+   */
+  List<CallSiteInfo> callSites() {
+    return callSites;
+  }
+
   @Override
   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
     // Processing logic here
     return false;
   }
+
+  /**
+   * Transforms the class files of the generated classes holding call sites, once the whole
+   * compilation is written. Classes are transformed in parallel; failures are reported in class
+   * name order. Nothing is read while the transformer is {@link ClassTransformer#UNCHANGED}.
+   */
+  private void transformClasses() {
+    if (stats.enabled()) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+          collector.stats().summary());
+    }
+    if (transformer == ClassTransformer.UNCHANGED) {
+      return;
+    }
+    final Map<String, List<CallSiteInfo>> classes = new TreeMap<>();
+    for (CallSiteInfo callSite : callSites) {
+      if (generatedClasses.contains(callSite.className())) {
+        classes.computeIfAbsent(callSite.className(), key -> new ArrayList<>()).add(callSite);
+      }
+    }
+    if (classes.isEmpty()) {
+      return;
+    }
+
+    // The Filer is not thread-safe, resolve the class files up front
+    final Map<String, FileObject> classFiles = new HashMap<>();
+    for (String className : classes.keySet()) {
+      try {
+        classFiles.put(className, classFile(className));
+      } catch (IOException e) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+            "Cannot locate class file of " + className + ": " + e.getMessage());
+      }
+    }
+
+    index = openIndex();
+    final ClassTransformRunner.Report report = new ClassTransformRunner(threads).run(
+        classFiles.keySet(),
+        className -> transform(className, classFiles.get(className), classes.get(className)));
+    for (ClassTransformRunner.Outcome failure : report.failures()) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Failed to transform " + failure.className() + ": " + failure.failure());
+    }
+    if (index != null) {
+      try {
+        index.save();
+      } catch (IOException e) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+            "Cannot save the interpolation fingerprint index: " + e.getMessage());
+      }
+    }
+    if (stats.enabled()) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+          report.summary(SLOWEST_CLASSES));
+      if (index != null) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Reused " + reused.get()
+            + " of " + report.outcomes().size() + " classes from the fingerprint index");
+      }
+    }
+  }
+
+  /**
+   * Opens the fingerprint index, or returns {@code null} when incremental processing is off or
+   * the class output is not a directory and no index directory is configured.
+   */
+  private FingerprintIndex openIndex() {
+    if (!incremental) {
+      return null;
+    }
+    Path directory = null;
+    try {
+      if (indexDirectory != null && !indexDirectory.isBlank()) {
+        directory = Path.of(indexDirectory.trim());
+      } else {
+        directory = besideClassOutput(INDEX_SUFFIX);
+        if (directory == null) {
+          return null;
+        }
+      }
+      return FingerprintIndex.open(directory);
+    } catch (IOException | RuntimeException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+          "Cannot open the interpolation fingerprint index"
+              + (directory == null ? "" : " in " + directory) + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Completes the counters from the template cache and the collector, then prints the summary and
+   * writes the JSON report.
+   */
+  private void reportStats() {
+    if (!stats.enabled()) {
+      return;
+    }
+    final TemplateCache.Stats cacheStats = templateCache.stats();
+    stats.add(ProcessorStats.Counter.TEMPLATES_PARSED, cacheStats.misses());
+    stats.add(ProcessorStats.Counter.TEMPLATE_CACHE_HITS, cacheStats.hits());
+    stats.add(ProcessorStats.Counter.UNITS_SCANNED, collector.stats().unitsScanned());
+    stats.add(ProcessorStats.Counter.UNITS_PRUNED, collector.stats().unitsPruned());
+    stats.add(ProcessorStats.Counter.CALL_SITES, callSites.size());
+    stats.add(ProcessorStats.Counter.CONSTANTS_FOLDED, collector.stats().constantsFolded());
+    stats.add(ProcessorStats.Counter.CONSTANT_CALL_SITES, collector.stats().constantCallSites());
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, stats.summary());
+
+    Path file = null;
+    try {
+      file = statsFile != null && !statsFile.isBlank()
+          ? Path.of(statsFile.trim())
+          : besideClassOutput(STATS_SUFFIX);
+      if (file != null) {
+        if (file.getParent() != null) {
+          Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, stats.toJson(), StandardCharsets.UTF_8);
+      }
+    } catch (IOException | RuntimeException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+          "Cannot write the interpolation stats report" + (file == null ? "" : " " + file) + ": "
+              + e.getMessage());
+    }
+  }
+
+  /**
+   * Resolves a path next to the class output directory, named after it, e.g.
+   * {@code target/classes-interpolation} for the suffix {@code -interpolation}.
+   *
+   * @return the path, or {@code null} if the class output is not a directory
+   */
+  private Path besideClassOutput(String suffix) throws IOException {
+    final URI classOutput = processingEnv.getFiler()
+        .getResource(StandardLocation.CLASS_OUTPUT, "", OUTPUT_PROBE).toUri();
+    if (!"file".equals(classOutput.getScheme())) {
+      return null;
+    }
+    final Path root = Path.of(classOutput).getParent();
+    return root.resolveSibling(root.getFileName() + suffix);
+  }
+
+  /**
+   * Describes the options the emitted code depends on, as part of every fingerprint.
+   */
+  private String fingerprintOptions() {
+    return INDEX_VERSION + " " + transformer.getClass().getName();
+  }
+
+  private FileObject classFile(String className) throws IOException {
+    final int lastDot = className.lastIndexOf('.');
+    return processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT,
+        lastDot < 0 ? "" : className.substring(0, lastDot),
+        className.substring(lastDot + 1) + ".class");
+  }
+
+  private void transform(String className, FileObject classFile, List<CallSiteInfo> classCallSites)
+      throws Exception {
+    final Path path = "file".equals(classFile.toUri().getScheme())
+        ? Path.of(classFile.toUri())
+        : null;
+    long start = stats.start();
+    final byte[] bytes;
+    if (path != null) {
+      bytes = ClassFiles.read(path);
+    } else {
+      // In-memory file managers, e.g. in tests
+      try (InputStream in = classFile.openInputStream()) {
+        bytes = in.readAllBytes();
+      }
+    }
+    stats.record(ProcessorStats.Phase.IO, start);
+
+    start = stats.start();
+    final byte[] transformed;
+    if (index == null) {
+      transformed = transformer.transform(className, bytes, classCallSites);
+      stats.add(ProcessorStats.Counter.CLASSES_TRANSFORMED, 1);
+    } else {
+      final String fingerprint = FingerprintIndex.fingerprint(bytes, classCallSites,
+          fingerprintOptions());
+      final byte[] stored = index.lookup(fingerprint, bytes);
+      if (stored != null) {
+        reused.incrementAndGet();
+        stats.add(ProcessorStats.Counter.CLASSES_REUSED, 1);
+        transformed = stored;
+      } else {
+        transformed = transformer.transform(className, bytes, classCallSites);
+        stats.add(ProcessorStats.Counter.CLASSES_TRANSFORMED, 1);
+        index.store(fingerprint, bytes, transformed);
+      }
+      index.record(className, fingerprint);
+    }
+    stats.record(ProcessorStats.Phase.TRANSFORM, start);
+
+    if (path != null) {
+      start = stats.start();
+      if (ClassFiles.write(path, bytes, transformed)) {
+        stats.add(ProcessorStats.Counter.CALL_SITES_REWRITTEN, classCallSites.size());
+        stats.add(ProcessorStats.Counter.BYTES_WRITTEN, transformed.length);
+      }
+      stats.record(ProcessorStats.Phase.IO, start);
+    } else if (!Arrays.equals(bytes, transformed)) {
+      throw new IOException("Cannot rewrite " + classFile.toUri() + ", not a file");
+    }
+  }
 }
@@ -0,0 +1,87 @@
+package interpolation.processor;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Parsing helpers for the {@code -A} options of {@link InterpolationProcessor}.
+ */
+final class Options {
+
+  private Options() {
+    // Utility class
+  }
+
+  /**
+   * Resolves a {@code true} or {@code false} option, case-insensitively.
+   *
+   * @param name the option name, used in the error message
+   * @param value the option value, or {@code null} when the option is absent
+   * @param defaultValue the value returned when the option is absent
+   * @return the option value
+   * @throws IllegalArgumentException if the value is neither {@code true} nor {@code false}
+   */
+  static boolean booleanOption(String name, String value, boolean defaultValue) {
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    return switch (value.trim().toLowerCase(Locale.ROOT)) {
+      case "true" -> true;
+      case "false" -> false;
+      default -> throw new IllegalArgumentException(
+          "Invalid value '" + value + "' for " + name + ", expected true or false");
+    };
+  }
+
+  /**
+   * Resolves an integer option.
+   *
+   * @param name the option name, used in the error message
+   * @param value the option value, or {@code null} when the option is absent
+   * @param defaultValue the value returned when the option is absent
+   * @param min the smallest accepted value
+   * @return the option value
+   * @throws IllegalArgumentException if the value is not an integer of at least {@code min}
+   */
+  static int intOption(String name, String value, int defaultValue, int min) {
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      final int parsed = Integer.parseInt(value.trim());
+      if (parsed >= min) {
+        return parsed;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    throw new IllegalArgumentException(
+        "Invalid value '" + value + "' for " + name + ", expected an integer of at least " + min);
+  }
+
+  /**
+   * Resolves an option naming an enum constant, case-insensitively.
+   *
+   * @param type the enum type
+   * @param description what the option selects, used in the error message
+   * @param value the option value, or {@code null} when the option is absent
+   * @param defaultValue the constant returned when the option is absent
+   * @return the matching constant
+   * @throws IllegalArgumentException if the value does not name a constant
+   */
+  static <E extends Enum<E>> E enumOption(Class<E> type, String description, String value,
+      E defaultValue) {
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown " + description + " '" + value
+          + "', expected one of: " + Arrays.stream(type.getEnumConstants())
+              .map(constant -> constant.name().toLowerCase(Locale.ROOT))
+              .collect(Collectors.joining(", ")), e);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package interpolation.processor;
+
+import interpolation.internal.parser.ParsedTemplate;
+import interpolation.internal.parser.TemplateScanner;
+import interpolation.parser.TemplateParserWrapper;
+import java.util.function.Function;
+
+/**
+ * Selects the template parser, with the {@code -Ainterpolation.parser=<parser>} compiler option.
+ * Both parsers accept the same syntax and report the same errors.
+ */
+public enum ParserMode {
+
+  /**
+   * The ANTLR grammar behind {@link TemplateParserWrapper}. This is the default.
+   */
+  ANTLR(TemplateParserWrapper::parse),
+
+  /**
+   * The hand-written single-pass {@link TemplateScanner}, faster on large code bases.
+   */
+  SCANNER(TemplateScanner::parse);
+
+  private final Function<String, ParsedTemplate> parser;
+
+  ParserMode(Function<String, ParsedTemplate> parser) {
+    this.parser = parser;
+  }
+
+  /**
+   * Returns the parse function of this mode.
+   *
+   * @return the parse function
+   */
+  public Function<String, ParsedTemplate> parser() {
+    return parser;
+  }
+
+  /**
+   * Resolves the value of the {@code interpolation.parser} option.
+   *
+   * @param value the option value, or {@code null} when the option is absent
+   * @return the matching mode, {@link #ANTLR} when the option is absent
+   * @throws IllegalArgumentException if the value does not name a mode
+   */
+  public static ParserMode fromOption(String value) {
+    return Options.enumOption(ParserMode.class, "template parser", value, ANTLR);
+  }
+}
@@ -0,0 +1,74 @@
+package interpolation.processor;
+
+/**
+ * The {@code Interpolator} placeholder methods whose call sites the processor rewrites.
+ *
+ * <p>Each placeholder takes the template as its only argument. {@link #STR} returns a new
+ * {@code String}.
+ */
+public enum Placeholder {
+
+  /**
+   * {@code Interpolator.str(String)}.
+   */
+  STR("str", "(Ljava/lang/String;)Ljava/lang/String;");
+
+  private final String methodName;
+  private final String descriptor;
+
+  Placeholder(String methodName, String descriptor) {
+    this.methodName = methodName;
+    this.descriptor = descriptor;
+  }
+
+  /**
+   * Returns the name of the placeholder method.
+   *
+   * @return the method name
+   */
+  public String methodName() {
+    return methodName;
+  }
+
+  /**
+   * Returns the JVM descriptor of the placeholder method, which its call sites invoke with
+   * {@code invokestatic}.
+   *
+   * @return the method descriptor
+   */
+  public String descriptor() {
+    return descriptor;
+  }
+
+  /**
+   * Checks whether a method name is the name of a placeholder.
+   *
+   * @param methodName the method name
+   * @return true if some placeholder has this name
+   */
+  static boolean isPlaceholderName(String methodName) {
+    for (Placeholder placeholder : values()) {
+      if (placeholder.methodName.equals(methodName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the placeholder with a method descriptor.
+   *
+   * @param methodName the invoked method name
+   * @param descriptor the erased JVM descriptor of the invoked method
+   * @return the placeholder, or {@code null} if none matches
+   */
+  static Placeholder of(String methodName, String descriptor) {
+    for (Placeholder placeholder : values()) {
+      if (placeholder.methodName.equals(methodName)
+          && placeholder.descriptor().equals(descriptor)) {
+        return placeholder;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,303 @@
+package interpolation.processor;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and per-phase timings of one compilation, enabled with
+ * {@code -Ainterpolation.stats=true}.
+ *
+ * <p>Every timed event, such as the parse of one template or the transformation of one class,
+ * is kept as a sample, so the report gives percentiles and not only totals. Recording is
+ * thread-safe, class transformations record from the worker threads. A disabled instance ignores
+ * every call.
+ */
+final class ProcessorStats {
+
+  /**
+   * Timed phases.
+   */
+  enum Phase {
+
+    /**
+     * Parse of one distinct template, on a template cache miss.
+     */
+    PARSE("parse"),
+
+    /**
+     * Scan of one top level class: call site detection, template lookup and variable resolution.
+     */
+    ANALYZE("analyze"),
+
+    /**
+     * Transformation of one class file, index lookups included.
+     */
+    TRANSFORM("transform"),
+
+    /**
+     * Read or write of one class file.
+     */
+    IO("io");
+
+    private final String key;
+
+    Phase(String key) {
+      this.key = key;
+    }
+  }
+
+  /**
+   * Counted events.
+   */
+  enum Counter {
+
+    /**
+     * Distinct templates parsed.
+     */
+    TEMPLATES_PARSED("templatesParsed"),
+
+    /**
+     * Template lookups answered by the template cache.
+     */
+    TEMPLATE_CACHE_HITS("templateCacheHits"),
+
+    /**
+     * Compilation units scanned for call sites.
+     */
+    UNITS_SCANNED("unitsScanned"),
+
+    /**
+     * Compilation units skipped by the source pre-filter.
+     */
+    UNITS_PRUNED("unitsPruned"),
+
+    /**
+     * Well-formed call sites collected.
+     */
+    CALL_SITES("callSites"),
+
+    /**
+     * Constant variables folded into their templates.
+     */
+    CONSTANTS_FOLDED("constantsFolded"),
+
+    /**
+     * Call sites whose template folded to a constant string.
+     */
+    CONSTANT_CALL_SITES("constantCallSites"),
+
+    /**
+     * Call sites of the classes whose bytes changed.
+     */
+    CALL_SITES_REWRITTEN("callSitesRewritten"),
+
+    /**
+     * Classes run through the transformer.
+     */
+    CLASSES_TRANSFORMED("classesTransformed"),
+
+    /**
+     * Classes whose transformation was reused from the fingerprint index.
+     */
+    CLASSES_REUSED("classesReused"),
+
+    /**
+     * Bytes of the class files rewritten.
+     */
+    BYTES_WRITTEN("bytesWritten");
+
+    private final String key;
+
+    Counter(String key) {
+      this.key = key;
+    }
+  }
+
+  private static final double[] PERCENTILES = {50, 90, 99};
+
+  private final boolean enabled;
+  private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+  private final Map<Phase, Samples> samples = new EnumMap<>(Phase.class);
+
+  /**
+   * Creates a new ProcessorStats.
+   *
+   * @param enabled false to ignore every call
+   */
+  ProcessorStats(boolean enabled) {
+    this.enabled = enabled;
+    for (Phase phase : Phase.values()) {
+      samples.put(phase, new Samples());
+    }
+  }
+
+  /**
+   * Returns whether this instance records anything.
+   *
+   * @return true if enabled
+   */
+  boolean enabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the current time, or 0 when disabled, to pass to {@link #record(Phase, long)}.
+   *
+   * @return the start of a timed event
+   */
+  long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records a timed event that started at {@code start}.
+   *
+   * @param phase the phase of the event
+   * @param start the value returned by {@link #start()}
+   */
+  void record(Phase phase, long start) {
+    if (enabled) {
+      samples.get(phase).add(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Adds to a counter.
+   *
+   * @param counter the counter
+   * @param delta the amount to add
+   */
+  void add(Counter counter, long delta) {
+    if (enabled) {
+      counters.addAndGet(counter.ordinal(), delta);
+    }
+  }
+
+  /**
+   * Returns the value of a counter.
+   *
+   * @param counter the counter
+   * @return its value
+   */
+  long count(Counter counter) {
+    return counters.get(counter.ordinal());
+  }
+
+  /**
+   * Returns the number of events recorded in a phase.
+   *
+   * @param phase the phase
+   * @return the event count
+   */
+  int events(Phase phase) {
+    return samples.get(phase).sorted().length;
+  }
+
+  /**
+   * Describes the counters and timings for the build log.
+   *
+   * @return the multi-line summary
+   */
+  String summary() {
+    final StringBuilder summary = new StringBuilder("Interpolation stats:");
+    for (Counter counter : Counter.values()) {
+      summary.append("\n  ").append(counter.key).append(": ").append(count(counter));
+    }
+    for (Phase phase : Phase.values()) {
+      final long[] sorted = samples.get(phase).sorted();
+      summary.append("\n  ").append(phase.key).append(": ").append(sorted.length)
+          .append(" events, total ").append(millis(total(sorted))).append(" ms");
+      for (double percentile : PERCENTILES) {
+        summary.append(", p").append((int) percentile).append(' ')
+            .append(millis(percentile(sorted, percentile))).append(" ms");
+      }
+      summary.append(", max ").append(millis(max(sorted))).append(" ms");
+    }
+    return summary.toString();
+  }
+
+  /**
+   * Renders the counters and timings as a JSON object, times in milliseconds.
+   *
+   * @return the JSON report
+   */
+  String toJson() {
+    final StringBuilder json = new StringBuilder("{\n  \"counters\": {");
+    String separator = "\n";
+    for (Counter counter : Counter.values()) {
+      json.append(separator).append("    \"").append(counter.key).append("\": ")
+          .append(count(counter));
+      separator = ",\n";
+    }
+    json.append("\n  },\n  \"phases\": {");
+    separator = "\n";
+    for (Phase phase : Phase.values()) {
+      final long[] sorted = samples.get(phase).sorted();
+      json.append(separator).append("    \"").append(phase.key).append("\": {\"count\": ")
+          .append(sorted.length).append(", \"totalMs\": ").append(millis(total(sorted)));
+      for (double percentile : PERCENTILES) {
+        json.append(", \"p").append((int) percentile).append("Ms\": ")
+            .append(millis(percentile(sorted, percentile)));
+      }
+      json.append(", \"maxMs\": ").append(millis(max(sorted))).append('}');
+      separator = ",\n";
+    }
+    return json.append("\n  }\n}\n").toString();
+  }
+
+  /**
+   * Returns a percentile of sorted samples, by the nearest-rank method.
+   *
+   * @param sorted the samples, in ascending order
+   * @param percentile the percentile, from 0 to 100
+   * @return the sample at the percentile, 0 if there are no samples
+   */
+  static long percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    final int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+    return sorted[Math.max(rank, 1) - 1];
+  }
+
+  private static long total(long[] sorted) {
+    long total = 0;
+    for (long sample : sorted) {
+      total += sample;
+    }
+    return total;
+  }
+
+  private static long max(long[] sorted) {
+    return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+  }
+
+  /**
+   * Growable array of durations.
+   */
+  private static final class Samples {
+
+    private long[] values = new long[64];
+    private int size;
+
+    synchronized void add(long nanos) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = nanos;
+    }
+
+    synchronized long[] sorted() {
+      final long[] sorted = Arrays.copyOf(values, size);
+      Arrays.sort(sorted);
+      return sorted;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package interpolation.processor;
+
+/**
+ * One step of a property path, such as {@code address} then {@code city} in
+ * {@code ${user.address?.city}}, resolved at compile time to the instruction that reads it.
+ *
+ * <p>A step is read from the value of the previous one, or from the template variable for the
+ * first step: with {@code getfield} for a field, {@code invokevirtual} or {@code invokeinterface}
+ * for an accessor method, such as a record component accessor or a {@code getX()} getter, and
+ * {@code arraylength} for the {@code length} of an array. Reading the path needs no reflection.
+ *
+ * <p>A step reached with {@code ?.} is null-safe: if the value it is read from is {@code null},
+ * the whole path evaluates to {@code null} instead of throwing a {@code NullPointerException}. A
+ * step reached with {@code .} reads its receiver like Java code does.
+ *
+ * @param name the property name as written in the template
+ * @param kind the instruction reading the property
+ * @param owner internal name of the type the member is read through, the static type of the
+ *     receiver, {@code null} for {@link Kind#ARRAY_LENGTH}
+ * @param memberName name of the field or method, {@code getCity} for the property {@code city}
+ * @param descriptor JVM descriptor of the field or method, as declared
+ * @param typeDescriptor JVM type descriptor of the value read, with type arguments applied: when
+ *     it differs from the declared type, the value is cast before the next step
+ * @param nullSafe true if the step was reached with {@code ?.}
+ */
+record PropertyAccess(
+    String name,
+    Kind kind,
+    String owner,
+    String memberName,
+    String descriptor,
+    String typeDescriptor,
+    boolean nullSafe
+) {
+
+  /**
+   * Returns the type of the value a variable and its property path evaluate to: the type of the
+   * last property, boxed if the path has a null-safe step, as it may evaluate to {@code null}.
+   *
+   * @param varInfo the template variable
+   * @param path the properties read from the variable, empty for the variable itself
+   * @return the JVM type descriptor of the value
+   */
+  static String valueDescriptor(VarInfo varInfo, PropertyAccess[] path) {
+    if (path.length == 0) {
+      return varInfo.typeDescriptor();
+    }
+    final String descriptor = path[path.length - 1].typeDescriptor();
+    for (PropertyAccess step : path) {
+      if (step.nullSafe()) {
+        return boxed(descriptor);
+      }
+    }
+    return descriptor;
+  }
+
+  private static String boxed(String descriptor) {
+    return switch (descriptor) {
+      case "Z" -> "Ljava/lang/Boolean;";
+      case "B" -> "Ljava/lang/Byte;";
+      case "S" -> "Ljava/lang/Short;";
+      case "C" -> "Ljava/lang/Character;";
+      case "I" -> "Ljava/lang/Integer;";
+      case "J" -> "Ljava/lang/Long;";
+      case "F" -> "Ljava/lang/Float;";
+      case "D" -> "Ljava/lang/Double;";
+      default -> descriptor;
+    };
+  }
+
+  /**
+   * The instructions reading a property.
+   */
+  enum Kind {
+
+    /**
+     * {@code getfield} of an instance field.
+     */
+    FIELD,
+
+    /**
+     * {@code invokevirtual} of a no-argument method of a class.
+     */
+    METHOD,
+
+    /**
+     * {@code invokeinterface} of a no-argument method of an interface.
+     */
+    INTERFACE_METHOD,
+
+    /**
+     * {@code arraylength} of an array.
+     */
+    ARRAY_LENGTH
+  }
+}
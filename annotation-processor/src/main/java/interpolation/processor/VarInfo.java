@@ -0,0 +1,20 @@
+package interpolation.processor;
+
+/**
+ * A template variable resolved at compile time to the local variable or field it reads.
+ *
+ * @param name the variable name as written in the template
+ * @param slot local variable slot number as in java bytecode, {@code -1} until the transformer
+ *     reads it from the local variable table
+ * @param isWide true for {@code long} and {@code double}, which occupy 2 slots
+ * @param typeDescriptor JVM type descriptor of the variable itself
+ * @param fieldOwner for fields, internal name of the owner class, {@code null} for local variables
+ */
+public record VarInfo(
+    String name,
+    int slot,
+    boolean isWide,
+    String typeDescriptor,
+    String fieldOwner
+) {
+}
@@ -0,0 +1,385 @@
+package interpolation.processor;
+
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Scope;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Resolves template variables to the parameters, local variables and fields visible at a call
+ * site.
+ *
+ * <p>{@link Trees#getScope} attributes the enclosing method again on every call, so scopes are
+ * cached per enclosing method. Parameters, fields and captured variables are the same at every
+ * point of a method, so a name that no variable declared inside the method body shadows is
+ * resolved in the first scope computed for that method. Only names of locals, whose visibility
+ * depends on the position of the call, need the scope of the call site itself, computed once per
+ * call. The resolver is used by one thread, for one class at a time.
+ */
+final class VariableResolver {
+
+  private static final PropertyAccess[] NO_PATH = new PropertyAccess[0];
+
+  private final Trees trees;
+  private final Elements elements;
+  private final Types types;
+
+  private MethodTree method;
+  private Set<String> localNames;
+  private Scope methodScope;
+
+  private long scopes;
+  private long scopeHits;
+
+  /**
+   * Creates a new VariableResolver.
+   *
+   * @param trees the compiler trees
+   * @param elements the element utilities
+   * @param types the type utilities
+   */
+  VariableResolver(Trees trees, Elements elements, Types types) {
+    this.trees = trees;
+    this.elements = elements;
+    this.types = types;
+  }
+
+  /**
+   * Resolves the variables of a call site.
+   *
+   * <p>Constant variables, {@code final} fields and locals of a primitive type or {@code String}
+   * initialized with a constant expression, are resolved like the others, with their value, which
+   * can be folded into the template.
+   *
+   * <p>A property path such as {@code user.address?.city} is resolved from its first name, the
+   * variable, then one property at a time in the type of the previous step: a no-argument method
+   * named like the property, such as a record component accessor, then a {@code getX()} or, for
+   * {@code boolean}s, {@code isX()} getter, then a field. Only instance members accessible from the
+   * call site are considered, and {@code length} of an array.
+   *
+   * <p>An instance field of an enclosing class is an error where javac would reject it too, from a
+   * static method, initializer or field, or from a static nested class.
+   *
+   * @param call path of the {@code str()} invocation
+   * @param varNames the template variable names or property paths
+   * @return the resolution of each variable
+   */
+  Resolution[] resolve(TreePath call, String[] varNames) {
+    final Resolution[] resolutions = new Resolution[varNames.length];
+    final MethodTree enclosing = enclosingMethod(call);
+    if (enclosing != method) {
+      method = enclosing;
+      localNames = enclosing == null ? null : localNames(enclosing);
+      methodScope = null;
+    }
+    Scope callScope = null;
+    for (int i = 0; i < varNames.length; i++) {
+      final String[] names = varNames[i].split("\\??\\.");
+      final Scope scope;
+      if (method != null && !localNames.contains(names[0])) {
+        if (methodScope != null) {
+          scopeHits++;
+        } else if (callScope != null) {
+          scopeHits++;
+          methodScope = callScope;
+        } else {
+          methodScope = callScope = scope(call);
+        }
+        scope = methodScope;
+      } else if (callScope != null) {
+        scopeHits++;
+        scope = callScope;
+      } else {
+        scope = callScope = scope(call);
+      }
+      final VariableElement variable = find(scope, names[0]);
+      if (variable == null) {
+        resolutions[i] = new Resolution(null, null, NO_PATH,
+            "Variable '" + names[0] + "' not found in scope");
+      } else if (isInstanceField(variable) && !hasInstance(call, variable)) {
+        resolutions[i] = new Resolution(null, null, NO_PATH,
+            "Instance field '" + names[0] + "' cannot be referenced from a static context");
+      } else if (names.length == 1) {
+        resolutions[i] = new Resolution(varInfo(names[0], variable),
+            variable.getConstantValue(), NO_PATH, null);
+      } else {
+        resolutions[i] = path(scope, varInfo(names[0], variable), variable.asType(), varNames[i],
+            names);
+      }
+    }
+    return resolutions;
+  }
+
+  /**
+   * Returns the number of scopes computed with {@link Trees#getScope}.
+   *
+   * @return the computed scope count
+   */
+  long scopes() {
+    return scopes;
+  }
+
+  /**
+   * Returns the number of variables resolved in a cached scope, of their method or call site.
+   *
+   * @return the cache hit count
+   */
+  long scopeHits() {
+    return scopeHits;
+  }
+
+  private Scope scope(TreePath call) {
+    scopes++;
+    return trees.getScope(call);
+  }
+
+  private VariableElement find(Scope scope, String name) {
+    for (Scope s = scope; s != null; s = s.getEnclosingScope()) {
+      for (Element element : s.getLocalElements()) {
+        if (element instanceof VariableElement variable
+            && element.getSimpleName().contentEquals(name)) {
+          return variable;
+        }
+      }
+    }
+    // Class scopes list declared members only, look for inherited fields too
+    for (Element type = scope.getEnclosingClass(); type != null;
+        type = type.getEnclosingElement()) {
+      if (type instanceof TypeElement typeElement) {
+        for (VariableElement field : ElementFilter.fieldsIn(elements.getAllMembers(typeElement))) {
+          if (field.getSimpleName().contentEquals(name)) {
+            return field;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean isInstanceField(VariableElement variable) {
+    return variable.getKind() == ElementKind.FIELD
+        && !variable.getModifiers().contains(Modifier.STATIC);
+  }
+
+  /**
+   * Returns whether a call has an instance of the innermost enclosing class declaring or inheriting
+   * a field: whether no static member or static nested class stands between the call and that
+   * class.
+   */
+  private boolean hasInstance(TreePath call, VariableElement field) {
+    boolean isStatic = false;
+    for (TreePath p = call; p.getParentPath() != null; p = p.getParentPath()) {
+      final Tree leaf = p.getLeaf();
+      if (leaf instanceof ClassTree) {
+        final TypeElement type = (TypeElement) trees.getElement(p);
+        if (elements.getAllMembers(type).contains(field)) {
+          return !isStatic;
+        }
+        // Nested enums, records and interfaces are implicitly static
+        isStatic = type.getModifiers().contains(Modifier.STATIC) || type.getKind().isInterface()
+            || type.getKind() == ElementKind.ENUM || type.getKind() == ElementKind.RECORD;
+      } else if (p.getParentPath().getLeaf() instanceof ClassTree) {
+        isStatic |= leaf instanceof BlockTree block
+            ? block.isStatic()
+            : leaf instanceof MethodTree methodTree
+                ? methodTree.getModifiers().getFlags().contains(Modifier.STATIC)
+                : leaf instanceof VariableTree variable
+                    && variable.getModifiers().getFlags().contains(Modifier.STATIC);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Resolves the properties of a path after its variable.
+   */
+  private Resolution path(Scope scope, VarInfo root, TypeMirror type, String varName,
+      String[] names) {
+    final PropertyAccess[] path = new PropertyAccess[names.length - 1];
+    int end = names[0].length();
+    for (int i = 1; i < names.length; i++) {
+      final boolean nullSafe = varName.charAt(end) == '?';
+      final TypeMirror propertyType = property(scope, type, names[i], nullSafe, path, i - 1);
+      if (propertyType == null) {
+        return new Resolution(root, null, NO_PATH, "Property '" + names[i] + "' not found in "
+            + type + " of '" + varName.substring(0, end) + "'");
+      }
+      type = propertyType;
+      end += (nullSafe ? 2 : 1) + names[i].length();
+    }
+    return new Resolution(root, null, path, null);
+  }
+
+  /**
+   * Finds a property in a type, stores how to read it in {@code path[index]} and returns the type
+   * of its value, or {@code null} if the type has no such property.
+   */
+  private TypeMirror property(Scope scope, TypeMirror type, String name, boolean nullSafe,
+      PropertyAccess[] path, int index) {
+    if (type.getKind() == TypeKind.ARRAY) {
+      if (!"length".equals(name)) {
+        return null;
+      }
+      path[index] = new PropertyAccess(name, PropertyAccess.Kind.ARRAY_LENGTH, null, name, "I",
+          "I", nullSafe);
+      return types.getPrimitiveType(TypeKind.INT);
+    }
+    final TypeMirror receiver = type.getKind() == TypeKind.DECLARED ? type : types.erasure(type);
+    if (!(receiver instanceof DeclaredType declared)
+        || !(declared.asElement() instanceof TypeElement owner)) {
+      return null;
+    }
+    final List<? extends Element> members = elements.getAllMembers(owner);
+    final String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    for (String methodName : List.of(name, "get" + capitalized, "is" + capitalized)) {
+      for (ExecutableElement method : ElementFilter.methodsIn(members)) {
+        if (method.getSimpleName().contentEquals(methodName) && method.getParameters().isEmpty()
+            && method.getReturnType().getKind() != TypeKind.VOID
+            && (!methodName.startsWith("is") || methodName.equals(name)
+                || method.getReturnType().getKind() == TypeKind.BOOLEAN)
+            && isInstanceMemberAccessible(scope, method, declared)) {
+          final TypeMirror value =
+              ((ExecutableType) types.asMemberOf(declared, method)).getReturnType();
+          // javac reads the methods of Object through Object, even on an interface
+          final boolean inObject = ((TypeElement) method.getEnclosingElement()).getQualifiedName()
+              .contentEquals("java.lang.Object");
+          path[index] = new PropertyAccess(name,
+              owner.getKind().isInterface() && !inObject
+                  ? PropertyAccess.Kind.INTERFACE_METHOD
+                  : PropertyAccess.Kind.METHOD,
+              inObject ? "java/lang/Object" : internalName(owner), methodName,
+              "()" + descriptor(method.getReturnType()), descriptor(value), nullSafe);
+          return value;
+        }
+      }
+    }
+    for (VariableElement field : ElementFilter.fieldsIn(members)) {
+      if (field.getSimpleName().contentEquals(name)
+          && isInstanceMemberAccessible(scope, field, declared)) {
+        final TypeMirror value = types.asMemberOf(declared, field);
+        path[index] = new PropertyAccess(name, PropertyAccess.Kind.FIELD, internalName(owner),
+            name, descriptor(field.asType()), descriptor(value), nullSafe);
+        return value;
+      }
+    }
+    return null;
+  }
+
+  private boolean isInstanceMemberAccessible(Scope scope, Element member, DeclaredType type) {
+    return !member.getModifiers().contains(Modifier.STATIC)
+        && trees.isAccessible(scope, member, type);
+  }
+
+  private VarInfo varInfo(String name, VariableElement variable) {
+    final TypeMirror type = variable.asType();
+    final String descriptor = descriptor(type);
+    final String fieldOwner = switch (variable.getKind()) {
+      case FIELD, ENUM_CONSTANT -> internalName((TypeElement) variable.getEnclosingElement());
+      default -> null;
+    };
+    // Slots are read from the class file by the transformer, javac assigns them at code generation
+    return new VarInfo(name, -1, "J".equals(descriptor) || "D".equals(descriptor), descriptor,
+        fieldOwner);
+  }
+
+  /**
+   * Returns the JVM descriptor of the erasure of a type.
+   */
+  String descriptor(TypeMirror type) {
+    return switch (type.getKind()) {
+      case BOOLEAN -> "Z";
+      case BYTE -> "B";
+      case SHORT -> "S";
+      case CHAR -> "C";
+      case INT -> "I";
+      case LONG -> "J";
+      case FLOAT -> "F";
+      case DOUBLE -> "D";
+      case VOID -> "V";
+      case ARRAY -> "[" + descriptor(((ArrayType) type).getComponentType());
+      case DECLARED -> "L" + internalName((TypeElement) ((DeclaredType) type).asElement()) + ";";
+      default -> {
+        final TypeMirror erasure = types.erasure(type);
+        yield erasure.getKind() == type.getKind() ? "Ljava/lang/Object;" : descriptor(erasure);
+      }
+    };
+  }
+
+  private String internalName(TypeElement type) {
+    return elements.getBinaryName(type).toString().replace('.', '/');
+  }
+
+  /**
+   * The resolution of a template variable or property path.
+   *
+   * @param varInfo the variable, the first name of a path, {@code null} if not found
+   * @param constant the compile-time constant value of a variable without path, {@code null} if
+   *     it is not a constant variable
+   * @param path how to read the properties of a path from the variable, empty for a variable
+   * @param error the error to report on the template, {@code null} if resolved
+   */
+  record Resolution(VarInfo varInfo, Object constant, PropertyAccess[] path, String error) {
+
+    /**
+     * Returns the type of the value appended to the template.
+     *
+     * @return the JVM type descriptor of the value
+     */
+    String valueDescriptor() {
+      return PropertyAccess.valueDescriptor(varInfo, path);
+    }
+  }
+
+  private static MethodTree enclosingMethod(TreePath path) {
+    for (TreePath p = path; p != null; p = p.getParentPath()) {
+      final Tree leaf = p.getLeaf();
+      if (leaf instanceof MethodTree methodTree) {
+        return methodTree;
+      }
+      if (leaf instanceof ClassTree) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Collects the names of every variable declared in a method body, including lambda and catch
+   * parameters, pattern bindings and the variables of local classes.
+   */
+  private static Set<String> localNames(MethodTree method) {
+    final Set<String> names = new HashSet<>();
+    if (method.getBody() != null) {
+      new TreeScanner<Void, Void>() {
+        @Override
+        public Void visitVariable(VariableTree node, Void unused) {
+          names.add(node.getName().toString());
+          return super.visitVariable(node, unused);
+        }
+      }.scan(method.getBody(), null);
+    }
+    return names;
+  }
+}
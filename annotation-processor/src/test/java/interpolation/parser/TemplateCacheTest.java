@@ -0,0 +1,98 @@
+package interpolation.parser;
+
+import interpolation.internal.parser.ParsedTemplate;
+import interpolation.internal.parser.TemplateParseException;
+import interpolation.internal.parser.TemplateScanner;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Unit tests for {@link TemplateCache}.
+ */
+public class TemplateCacheTest {
+
+    @Test
+    public void parsesEachTemplateOnce() {
+        AtomicInteger parses = new AtomicInteger();
+        TemplateCache cache = new TemplateCache(template -> {
+            parses.incrementAndGet();
+            return TemplateParserWrapper.parse(template);
+        }, TemplateCache.DEFAULT_MAX_SIZE);
+
+        ParsedTemplate first = cache.parse("Hello ${name}");
+        ParsedTemplate second = cache.parse("Hello ${name}");
+
+        assertThat(second, sameInstance(first));
+        assertThat(parses.get(), is(1));
+        assertThat(cache.stats(), is(new TemplateCache.Stats(1, 1, 0, 1)));
+    }
+
+    @Test
+    public void sharesEqualFragmentsAcrossTemplates() {
+        TemplateCache cache =
+                new TemplateCache(TemplateScanner::parse, TemplateCache.DEFAULT_MAX_SIZE);
+
+        ParsedTemplate byId = cache.parse("id=${id}");
+        ParsedTemplate byKey = cache.parse("id=${key}");
+        ParsedTemplate named = cache.parse("${id} is ${key}");
+
+        assertThat(byKey.fragments(), sameInstance(byId.fragments()));
+        assertThat(named.varNames()[0], sameInstance(byId.varNames()[0]));
+        assertThat(named.varNames()[1], sameInstance(byKey.varNames()[0]));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        TemplateCache cache = new TemplateCache(TemplateScanner::parse, 2);
+
+        ParsedTemplate a = cache.parse("${a}");
+        cache.parse("${b}");
+        cache.parse("${a}");
+        cache.parse("${c}");
+
+        assertThat(cache.parse("${a}"), sameInstance(a));
+        assertThat(cache.stats(), is(new TemplateCache.Stats(2, 3, 1, 2)));
+    }
+
+    @Test
+    public void dropsSharedStringsWithEvictedTemplates() {
+        TemplateCache cache = new TemplateCache(TemplateScanner::parse, 2);
+
+        ParsedTemplate byId = cache.parse("id=${id}");
+        cache.parse("id=${key}");
+        int shared = cache.shared();
+        for (int i = 0; i < 100; i++) {
+            cache.parse("row " + i + ": ${value" + i + "}");
+        }
+        cache.parse("id=${id}");
+        ParsedTemplate byKey = cache.parse("id=${key}");
+
+        assertThat(cache.shared(), is(shared));
+        assertThat(byKey.fragments(), sameInstance(cache.parse("id=${id}").fragments()));
+        assertThat(byKey.fragments()[0], is(byId.fragments()[0]));
+    }
+
+    @Test
+    public void doesNotCacheFailures() {
+        TemplateCache cache =
+                new TemplateCache(TemplateScanner::parse, TemplateCache.DEFAULT_MAX_SIZE);
+
+        assertThrows(TemplateParseException.class, () -> cache.parse("${"));
+        assertThrows(TemplateParseException.class, () -> cache.parse("${"));
+
+        assertThat(cache.stats(), is(new TemplateCache.Stats(0, 2, 0, 0)));
+    }
+
+    @Test
+    public void rejectsNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TemplateCache(TemplateScanner::parse, 0));
+    }
+}
@@ -1,8 +1,12 @@
 package interpolation.parser;
 
+import interpolation.internal.parser.ParsedTemplate;
+import interpolation.internal.parser.TemplateParseException;
+
 import org.junit.Test;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertThrows;
 
@@ -11,10 +15,20 @@ import static org.junit.Assert.assertThrows;
  */
 public class TemplateParserWrapperTest {
 
+    /**
+     * Parses a template with the parser under test.
+     *
+     * @param template the template string to parse
+     * @return the parsed template
+     */
+    protected ParsedTemplate parse(String template) {
+        return TemplateParserWrapper.parse(template);
+    }
+
     // 4.1 Test simple variable: `Hello ${name}`
     @Test
     public void parseSimpleVariable() {
-        ParsedTemplate result = TemplateParserWrapper.parse("Hello ${name}");
+        ParsedTemplate result = parse("Hello ${name}");
 
         assertThat(result.fragments(), is(new String[]{"Hello ", ""}));
         assertThat(result.varNames(), is(new String[]{"name"}));
@@ -23,7 +37,7 @@ public class TemplateParserWrapperTest {
     // 4.2 Test multiple variables: `${a} and ${b}`
     @Test
     public void parseMultipleVariables() {
-        ParsedTemplate result = TemplateParserWrapper.parse("${a} and ${b}");
+        ParsedTemplate result = parse("${a} and ${b}");
 
         assertThat(result.fragments(), is(new String[]{"", " and ", ""}));
         assertThat(result.varNames(), is(new String[]{"a", "b"}));
@@ -32,7 +46,7 @@ public class TemplateParserWrapperTest {
     // 4.3 Test adjacent variables: `${a}${b}`
     @Test
     public void parseAdjacentVariables() {
-        ParsedTemplate result = TemplateParserWrapper.parse("${a}${b}");
+        ParsedTemplate result = parse("${a}${b}");
 
         assertThat(result.fragments(), is(new String[]{"", "", ""}));
         assertThat(result.varNames(), is(new String[]{"a", "b"}));
@@ -41,7 +55,7 @@ public class TemplateParserWrapperTest {
     // 4.4 Test escape sequence: `$${literal}`
     @Test
     public void parseEscapeSequence() {
-        ParsedTemplate result = TemplateParserWrapper.parse("Use $${varName} syntax");
+        ParsedTemplate result = parse("Use $${varName} syntax");
 
         assertThat(result.fragments(), is(new String[]{"Use ${varName} syntax"}));
         assertThat(result.varNames(), is(new String[]{}));
@@ -50,7 +64,7 @@ public class TemplateParserWrapperTest {
     // 4.5 Test no variables: `plain text`
     @Test
     public void parsePlainText() {
-        ParsedTemplate result = TemplateParserWrapper.parse("plain text");
+        ParsedTemplate result = parse("plain text");
 
         assertThat(result.fragments(), is(new String[]{"plain text"}));
         assertThat(result.varNames(), is(new String[]{}));
@@ -59,7 +73,7 @@ public class TemplateParserWrapperTest {
     // 4.6 Test empty template: ``
     @Test
     public void parseEmptyTemplate() {
-        ParsedTemplate result = TemplateParserWrapper.parse("");
+        ParsedTemplate result = parse("");
 
         assertThat(result.fragments(), is(new String[]{""}));
         assertThat(result.varNames(), is(new String[]{}));
@@ -68,7 +82,7 @@ public class TemplateParserWrapperTest {
     // 4.7 Test Unicode: `это ${name}`
     @Test
     public void parseUnicode() {
-        ParsedTemplate result = TemplateParserWrapper.parse("это ${name} 你好 مرحبا");
+        ParsedTemplate result = parse("это ${name} 你好 مرحبا");
 
         assertThat(result.fragments(), is(new String[]{"это ", " 你好 مرحبا"}));
         assertThat(result.varNames(), is(new String[]{"name"}));
@@ -79,7 +93,7 @@ public class TemplateParserWrapperTest {
     public void parseUnclosedExpression() {
         TemplateParseException ex = assertThrows(
                 TemplateParseException.class,
-                () -> TemplateParserWrapper.parse("Hello ${name")
+                () -> parse("Hello ${name")
         );
 
         // Verify we get a parse exception with position info
@@ -91,7 +105,7 @@ public class TemplateParserWrapperTest {
     public void parseEmptyVariableName() {
         TemplateParseException ex = assertThrows(
                 TemplateParseException.class,
-                () -> TemplateParserWrapper.parse("Hello ${}")
+                () -> parse("Hello ${}")
         );
 
         // Verify we get a parse exception with position info
@@ -103,7 +117,7 @@ public class TemplateParserWrapperTest {
     public void parseInvalidIdentifier() {
         TemplateParseException ex = assertThrows(
                 TemplateParseException.class,
-                () -> TemplateParserWrapper.parse("Hello ${123}")
+                () -> parse("Hello ${123}")
         );
 
         // Should fail because 123 is not a valid identifier
@@ -114,7 +128,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseVariableAtStart() {
-        ParsedTemplate result = TemplateParserWrapper.parse("${greeting} World");
+        ParsedTemplate result = parse("${greeting} World");
 
         assertThat(result.fragments(), is(new String[]{"", " World"}));
         assertThat(result.varNames(), is(new String[]{"greeting"}));
@@ -122,7 +136,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseVariableAtEnd() {
-        ParsedTemplate result = TemplateParserWrapper.parse("Hello ${name}");
+        ParsedTemplate result = parse("Hello ${name}");
 
         assertThat(result.fragments(), is(new String[]{"Hello ", ""}));
         assertThat(result.varNames(), is(new String[]{"name"}));
@@ -130,7 +144,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseSingleDollarWithoutBrace() {
-        ParsedTemplate result = TemplateParserWrapper.parse("Cost: $100");
+        ParsedTemplate result = parse("Cost: $100");
 
         assertThat(result.fragments(), is(new String[]{"Cost: $100"}));
         assertThat(result.varNames(), is(new String[]{}));
@@ -138,7 +152,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseDoubleDollarWithoutBrace() {
-        ParsedTemplate result = TemplateParserWrapper.parse("Pay $$");
+        ParsedTemplate result = parse("Pay $$");
 
         // $$ NOT followed by { remains as literal $$
         assertThat(result.fragments(), is(new String[]{"Pay $$"}));
@@ -147,7 +161,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseEscapedDollarBraceBeforeVariableContent() {
-        ParsedTemplate result = TemplateParserWrapper.parse("Price: $${amount}");
+        ParsedTemplate result = parse("Price: $${amount}");
 
         assertThat(result.fragments(), is(new String[]{"Price: ${amount}"}));
         assertThat(result.varNames(), is(new String[]{}));
@@ -155,7 +169,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseSpecialCharactersPreserved() {
-        ParsedTemplate result = TemplateParserWrapper.parse("Line1\nLine2\t${var}");
+        ParsedTemplate result = parse("Line1\nLine2\t${var}");
 
         assertThat(result.fragments(), is(new String[]{"Line1\nLine2\t", ""}));
         assertThat(result.varNames(), is(new String[]{"var"}));
@@ -163,7 +177,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseComplexTemplate() {
-        ParsedTemplate result = TemplateParserWrapper.parse(
+        ParsedTemplate result = parse(
                 "Hello ${firstName} ${lastName}, you have ${count} messages. Cost: $${price}"
         );
 
@@ -175,7 +189,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseOnlyVariable() {
-        ParsedTemplate result = TemplateParserWrapper.parse("${x}");
+        ParsedTemplate result = parse("${x}");
 
         assertThat(result.fragments(), is(new String[]{"", ""}));
         assertThat(result.varNames(), is(new String[]{"x"}));
@@ -183,7 +197,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseUnderscoreInVariableName() {
-        ParsedTemplate result = TemplateParserWrapper.parse("${my_var}");
+        ParsedTemplate result = parse("${my_var}");
 
         assertThat(result.fragments(), is(new String[]{"", ""}));
         assertThat(result.varNames(), is(new String[]{"my_var"}));
@@ -191,7 +205,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseNumbersInVariableName() {
-        ParsedTemplate result = TemplateParserWrapper.parse("${var123}");
+        ParsedTemplate result = parse("${var123}");
 
         assertThat(result.fragments(), is(new String[]{"", ""}));
         assertThat(result.varNames(), is(new String[]{"var123"}));
@@ -201,13 +215,13 @@ public class TemplateParserWrapperTest {
     public void parseNullTemplate() {
         assertThrows(
                 IllegalArgumentException.class,
-                () -> TemplateParserWrapper.parse(null)
+                () -> parse(null)
         );
     }
 
     @Test
     public void parseDollarAtEndOfTemplate() {
-        ParsedTemplate result = TemplateParserWrapper.parse("Price: $");
+        ParsedTemplate result = parse("Price: $");
 
         assertThat(result.fragments(), is(new String[]{"Price: $"}));
         assertThat(result.varNames(), is(new String[]{}));
@@ -215,7 +229,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseMultipleEscapes() {
-        ParsedTemplate result = TemplateParserWrapper.parse("$${a} and $${b}");
+        ParsedTemplate result = parse("$${a} and $${b}");
 
         assertThat(result.fragments(), is(new String[]{"${a} and ${b}"}));
         assertThat(result.varNames(), is(new String[]{}));
@@ -223,7 +237,7 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseTripleDollar() {
-        ParsedTemplate result = TemplateParserWrapper.parse("$$$");
+        ParsedTemplate result = parse("$$$");
 
         // $$$ is just three dollar signs, no escape (no brace follows)
         assertThat(result.fragments(), is(new String[]{"$$$"}));
@@ -232,11 +246,90 @@ public class TemplateParserWrapperTest {
 
     @Test
     public void parseTripleDollarWithBrace() {
-        ParsedTemplate result = TemplateParserWrapper.parse("$$${name}");
+        ParsedTemplate result = parse("$$${name}");
 
         // First $ is literal text, then $${ is escape (produces ${), then name} is literal
         // Result: "$${name}" as literal text with no variables
         assertThat(result.fragments(), is(new String[]{"$${name}"}));
         assertThat(result.varNames(), is(new String[]{}));
     }
+
+    @Test
+    public void parseFormatSpecifiers() {
+        ParsedTemplate result = parse("Total ${amount:%,.2f} at ${ts : iso } for ${user}");
+
+        assertThat(result.fragments(), is(new String[]{"Total ", " at ", " for ", ""}));
+        assertThat(result.varNames(), is(new String[]{"amount", "ts", "user"}));
+        assertThat(result.formats(), is(new String[]{"%,.2f", "iso", null}));
+        assertThat(result.hasFormats(), is(true));
+        assertThat(parse("${a}").hasFormats(), is(false));
+    }
+
+    @Test
+    public void foldConstantsIntoAdjacentFragments() {
+        ParsedTemplate result = parse("[${service}] ${user:%-8s} paid ${fee}${unit}")
+                .fold(new String[]{"billing", null, "0.25", "%"});
+
+        assertThat(result.fragments(), is(new String[]{"[billing] ", " paid 0.25%"}));
+        assertThat(result.varNames(), is(new String[]{"user"}));
+        assertThat(result.formats(), is(new String[]{"%-8s"}));
+    }
+
+    @Test
+    public void foldAllConstantsToSingleFragment() {
+        ParsedTemplate template = parse("${a}-${b}");
+
+        assertThat(template.fold(new String[]{"x", "y"}).fragments(), is(new String[]{"x-y"}));
+        assertThat(template.fold(new String[]{"x", "y"}).varNames().length, is(0));
+        assertThat(template.fold(new String[2]), is(sameInstance(template)));
+    }
+
+    @Test
+    public void parseFormatSpecifierUpToClosingBrace() {
+        ParsedTemplate result = parse("${a:%s: {x}}");
+
+        assertThat(result.fragments(), is(new String[]{"", "}"}));
+        assertThat(result.formats(), is(new String[]{"%s: {x"}));
+    }
+
+    @Test
+    public void parseEmptyFormatSpecifier() {
+        TemplateParseException ex = assertThrows(
+                TemplateParseException.class,
+                () -> parse("${a} ${b: }")
+        );
+
+        assertThat(ex.getMessage(), is("at position 1:8: Empty format specifier"));
+    }
+
+    @Test
+    public void parseFormatWithoutVariable() {
+        TemplateParseException ex = assertThrows(
+                TemplateParseException.class,
+                () -> parse("${:%d}")
+        );
+
+        assertThat(ex.getMessage(), is("at position 1:2: missing ID at ':%d'"));
+    }
+
+    @Test
+    public void parsePropertyPaths() {
+        ParsedTemplate result = parse("${user.name} in ${ user . address ?. city :%s}");
+
+        assertThat(result.fragments(), is(new String[]{"", " in ", ""}));
+        assertThat(result.varNames(), is(new String[]{"user.name", "user.address?.city"}));
+        assertThat(result.formats(), is(new String[]{null, "%s"}));
+    }
+
+    @Test
+    public void parseMissingPropertyName() {
+        TemplateParseException ex = assertThrows(
+                TemplateParseException.class,
+                () -> parse("${user.}")
+        );
+
+        assertThat(ex.getMessage(), is("at position 1:7: Missing property name after '.'"));
+        assertThat(assertThrows(TemplateParseException.class, () -> parse("${a?.}")).getMessage(),
+                is("at position 1:5: Missing property name after '?.'"));
+    }
 }
@@ -0,0 +1,108 @@
+package interpolation.parser;
+
+import interpolation.internal.parser.ParsedTemplate;
+import interpolation.internal.parser.TemplateParseException;
+import interpolation.internal.parser.TemplateScanner;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link TemplateScanner}.
+ *
+ * <p>Runs every {@link TemplateParserWrapperTest} case against the scanner, then checks the
+ * scanner against the ANTLR pipeline on error positions and on randomly generated templates.
+ */
+public class TemplateScannerTest extends TemplateParserWrapperTest {
+
+    private static final String[] ALPHABET = {
+            "$", "$", "{", "}", "a", "Z", "_", "1", " ", "\t", "\r", "\n", "/", "*", "#", "é",
+            "\uD83D\uDE00", "\uD83D", ":", "%", ".", "?", "?."
+    };
+
+    @Override
+    protected ParsedTemplate parse(String template) {
+        return TemplateScanner.parse(template);
+    }
+
+    @Test
+    public void reportsSameErrorsAsAntlr() {
+        String[] templates = {
+                "Hello ${name",
+                "Hello ${}",
+                "Hello ${123}",
+                "line1\nline2 ${ \n  }",
+                "${a b}",
+                "${a b c}",
+                "${a b",
+                "${a b #}",
+                "${a /* comment */ b}",
+                "${ /* unclosed",
+                "${a/}",
+                "${a /",
+                "${é}",
+                "\uD83D\uDE00 ${\uD83D\uDE00}",
+                "${ ${a} }",
+                "$${ok} ${a\r\n b}",
+                "${:x}",
+                "${ :\t}",
+                "${a:x",
+                "${a b:x}",
+                "${a:} ${b",
+                "${a:\n }",
+                "${a:x:y}}",
+                "${a.}",
+                "${a?.}",
+                "${.a}",
+                "${a..b}",
+                "${a..}",
+                "${a.:x}",
+                "${a b.c}",
+                "${a.b c}",
+                "${a?b}",
+                "${a?",
+                "${a.?.b}",
+                "${a..#}"
+        };
+        for (String template : templates) {
+            assertSameResult(template);
+        }
+    }
+
+    @Test
+    public void matchesAntlrOnRandomTemplates() {
+        Random random = new Random(465);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder template = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int j = 0; j < length; j++) {
+                template.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            assertSameResult(template.toString());
+        }
+    }
+
+    private static void assertSameResult(String template) {
+        String expected = describe(() -> TemplateParserWrapper.parse(template));
+        String actual = describe(() -> TemplateScanner.parse(template));
+        String escaped = template.replace("\n", "\\n").replace("\r", "\\r");
+        assertThat("template: " + escaped, actual, is(expected));
+    }
+
+    private static String describe(Supplier<ParsedTemplate> parser) {
+        try {
+            ParsedTemplate result = parser.get();
+            return String.join("|", result.fragments())
+                    + " / " + String.join(",", result.varNames())
+                    + " / " + Arrays.toString(result.formats());
+        } catch (TemplateParseException e) {
+            return e.getMessage() + " @" + e.getLine() + ":" + e.getColumn();
+        }
+    }
+}
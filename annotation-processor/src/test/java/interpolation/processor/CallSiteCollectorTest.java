@@ -0,0 +1,37 @@
+package interpolation.processor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the source pre-filter of {@link CallSiteCollector}.
+ */
+public class CallSiteCollectorTest {
+
+  @Test
+  public void keepsStaticImportAndQualifiedCalls() {
+    assertThat(CallSiteCollector.mayCallStr(
+        "import static interpolation.Interpolator.str;\nclass A { String s = str(\"x\"); }"),
+        is(true));
+    assertThat(CallSiteCollector.mayCallStr(
+        "class A { String s = interpolation.Interpolator.str(\"x\"); }"), is(true));
+    assertThat(CallSiteCollector.mayCallStr(
+        "import interpolation.*;\nclass A { String s = Interpolator . str (\"x\"); }"), is(true));
+  }
+
+  @Test
+  public void prunesSourcesMissingEitherIdentifier() {
+    assertThat(CallSiteCollector.mayCallStr("class A { String str = \"x\"; }"), is(false));
+    assertThat(CallSiteCollector.mayCallStr("class A { Interpolator i; String string; }"),
+        is(false));
+    assertThat(CallSiteCollector.mayCallStr("class A { MyInterpolator i; String str; }"),
+        is(false));
+  }
+
+  @Test
+  public void keepsSourcesWithUnicodeEscapes() {
+    assertThat(CallSiteCollector.mayCallStr("class A { String s = \\u0073tr(\"x\"); }"), is(true));
+  }
+}
@@ -0,0 +1,79 @@
+package interpolation.processor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ClassFiles}.
+ */
+public class ClassFilesTest {
+
+  private static final byte[] ORIGINAL = {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 1};
+  private static final FileTime EPOCH = FileTime.fromMillis(0);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void readsWholeFile() throws IOException {
+    Path file = classFile(new byte[100_000]);
+
+    assertThat(ClassFiles.read(file).length, is(100_000));
+    assertThat(ClassFiles.read(classFile(ORIGINAL)), is(ORIGINAL));
+  }
+
+  @Test
+  public void skipsIdenticalContent() throws IOException {
+    Path file = classFile(ORIGINAL);
+
+    assertThat(ClassFiles.write(file, ORIGINAL, ORIGINAL), is(false));
+    assertThat(ClassFiles.write(file, ORIGINAL, ORIGINAL.clone()), is(false));
+    assertThat(Files.getLastModifiedTime(file), is(EPOCH));
+  }
+
+  @Test
+  public void replacesChangedContent() throws IOException {
+    Path file = classFile(ORIGINAL);
+    byte[] transformed = {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 2, 3};
+
+    assertThat(ClassFiles.write(file, ORIGINAL, transformed), is(true));
+    assertThat(Files.readAllBytes(file), is(transformed));
+    assertThat(files(), is(List.of(file)));
+  }
+
+  @Test
+  public void leavesOriginalAndNoTemporaryFileOnFailure() throws IOException {
+    Path file = classFile(ORIGINAL);
+    Path directory = folder.newFolder("Directory.class").toPath();
+    Files.createFile(directory.resolve("child"));
+
+    // Renaming over a non-empty directory fails after the temporary file was written
+    assertThrows(IOException.class, () -> ClassFiles.write(directory, ORIGINAL, new byte[] {1}));
+    assertThat(Files.readAllBytes(file), is(ORIGINAL));
+    assertThat(files(), is(List.of(directory, file)));
+  }
+
+  private Path classFile(byte[] content) throws IOException {
+    Path file = folder.getRoot().toPath().resolve("Example" + content.length + ".class");
+    Files.write(file, content);
+    Files.setLastModifiedTime(file, EPOCH);
+    return file;
+  }
+
+  private List<Path> files() throws IOException {
+    try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+      return files.sorted().toList();
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package interpolation.processor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ClassTransformRunner}.
+ */
+public class ClassTransformRunnerTest {
+
+  @Test
+  public void reportsOutcomesInClassNameOrder() {
+    // c.C finishes first, a.A last
+    ClassTransformRunner.Report report = new ClassTransformRunner(3).run(
+        Set.of("c.C", "a.A", "b.B"),
+        className -> Thread.sleep(className.equals("a.A") ? 60 : className.equals("b.B") ? 30 : 0));
+
+    assertThat(report.outcomes().stream().map(ClassTransformRunner.Outcome::className).toList(),
+        is(List.of("a.A", "b.B", "c.C")));
+    assertThat(report.slowest(1).get(0).className(), is("a.A"));
+    assertThat(report.threads(), is(3));
+  }
+
+  @Test
+  public void runsTasksConcurrently() {
+    CountDownLatch started = new CountDownLatch(2);
+    ClassTransformRunner.Report report = new ClassTransformRunner(2).run(List.of("a.A", "b.B"),
+        className -> {
+          started.countDown();
+          if (!started.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("tasks did not overlap");
+          }
+        });
+
+    assertThat(report.failures(), is(List.of()));
+  }
+
+  @Test
+  public void runsOnCallingThreadWithOneThread() {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    new ClassTransformRunner(1).run(List.of("a.A", "b.B"),
+        className -> threads.add(Thread.currentThread()));
+
+    assertThat(threads, is(Set.of(Thread.currentThread())));
+  }
+
+  @Test
+  public void capturesFailuresWithoutStoppingOtherClasses() {
+    Set<String> transformed = ConcurrentHashMap.newKeySet();
+    ClassTransformRunner.Report report = new ClassTransformRunner(4).run(
+        List.of("b.Broken", "a.A", "c.C", "a.Broken"),
+        className -> {
+          if (className.endsWith("Broken")) {
+            throw new IOException("cannot read " + className);
+          }
+          transformed.add(className);
+        });
+
+    assertThat(transformed, is(Set.of("a.A", "c.C")));
+    assertThat(report.failures().stream().map(outcome -> outcome.failure().getMessage()).toList(),
+        is(List.of("cannot read a.Broken", "cannot read b.Broken")));
+  }
+
+  @Test
+  public void summarizesTimings() {
+    ClassTransformRunner.Report report = new ClassTransformRunner.Report(List.of(
+        new ClassTransformRunner.Outcome("a.A", 1_000_000, null),
+        new ClassTransformRunner.Outcome("b.B", 2_500_000, null),
+        new ClassTransformRunner.Outcome("c.C", 500_000, null)), 3_100_000, 2);
+
+    assertThat(report.summary(2),
+        is("Transformed 3 classes in 3.1 ms on 2 threads, slowest: b.B 2.5 ms, a.A 1.0 ms"));
+    assertThat(new ClassTransformRunner(2).run(List.of(), className -> { }).summary(5),
+        startsWith("Transformed 0 classes in "));
+  }
+
+  @Test
+  public void rejectsNonPositiveThreadCount() {
+    assertThrows(IllegalArgumentException.class, () -> new ClassTransformRunner(0));
+  }
+}
@@ -0,0 +1,123 @@
+package interpolation.processor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import interpolation.internal.parser.ParsedTemplate;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link FingerprintIndex}.
+ */
+public class FingerprintIndexTest {
+
+  private static final byte[] CLASS_BYTES = {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE};
+  private static final List<CallSiteInfo> CALL_SITES = List.of(callSite("Hello ", "!"));
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void fingerprintCoversBytesTemplatesAndOptions() {
+    String fingerprint = FingerprintIndex.fingerprint(CLASS_BYTES, CALL_SITES, "process");
+
+    assertThat(FingerprintIndex.fingerprint(CLASS_BYTES.clone(), List.of(callSite("Hello ", "!")),
+        "process"), is(fingerprint));
+    assertThat(FingerprintIndex.fingerprint(new byte[] {1}, CALL_SITES, "process"),
+        is(not(fingerprint)));
+    assertThat(FingerprintIndex.fingerprint(CLASS_BYTES, List.of(callSite("Hello", " !")),
+        "process"), is(not(fingerprint)));
+    assertThat(FingerprintIndex.fingerprint(CLASS_BYTES, CALL_SITES, "other"), is(not(fingerprint)));
+    assertThat(FingerprintIndex.fingerprint(CLASS_BYTES, List.of(new CallSiteInfo("a.A", "greet",
+        "()Ljava/lang/String;", 0, Placeholder.STR,
+        new ParsedTemplate(new String[] {"Hello ", "!"}, new String[] {"name"}),
+        new VarInfo[] {new VarInfo("name", -1, false, "I", null)})), "process"),
+        is(not(fingerprint)));
+    assertThat(FingerprintIndex.fingerprint(CLASS_BYTES, List.of(new CallSiteInfo("a.A", "greet",
+        "(I)Ljava/lang/String;", 0, Placeholder.STR, CALL_SITES.get(0).template(),
+        CALL_SITES.get(0).varInfos())), "process"), is(not(fingerprint)));
+    assertThat(FingerprintIndex.fingerprint(CLASS_BYTES, List.of(new CallSiteInfo("a.A", "greet",
+        "()Ljava/lang/String;", 0, Placeholder.STR,
+        new ParsedTemplate(new String[] {"Hello ", "!"}, new String[] {"name"},
+            new String[] {"%S"}), CALL_SITES.get(0).varInfos())), "process"),
+        is(not(fingerprint)));
+  }
+
+  @Test
+  public void reusesStoredResultsAcrossBuilds() throws IOException {
+    Path directory = folder.getRoot().toPath().resolve("index");
+    byte[] transformed = {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 1};
+    FingerprintIndex index = FingerprintIndex.open(directory);
+    assertThat(index.lookup("a", CLASS_BYTES), is(nullValue()));
+    index.store("a", CLASS_BYTES, transformed);
+    index.store("b", CLASS_BYTES, CLASS_BYTES);
+    index.record("a.A", "a");
+    index.record("b.B", "b");
+    index.save();
+
+    FingerprintIndex reopened = FingerprintIndex.open(directory);
+    assertThat(reopened.lookup("a", CLASS_BYTES), is(transformed));
+    assertThat(reopened.lookup("b", CLASS_BYTES), is(sameInstance(CLASS_BYTES)));
+  }
+
+  @Test
+  public void deletesResultsNoClassRefersTo() throws IOException {
+    Path directory = folder.getRoot().toPath().resolve("index");
+    FingerprintIndex index = FingerprintIndex.open(directory);
+    index.store("old", CLASS_BYTES, CLASS_BYTES);
+    index.record("a.A", "old");
+    index.save();
+
+    FingerprintIndex reopened = FingerprintIndex.open(directory);
+    reopened.store("new", CLASS_BYTES, CLASS_BYTES);
+    reopened.record("a.A", "new");
+    reopened.save();
+
+    assertThat(files(directory), is(List.of(FingerprintIndex.CLASSES, "new.interpolated")));
+  }
+
+  @Test
+  public void keepsFilesItDidNotWrite() throws IOException {
+    Path directory = folder.getRoot().toPath().resolve("index");
+    FingerprintIndex index = FingerprintIndex.open(directory);
+    Files.writeString(directory.resolve("notes.txt"), "kept");
+    index.store("a", CLASS_BYTES, CLASS_BYTES);
+    index.record("a.A", "a");
+    index.save();
+
+    assertThat(files(directory),
+        is(List.of("a.interpolated", FingerprintIndex.CLASSES, "notes.txt")));
+  }
+
+  @Test
+  public void refusesNonEmptyDirectoriesWithoutIndex() throws IOException {
+    Path output = folder.newFolder("target").toPath();
+    Files.createDirectory(output.resolve("classes"));
+
+    assertThrows(IOException.class, () -> FingerprintIndex.open(output));
+    assertThat(files(output), is(List.of("classes")));
+  }
+
+  private static CallSiteInfo callSite(String... fragments) {
+    return new CallSiteInfo("a.A", "greet", "()Ljava/lang/String;", 0, Placeholder.STR,
+        new ParsedTemplate(fragments, new String[] {"name"}),
+        new VarInfo[] {new VarInfo("name", -1, false, "Ljava/lang/String;", null)});
+  }
+
+  private static List<String> files(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> file.getFileName().toString()).sorted().toList();
+    }
+  }
+}
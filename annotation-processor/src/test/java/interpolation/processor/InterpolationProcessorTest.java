@@ -2,6 +2,21 @@ package interpolation.processor;
 
 import static com.google.testing.compile.CompilationSubject.assertThat;
 import static com.google.testing.compile.Compiler.javac;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 import org.junit.Test;
 
 import com.google.testing.compile.Compilation;
@@ -22,4 +37,477 @@ public class InterpolationProcessorTest {
     assertThat(compilation).succeededWithoutWarnings();
   }
 
+  @Test
+  public void test_invalid_boolean_option() {
+
+    Compilation compilation = javac().withProcessors(new InterpolationProcessor())
+        .withOptions("-Ainterpolation.stats=yes")
+        .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"));
+
+    assertThat(compilation).hadErrorContaining("Invalid value 'yes' for interpolation.stats");
+  }
+
+  @Test
+  public void test_transforms_generated_classes() {
+
+    List<String> transformed = new ArrayList<>();
+    InterpolationProcessor processor = new InterpolationProcessor((className, bytes, sites) -> {
+      transformed.add(className + ":" + sites.size());
+      return bytes;
+    });
+    Compilation compilation = javac().withProcessors(processor)
+        .withOptions("-Ainterpolation.threads=1")
+        .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertEquals(List.of("TestcaseValidUsage:1"), transformed);
+  }
+
+  @Test
+  public void test_rewrites_class_files_in_place() throws Exception {
+
+    Path output = Files.createTempDirectory("interpolation-classes");
+    InterpolationProcessor processor = new InterpolationProcessor((className, bytes, sites) ->
+        replace(bytes, "Hello ${name}", "Howdy ${name}"));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+      JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+          List.of("-d", output.toString(), "-classpath", System.getProperty("java.class.path")),
+          null, List.of(JavaFileObjects.forResource("TestcaseValidUsage.java")));
+      task.setProcessors(List.of(processor));
+      assertTrue(task.call());
+    }
+
+    Path classFile = output.resolve("TestcaseValidUsage.class");
+    String content = new String(Files.readAllBytes(classFile), StandardCharsets.ISO_8859_1);
+    assertTrue(content.contains("Howdy ${name}"));
+    assertFalse(content.contains("Hello ${name}"));
+    try (Stream<Path> files = Files.list(output)) {
+      assertEquals(List.of(classFile), files.toList());
+    }
+  }
+
+  /**
+   * Replaces text of the same length in a class file, such as part of a string constant.
+   */
+  private static byte[] replace(byte[] classBytes, String text, String replacement) {
+    return new String(classBytes, StandardCharsets.ISO_8859_1).replace(text, replacement)
+        .getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  @Test
+  public void test_reuses_transformations_from_fingerprint_index() throws Exception {
+
+    Path index = Files.createTempDirectory("interpolation-index");
+    List<String> transformed = new ArrayList<>();
+    ClassTransformer transformer = (className, bytes, sites) -> {
+      transformed.add(className);
+      return bytes;
+    };
+    for (int build = 0; build < 2; build++) {
+      InterpolationProcessor processor = new InterpolationProcessor(transformer);
+      Compilation compilation = javac().withProcessors(processor)
+          .withOptions("-Ainterpolation.index=" + index, "-Ainterpolation.incremental=true")
+          .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"));
+
+      assertThat(compilation).succeededWithoutWarnings();
+      assertEquals(build, processor.reused());
+    }
+    assertEquals(List.of("TestcaseValidUsage"), transformed);
+  }
+
+  @Test
+  public void test_incremental_off_by_default() throws Exception {
+
+    Path index = Files.createTempDirectory("interpolation-index");
+    List<String> transformed = new ArrayList<>();
+    ClassTransformer transformer = (className, bytes, sites) -> {
+      transformed.add(className);
+      return bytes;
+    };
+    for (int build = 0; build < 2; build++) {
+      Compilation compilation = javac().withProcessors(new InterpolationProcessor(transformer))
+          .withOptions("-Ainterpolation.index=" + index)
+          .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"));
+
+      assertThat(compilation).succeededWithoutWarnings();
+    }
+    assertEquals(List.of("TestcaseValidUsage", "TestcaseValidUsage"), transformed);
+  }
+
+  @Test
+  public void test_skips_class_files_without_transformer() {
+
+    InterpolationProcessor processor = new InterpolationProcessor();
+    Compilation compilation = javac().withProcessors(processor)
+        .withOptions("-Ainterpolation.stats=true")
+        .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertEquals(1, processor.stats().count(ProcessorStats.Counter.CALL_SITES));
+    assertEquals(0, processor.stats().count(ProcessorStats.Counter.CLASSES_TRANSFORMED));
+    assertEquals(0, processor.stats().events(ProcessorStats.Phase.IO));
+    assertEquals(0, processor.stats().events(ProcessorStats.Phase.TRANSFORM));
+  }
+
+  @Test
+  public void test_reports_transformation_timing() {
+
+    InterpolationProcessor processor =
+        new InterpolationProcessor((className, bytes, sites) -> bytes);
+    Compilation compilation = javac().withProcessors(processor)
+        .withOptions("-Ainterpolation.stats=true")
+        .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation).hadNoteContaining("Transformed 1 class in ");
+    assertThat(compilation).hadNoteContaining("slowest: TestcaseValidUsage ");
+  }
+
+  @Test
+  public void test_reports_stats() throws Exception {
+
+    Path report = Files.createTempDirectory("interpolation-stats").resolve("stats.json");
+    InterpolationProcessor processor =
+        new InterpolationProcessor((className, bytes, sites) -> bytes);
+    Compilation compilation = javac().withProcessors(processor)
+        .withOptions("-Ainterpolation.stats=true", "-Ainterpolation.stats.file=" + report)
+        .compile(JavaFileObjects.forResource("TestcaseScopes.java"),
+            JavaFileObjects.forResource("TestcaseNoInterpolation.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation).hadNoteContaining("Interpolation stats:");
+    ProcessorStats stats = processor.stats();
+    assertEquals(3, stats.count(ProcessorStats.Counter.TEMPLATES_PARSED));
+    assertEquals(3, stats.count(ProcessorStats.Counter.CALL_SITES));
+    assertEquals(1, stats.count(ProcessorStats.Counter.UNITS_PRUNED));
+    assertEquals(1, stats.count(ProcessorStats.Counter.CLASSES_TRANSFORMED));
+    assertEquals(3, stats.events(ProcessorStats.Phase.PARSE));
+    assertEquals(1, stats.events(ProcessorStats.Phase.ANALYZE));
+    assertEquals(1, stats.events(ProcessorStats.Phase.TRANSFORM));
+    assertEquals(stats.toJson(), Files.readString(report));
+  }
+
+  @Test
+  public void test_reports_transformation_failure() {
+
+    InterpolationProcessor processor = new InterpolationProcessor((className, bytes, sites) -> {
+      throw new IllegalStateException("unsupported bytecode");
+    });
+    Compilation compilation = javac().withProcessors(processor)
+        .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"));
+
+    assertThat(compilation).hadErrorContaining(
+        "Failed to transform TestcaseValidUsage: java.lang.IllegalStateException: "
+            + "unsupported bytecode");
+  }
+
+  @Test
+  public void test_invalid_thread_count() {
+
+    Compilation compilation = javac().withProcessors(new InterpolationProcessor())
+        .withOptions("-Ainterpolation.threads=0")
+        .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"));
+
+    assertThat(compilation).hadErrorContaining("Invalid value '0' for interpolation.threads");
+  }
+
+  @Test
+  public void test_unknown_parser_mode() {
+
+    Compilation compilation = javac().withProcessors(new InterpolationProcessor())
+        .withOptions("-Ainterpolation.parser=regex")
+        .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"));
+
+    assertThat(compilation).hadErrorContaining(
+        "Unknown template parser 'regex', expected one of: antlr, scanner");
+  }
+
+  @Test
+  public void test_collects_call_sites() {
+
+    InterpolationProcessor processor = new InterpolationProcessor();
+    Compilation compilation = javac().withProcessors(processor)
+        .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertEquals(1, processor.callSites().size());
+    CallSiteInfo callSite = processor.callSites().get(0);
+    assertEquals("TestcaseValidUsage", callSite.className());
+    assertEquals("greet", callSite.methodName());
+    assertEquals(0, callSite.callSiteIndex());
+    assertArrayEquals(new String[] {"name", "count"}, callSite.template().varNames());
+  }
+
+  @Test
+  public void test_locates_call_sites_by_method_descriptor_lambda_and_constructor() {
+
+    InterpolationProcessor processor = new InterpolationProcessor();
+    Compilation compilation = javac().withProcessors(processor)
+        .compile(JavaFileObjects.forResource("TestcaseCallSiteLocations.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    List<String> locations = new ArrayList<>();
+    for (CallSiteInfo callSite : processor.callSites()) {
+      locations.add(callSite.methodName() + callSite.methodDescriptor() + " lambda "
+          + callSite.lambda() + " #" + callSite.callSiteIndex() + " "
+          + String.join("${}", callSite.template().fragments()));
+    }
+    assertEquals(List.of(
+        "<init>(Ljava/lang/String;)V lambda -1 #1 name ${}",
+        "<init>(Ljava/lang/String;)V lambda -1 #0 created in ${}",
+        "<init>(I)V lambda -1 #0 created in ${}",
+        "<init>(I)V lambda -1 #1 number ${}",
+        "<init>()V lambda -1 #0 default in ${}",
+        "format(Ljava/lang/String;)Ljava/lang/String; lambda -1 #0 value ${}",
+        "format(I)Ljava/lang/String; lambda -1 #0 int ${}",
+        "greeter(Ljava/lang/String;)Ljava/util/function/Function; lambda -1 #0 ${}!",
+        "greeter(Ljava/lang/String;)Ljava/util/function/Function; lambda 0 #0 ${} ${}"),
+        locations);
+  }
+
+  @Test
+  public void test_collects_format_specifiers() {
+
+    InterpolationProcessor processor = new InterpolationProcessor();
+    Compilation compilation = javac().withProcessors(processor)
+        .compile(JavaFileObjects.forResource("TestcaseFormats.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertEquals(1, processor.callSites().size());
+    assertArrayEquals(new String[] {"%-10s", "%,.2f", "iso", null},
+        processor.callSites().get(0).template().formats());
+  }
+
+  @Test
+  public void test_invalid_format_specifiers() {
+
+    Compilation compilation = javac().withProcessors(new InterpolationProcessor())
+        .compile(JavaFileObjects.forResource("TestcaseInvalidFormat.java"));
+
+    assertThat(compilation).hadErrorContaining("Format '%.2f' does not apply to variable 'name'"
+        + " of type java.lang.String, it expects float, double or their wrappers");
+    assertThat(compilation).hadErrorContaining("Format 'iso' does not apply to variable 'ids'"
+        + " of type long[]");
+    assertThat(compilation).hadErrorContaining(
+        "Invalid format specifier '%q': unsupported conversion 'q'");
+  }
+
+  @Test
+  public void test_resolves_variables() {
+
+    InterpolationProcessor processor = new InterpolationProcessor();
+    Compilation compilation = javac().withProcessors(processor)
+        .compile(JavaFileObjects.forResource("TestcaseScopes.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertEquals(3, processor.callSites().size());
+    VarInfo[] first = processor.callSites().get(0).varInfos();
+    assertEquals(new VarInfo("GREETING", -1, false, "Ljava/lang/String;", "TestcaseScopes"),
+        first[0]);
+    assertEquals(new VarInfo("name", -1, false, "Ljava/lang/String;", null), first[1]);
+    assertEquals(new VarInfo("id", -1, true, "J", "TestcaseScopes"),
+        processor.callSites().get(1).varInfos()[0]);
+    assertEquals(new VarInfo("count", -1, false, "I", null),
+        processor.callSites().get(2).varInfos()[1]);
+  }
+
+  @Test
+  public void test_folds_constant_variables() {
+
+    InterpolationProcessor processor = new InterpolationProcessor();
+    Compilation compilation = javac().withProcessors(processor)
+        .withOptions("-Ainterpolation.stats=true")
+        .compile(JavaFileObjects.forResource("TestcaseConstants.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertEquals(3, processor.callSites().size());
+    CallSiteInfo mixed = processor.callSites().get(0);
+    assertArrayEquals(new String[] {"[billing v3] ", " charged 0.25% on ", ""},
+        mixed.template().fragments());
+    assertArrayEquals(new String[] {"user", "amount"}, mixed.template().varNames());
+    assertEquals(2, mixed.varInfos().length);
+    assertEquals("amount", mixed.varInfos()[1].name());
+    assertFalse(mixed.isConstant());
+    CallSiteInfo constant = processor.callSites().get(1);
+    assertArrayEquals(new String[] {"billing-v3.requests.0x000a"},
+        constant.template().fragments());
+    assertEquals(0, constant.varInfos().length);
+    assertTrue(constant.isConstant());
+    assertArrayEquals(new String[] {"billing: true ", ""},
+        processor.callSites().get(2).template().fragments());
+    assertEquals(8, processor.stats().count(ProcessorStats.Counter.CONSTANTS_FOLDED));
+    assertEquals(1, processor.stats().count(ProcessorStats.Counter.CONSTANT_CALL_SITES));
+    assertThat(compilation).hadNoteContaining("constantsFolded: 8");
+    assertThat(compilation).hadNoteContaining("constantCallSites: 1");
+  }
+
+  @Test
+  public void test_escapes_values_by_context() {
+
+    InterpolationProcessor processor = new InterpolationProcessor();
+    Compilation compilation = javac().withProcessors(processor)
+        .compile(JavaFileObjects.forResource("TestcaseEscaping.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertEquals(3, processor.callSites().size());
+    CallSiteInfo event = processor.callSites().get(0);
+    assertArrayEquals(new String[] {"{\"service\": \"a\\\"b\", \"user\": \"",
+        "\", \"message\": \"", "\"}"}, event.template().fragments());
+    assertArrayEquals(new String[] {"json", "json"}, event.template().formats());
+    assertArrayEquals(new String[] {"csv", null, "csv"},
+        processor.callSites().get(2).template().formats());
+  }
+
+  @Test
+  public void test_misplaced_escaping() {
+
+    Compilation compilation = javac().withProcessors(new InterpolationProcessor())
+        .compile(JavaFileObjects.forResource("TestcaseInvalidEscaping.java"));
+
+    assertThat(compilation).hadErrorContaining(
+        "Variable 'user' escaped with 'json' must be inside a JSON string literal");
+    assertThat(compilation).hadErrorContaining(
+        "Variable 'tag' escaped with 'html' must be in text or a quoted attribute value");
+    assertThat(compilation).hadErrorContaining(
+        "Variable 'name' escaped with 'html' cannot be in the raw text of a <script> element");
+    assertThat(compilation).hadErrorContaining(
+        "Variable 'url' escaped with 'html' cannot be in the 'href' attribute");
+    assertThat(compilation).hadErrorContaining(
+        "Variable 'first' escaped with 'csv' must be a whole field between separators");
+    assertThat(compilation).hadErrorCount(5);
+  }
+
+  @Test
+  public void test_resolves_property_paths() {
+
+    InterpolationProcessor processor = new InterpolationProcessor();
+    Compilation compilation = javac().withProcessors(processor)
+        .compile(JavaFileObjects.forResource("TestcaseProperties.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertEquals(4, processor.callSites().size());
+    CallSiteInfo user = processor.callSites().get(0);
+    assertEquals("user", user.varInfos()[1].name());
+    assertArrayEquals(new PropertyAccess[] {
+        new PropertyAccess("address", PropertyAccess.Kind.METHOD, "TestcaseProperties$User",
+            "address", "()LTestcaseProperties$Address;", "LTestcaseProperties$Address;", false),
+        new PropertyAccess("city", PropertyAccess.Kind.METHOD, "TestcaseProperties$Address",
+            "city", "()Ljava/lang/String;", "Ljava/lang/String;", false)}, user.paths()[1]);
+    assertEquals(List.of("Ljava/lang/String;", "Ljava/lang/String;", "I"),
+        user.valueDescriptors());
+    CallSiteInfo account = processor.callSites().get(1);
+    assertEquals(PropertyAccess.Kind.FIELD, account.paths()[0][0].kind());
+    assertEquals("getOwner", account.paths()[1][0].memberName());
+    assertEquals("isActive", account.paths()[2][0].memberName());
+    assertEquals(List.of("J", "Ljava/lang/String;", "Z"), account.valueDescriptors());
+    CallSiteInfo safe = processor.callSites().get(2);
+    assertTrue(safe.paths()[0][0].nullSafe());
+    assertFalse(safe.paths()[1][0].nullSafe());
+    assertEquals(List.of("Ljava/lang/String;", "Ljava/lang/Integer;"), safe.valueDescriptors());
+    PropertyAccess[][] collections = processor.callSites().get(3).paths();
+    assertEquals(new PropertyAccess("size", PropertyAccess.Kind.INTERFACE_METHOD,
+        "java/util/List", "size", "()I", "I", false), collections[0][0]);
+    assertEquals(PropertyAccess.Kind.ARRAY_LENGTH, collections[1][0].kind());
+    assertEquals(new PropertyAccess("value", PropertyAccess.Kind.FIELD, "TestcaseProperties$Box",
+        "value", "Ljava/lang/Object;", "Ljava/lang/String;", false), collections[2][0]);
+    assertEquals("java/lang/String", collections[2][1].owner());
+  }
+
+  @Test
+  public void test_unknown_property() {
+
+    Compilation compilation = javac().withProcessors(new InterpolationProcessor())
+        .compile(JavaFileObjects.forResource("TestcaseUnknownProperty.java"));
+
+    assertThat(compilation).hadErrorContaining(
+        "Property 'nmae' not found in TestcaseUnknownProperty.User of 'user'");
+    assertThat(compilation).hadErrorContaining(
+        "Property 'hash' not found in java.lang.Object of 'owner'");
+    assertThat(compilation).hadErrorCount(2);
+  }
+
+  @Test
+  public void test_caches_method_scopes() {
+
+    InterpolationProcessor processor = new InterpolationProcessor();
+    Compilation compilation = javac().withProcessors(processor)
+        .compile(JavaFileObjects.forResource("TestcaseScopes.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    // GREETING, name and id share the method scope, count needs the scope of its call
+    assertEquals(2, processor.collectorStats().scopes());
+    assertEquals(4, processor.collectorStats().scopeHits());
+  }
+
+  @Test
+  public void test_prunes_units_without_interpolation() {
+
+    InterpolationProcessor processor = new InterpolationProcessor();
+    Compilation compilation = javac().withProcessors(processor)
+        .withOptions("-Ainterpolation.stats=true")
+        .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"),
+            JavaFileObjects.forResource("TestcaseNoInterpolation.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertEquals(1, processor.collectorStats().unitsScanned());
+    assertEquals(1, processor.collectorStats().unitsPruned());
+    assertThat(compilation).hadNoteContaining("Scanned 1 of 2 compilation units in ");
+  }
+
+  @Test
+  public void test_unknown_variable() {
+
+    Compilation compilation = javac().withProcessors(new InterpolationProcessor())
+        .compile(JavaFileObjects.forResource("TestcaseUnknownVariable.java"));
+
+    assertThat(compilation).hadErrorContaining("Variable 'nmae' not found in scope");
+  }
+
+  @Test
+  public void test_instance_field_in_static_context() {
+
+    JavaFileObject source = JavaFileObjects.forResource("TestcaseStaticContext.java");
+    Compilation compilation = javac().withProcessors(new InterpolationProcessor())
+        .compile(source);
+
+    assertThat(compilation).hadErrorCount(2);
+    assertThat(compilation).hadErrorContaining(
+        "Instance field 'id' cannot be referenced from a static context").inFile(source).onLine(10);
+    assertThat(compilation).hadErrorContaining(
+        "Instance field 'id' cannot be referenced from a static context").inFile(source).onLine(32);
+  }
+
+  @Test
+  public void test_scanner_parser_mode() {
+
+    InterpolationProcessor processor = new InterpolationProcessor();
+    Compilation compilation = javac().withProcessors(processor)
+        .withOptions("-Ainterpolation.parser=scanner")
+        .compile(JavaFileObjects.forResource("TestcaseValidUsage.java"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    assertEquals(ParserMode.SCANNER, processor.parserMode());
+    assertEquals(1, processor.callSites().size());
+  }
+
+  @Test
+  public void test_malformed_template() {
+
+    Compilation compilation = javac().withProcessors(new InterpolationProcessor())
+        .compile(JavaFileObjects.forResource("TestcaseMalformedTemplate.java"));
+
+    assertThat(compilation).hadErrorContaining("Malformed template");
+    assertThat(compilation).hadErrorContaining("Unclosed ${...} expression");
+  }
+
+  @Test
+  public void test_non_literal_template() {
+
+    Compilation compilation = javac().withProcessors(new InterpolationProcessor())
+        .compile(JavaFileObjects.forResource("TestcaseNonLiteralTemplate.java"));
+
+    assertThat(compilation).hadErrorContaining("template must be a string literal");
+  }
+
 }
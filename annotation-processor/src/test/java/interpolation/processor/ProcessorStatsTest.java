@@ -0,0 +1,50 @@
+package interpolation.processor;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ProcessorStats}.
+ */
+public class ProcessorStatsTest {
+
+  @Test
+  public void computesNearestRankPercentiles() {
+    long[] sorted = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+    assertThat(ProcessorStats.percentile(sorted, 50), is(5L));
+    assertThat(ProcessorStats.percentile(sorted, 90), is(9L));
+    assertThat(ProcessorStats.percentile(sorted, 99), is(10L));
+    assertThat(ProcessorStats.percentile(sorted, 0), is(1L));
+    assertThat(ProcessorStats.percentile(new long[0], 50), is(0L));
+  }
+
+  @Test
+  public void recordsCountersAndSamples() {
+    ProcessorStats stats = new ProcessorStats(true);
+    stats.add(ProcessorStats.Counter.CALL_SITES, 3);
+    stats.add(ProcessorStats.Counter.CALL_SITES, 2);
+    stats.record(ProcessorStats.Phase.PARSE, stats.start());
+    stats.record(ProcessorStats.Phase.PARSE, stats.start());
+
+    assertThat(stats.count(ProcessorStats.Counter.CALL_SITES), is(5L));
+    assertThat(stats.events(ProcessorStats.Phase.PARSE), is(2));
+    assertThat(stats.summary(), containsString("callSites: 5"));
+    assertThat(stats.summary(), containsString("parse: 2 events, total "));
+    assertThat(stats.toJson(), containsString("\"callSites\": 5,"));
+    assertThat(stats.toJson(), containsString("\"parse\": {\"count\": 2, \"totalMs\": "));
+  }
+
+  @Test
+  public void ignoresEverythingWhenDisabled() {
+    ProcessorStats stats = new ProcessorStats(false);
+    stats.add(ProcessorStats.Counter.CALL_SITES, 3);
+    stats.record(ProcessorStats.Phase.PARSE, stats.start());
+
+    assertThat(stats.count(ProcessorStats.Counter.CALL_SITES), is(0L));
+    assertThat(stats.events(ProcessorStats.Phase.PARSE), is(0));
+  }
+}
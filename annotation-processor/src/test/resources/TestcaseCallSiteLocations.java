@@ -0,0 +1,39 @@
+import static interpolation.Interpolator.str;
+
+import java.util.function.Function;
+
+public class TestcaseCallSiteLocations {
+
+  private static String zone = "UTC";
+
+  private final String label;
+
+  public TestcaseCallSiteLocations(String name) {
+    super();
+    this.label = str("name ${name}");
+  }
+
+  private final String created = str("created in ${zone}");
+
+  public TestcaseCallSiteLocations(int number) {
+    this.label = str("number ${number}");
+  }
+
+  public TestcaseCallSiteLocations() {
+    this(str("default in ${zone}"));
+  }
+
+  public String format(String value) {
+    return str("value ${value}");
+  }
+
+  public String format(int value) {
+    return str("int ${value}");
+  }
+
+  public Function<String, String> greeter(String greeting) {
+    final String first = str("${greeting}!");
+    return name -> first + str("${greeting} ${name}");
+  }
+
+}
@@ -0,0 +1,26 @@
+import static interpolation.Interpolator.str;
+
+public class TestcaseConstants {
+
+  private static final String SERVICE = "billing";
+
+  private static final int VERSION = 3;
+
+  private static final double FEE = 0.25;
+
+  private final boolean audited = true;
+
+  public String charge(String user, double amount) {
+    return str("[${SERVICE} v${VERSION}] ${user} charged ${FEE}% on ${amount}");
+  }
+
+  public String metric() {
+    final short shard = 10;
+    return str("${SERVICE}-v${VERSION}.requests.${shard:%#06x}");
+  }
+
+  public String audit(String action) {
+    return str("${SERVICE}: ${audited} ${action}");
+  }
+
+}
@@ -0,0 +1,20 @@
+import static interpolation.Interpolator.str;
+
+public class TestcaseEscaping {
+
+  private static final String SERVICE = "a\"b";
+
+  public String event(String user, String message) {
+    return str("{\"service\": \"${SERVICE:json}\", \"user\": \"${user:json}\","
+        + " \"message\": \"${message:json}\"}");
+  }
+
+  public String link(String name, String title) {
+    return str("<a href=\"/users\" title='${title:html}'>${name:html}</a><!-- ${name} -->");
+  }
+
+  public StringBuilder row(StringBuilder sb, String name, String note, int count) {
+    return sb.append(str("${name:csv},${count},${note:csv}\r\n"));
+  }
+
+}
@@ -0,0 +1,11 @@
+import static interpolation.Interpolator.str;
+
+import java.time.LocalDate;
+
+public class TestcaseFormats {
+
+  public static String invoice(String customer, double total, LocalDate due, int items) {
+    return str("${customer:%-10s} owes ${total:%,.2f} by ${due:iso} for ${items} items");
+  }
+
+}
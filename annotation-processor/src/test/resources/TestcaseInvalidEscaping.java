@@ -0,0 +1,25 @@
+import static interpolation.Interpolator.str;
+
+public class TestcaseInvalidEscaping {
+
+  public static String json(String user) {
+    return str("{\"user\": ${user:json}}");
+  }
+
+  public static String html(String tag) {
+    return str("<${tag:html}>");
+  }
+
+  public static String script(String name) {
+    return str("<script>greet('${name:html}')</script>");
+  }
+
+  public static String link(String url) {
+    return str("<a href=\"${url:html}\">link</a>");
+  }
+
+  public static String csv(String first, String last) {
+    return str("${first:csv} ${last:csv}");
+  }
+
+}
@@ -0,0 +1,9 @@
+import static interpolation.Interpolator.str;
+
+public class TestcaseInvalidFormat {
+
+  public static String describe(String name, long[] ids, int count) {
+    return str("${name:%.2f} ${ids:iso} ${count:%q}");
+  }
+
+}
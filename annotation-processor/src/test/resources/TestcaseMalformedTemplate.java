@@ -0,0 +1,9 @@
+import static interpolation.Interpolator.str;
+
+public class TestcaseMalformedTemplate {
+
+  public static String greet(String name) {
+    return str("Hello ${name");
+  }
+
+}
@@ -0,0 +1,7 @@
+public class TestcaseNoInterpolation {
+
+  public static String greet(String str) {
+    return "Hello " + str;
+  }
+
+}
@@ -0,0 +1,9 @@
+import static interpolation.Interpolator.str;
+
+public class TestcaseNonLiteralTemplate {
+
+  public static String greet(String template) {
+    return str(template);
+  }
+
+}
@@ -0,0 +1,54 @@
+import static interpolation.Interpolator.str;
+
+import java.util.List;
+
+public class TestcaseProperties {
+
+  record Address(String city, int zip) {
+  }
+
+  record User(String name, Address address) {
+  }
+
+  static class Account {
+
+    final long id;
+
+    private final boolean active;
+
+    Account(long id, boolean active) {
+      this.id = id;
+      this.active = active;
+    }
+
+    public boolean isActive() {
+      return active;
+    }
+
+    public String getOwner() {
+      return "owner";
+    }
+  }
+
+  static class Box<T> {
+
+    T value;
+  }
+
+  public String user(User user) {
+    return str("${user.name} lives in ${user.address.city} ${user.address.zip}");
+  }
+
+  public String account(Account account) {
+    return str("${account.id}: ${account.owner} active=${account.active}");
+  }
+
+  public String safe(User user) {
+    return str("${user?.address?.city} ${user.address?.zip:%05d}");
+  }
+
+  public String collections(List<String> names, int[] counts, Box<String> box) {
+    return str("${names.size} names, ${counts.length} counts, ${box.value.length} chars");
+  }
+
+}
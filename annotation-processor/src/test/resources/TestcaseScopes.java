@@ -0,0 +1,18 @@
+import static interpolation.Interpolator.str;
+
+import java.util.List;
+
+public class TestcaseScopes {
+
+  private static String GREETING = "Hello";
+
+  private long id = 42;
+
+  public String describe(String name, List<String> tags) {
+    final String first = str("${GREETING} ${name}");
+    final String second = str("${id}: ${name}");
+    int count = tags.size();
+    return first + second + str("${name} has ${count} tags");
+  }
+
+}
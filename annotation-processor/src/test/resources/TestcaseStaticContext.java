@@ -0,0 +1,36 @@
+import static interpolation.Interpolator.str;
+
+public class TestcaseStaticContext {
+
+  private static String label = "id";
+
+  private long id = 42;
+
+  public static String describe() {
+    return str("${label}: ${id}");
+  }
+
+  public String describeLater() {
+    return new Object() {
+      @Override
+      public String toString() {
+        return str("${label}: ${id}");
+      }
+    }.toString();
+  }
+
+  class Inner {
+
+    String describe() {
+      return str("${id}");
+    }
+  }
+
+  static class Nested {
+
+    String describe() {
+      return str("${id}");
+    }
+  }
+
+}
@@ -0,0 +1,16 @@
+import static interpolation.Interpolator.str;
+
+public class TestcaseUnknownProperty {
+
+  record User(String name) {
+  }
+
+  public static String greet(User user) {
+    return str("Hello ${user.nmae}");
+  }
+
+  public static String secret(Object owner) {
+    return str("Hashed ${owner.hashCode} into ${owner.hash}");
+  }
+
+}
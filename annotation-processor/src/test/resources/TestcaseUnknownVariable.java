@@ -0,0 +1,9 @@
+import static interpolation.Interpolator.str;
+
+public class TestcaseUnknownVariable {
+
+  public static String greet(String name) {
+    return str("Hello ${nmae}");
+  }
+
+}
@@ -0,0 +1,90 @@
+package interpolation.benchmarks;
+
+import interpolation.Interpolator;
+import interpolation.parser.TemplateParserWrapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares appending an interpolated template to a caller's buffer through an intermediate
+ * {@code String} ({@code sb.append(interpolator.process(...))}, what {@code str()} call sites do)
+ * with streaming it through {@code Interpolator.processTo}.
+ *
+ * <p>The targets are a reused {@code StringBuilder}, cleared before each template, and a
+ * {@code BufferedWriter} over {@link Writer#nullWriter()}, like a response writer. Values are
+ * {@code String}s, so both variants box nothing and the difference is the intermediate
+ * {@code String}: with {@code -prof gc}, {@code gc.alloc.rate.norm} drops to zero for
+ * {@code processTo} into the builder.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AppendBenchmark {
+
+  @Param({"1", "4", "16"})
+  public int variables;
+
+  @Param({"short", "long"})
+  public String fragments;
+
+  private Interpolator interpolator;
+  private Object[] values;
+  private StringBuilder sb;
+  private Writer writer;
+
+  @Setup
+  public void setup() throws IOException {
+    interpolator = new Interpolator(TemplateParserWrapper
+        .parse(Templates.template(variables, "long".equals(fragments))).fragments());
+    values = new Object[variables];
+    for (int i = 0; i < variables; i++) {
+      values[i] = "value" + i;
+    }
+    sb = new StringBuilder(4096);
+    writer = new BufferedWriter(Writer.nullWriter(), 8192);
+
+    final String expected = interpolator.process(values);
+    if (!expected.contentEquals(builderProcessTo()) || !expected.contentEquals(builderAppend())) {
+      throw new IllegalStateException("Expected '" + expected + "', got '" + sb + "'");
+    }
+  }
+
+  @Benchmark
+  public StringBuilder builderAppend() {
+    sb.setLength(0);
+    return sb.append(interpolator.process(values));
+  }
+
+  @Benchmark
+  public StringBuilder builderProcessTo() {
+    sb.setLength(0);
+    return interpolator.processTo(sb, values);
+  }
+
+  @Benchmark
+  public Writer writerAppend() throws IOException {
+    writer.write(interpolator.process(values));
+    return writer;
+  }
+
+  @Benchmark
+  public Writer writerProcessTo() throws IOException {
+    return interpolator.processTo(writer, values);
+  }
+}
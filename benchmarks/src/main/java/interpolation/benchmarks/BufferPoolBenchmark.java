@@ -0,0 +1,164 @@
+package interpolation.benchmarks;
+
+import interpolation.Interpolator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the {@code StringBuilder} pool behind {@link Interpolator#process} under contention,
+ * on a request log line of about 90 characters:
+ * <ul>
+ *   <li>{@code pooled*} - {@code process()}, which reuses a pooled builder</li>
+ *   <li>{@code fresh*} - the same interpolation into a new {@code StringBuilder} per call, as
+ *       {@code process()} did before pooling</li>
+ * </ul>
+ * Each is run by 1, 8 and 64 platform threads, and by {@value #TASKS} virtual threads rendering
+ * {@value #RENDERS} lines each. Run with {@code -prof gc}: {@code gc.alloc.rate.norm} shows the
+ * builder and backing array saved per call.
+ *
+ * <p>{@code pooledMixed1} and {@code freshMixed1} render one line in 16 with a non-Latin-1 path,
+ * which inflates the builder it is rendered in to UTF-16: they show what pooled builders cost when
+ * they keep an inflated backing array for the Latin-1 lines after it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BufferPoolBenchmark {
+
+  private static final int TASKS = 1000;
+  private static final int RENDERS = 100;
+
+  private Interpolator interpolator;
+  private String[] fragments;
+  private String method;
+  private String path;
+  private String unicodePath;
+  private int status;
+  private long micros;
+
+  @Setup
+  public void setup() {
+    fragments = new String[] {"request ", " ", " completed with status ", " in ", " us"};
+    interpolator = new Interpolator(fragments);
+    method = "GET";
+    path = "/api/v1/accounts/7f3a9c2e/transactions?page=3";
+    unicodePath = "/api/v1/accounts/7f3a9c2e/transactions?q=\u0433\u0440\u043d";
+    status = 200;
+    micros = 1532L;
+    if (!pooled1().equals(fresh1())) {
+      throw new IllegalStateException("Pooled and fresh results differ");
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String pooled1() {
+    return pooled();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String fresh1() {
+    return fresh();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String pooled8() {
+    return pooled();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String fresh8() {
+    return fresh();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public String pooled64() {
+    return pooled();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public String fresh64() {
+    return fresh();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String pooledMixed1(Calls calls) {
+    return (++calls.count & 15) == 0 ? interpolator.process(method, unicodePath, status, micros)
+        : pooled();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String freshMixed1(Calls calls) {
+    return (++calls.count & 15) == 0 ? fresh(unicodePath) : fresh();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TASKS * RENDERS)
+  public void pooledVirtual(Blackhole blackhole) {
+    onVirtualThreads(blackhole, true);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TASKS * RENDERS)
+  public void freshVirtual(Blackhole blackhole) {
+    onVirtualThreads(blackhole, false);
+  }
+
+  private String pooled() {
+    return interpolator.process(method, path, status, micros);
+  }
+
+  private String fresh() {
+    return fresh(path);
+  }
+
+  private String fresh(String path) {
+    return new StringBuilder(96).append(fragments[0]).append(method).append(fragments[1])
+        .append(path).append(fragments[2]).append(status).append(fragments[3]).append(micros)
+        .append(fragments[4]).toString();
+  }
+
+  private void onVirtualThreads(Blackhole blackhole, boolean pooled) {
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < TASKS; i++) {
+        executor.execute(() -> {
+          for (int j = 0; j < RENDERS; j++) {
+            blackhole.consume(pooled ? pooled() : fresh());
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Counts the calls of one thread.
+   */
+  @State(Scope.Thread)
+  public static class Calls {
+    int count;
+  }
+}
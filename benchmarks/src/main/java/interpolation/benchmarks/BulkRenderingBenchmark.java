@@ -0,0 +1,97 @@
+package interpolation.benchmarks;
+
+import interpolation.Interpolator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares ways of rendering a report of many rows, an HTML table row of an account id, a name
+ * and a balance per row, into one {@code String}:
+ * <ul>
+ *   <li>{@code processPerRow} - {@code process()} per row, appended to a builder</li>
+ *   <li>{@code processToPerRow} - {@code processTo()} per row into one builder</li>
+ *   <li>{@code processColumns} - {@code processColumns()} on the columns, into one builder sized
+ *       once, with the ids and balances as primitive arrays</li>
+ *   <li>{@code processColumnsParallel} - {@code processColumnsParallel()} on the common
+ *       {@code ForkJoinPool}</li>
+ * </ul>
+ * Run with {@code -prof gc}: {@code gc.alloc.rate.norm} shows the per-row {@code String}s, boxes
+ * and buffer growth saved by the column methods.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkRenderingBenchmark {
+
+  @Param({"100", "10000", "1000000"})
+  private int rows;
+
+  private Interpolator interpolator;
+  private long[] ids;
+  private String[] names;
+  private int[] balances;
+  private Object[][] boxedRows;
+
+  @Setup
+  public void setup() {
+    interpolator = new Interpolator(
+        new String[] {"<tr><td>", "</td><td>", "</td><td>", "</td></tr>\n"});
+    ids = new long[rows];
+    names = new String[rows];
+    balances = new int[rows];
+    boxedRows = new Object[rows][];
+    for (int i = 0; i < rows; i++) {
+      ids[i] = 4_000_000_000L + i * 7919L;
+      names[i] = "customer-" + Integer.toHexString(i * 31);
+      balances[i] = (i * 104_729) % 1_000_000 - 500_000;
+      boxedRows[i] = new Object[] {ids[i], names[i], balances[i]};
+    }
+    final String expected = processPerRow();
+    if (!expected.equals(processToPerRow()) || !expected.equals(processColumns())
+        || !expected.equals(processColumnsParallel())) {
+      throw new IllegalStateException("Bulk and per-row results differ");
+    }
+  }
+
+  @Benchmark
+  public String processPerRow() {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < rows; i++) {
+      sb.append(interpolator.process(ids[i], names[i], balances[i]));
+    }
+    return sb.toString();
+  }
+
+  @Benchmark
+  public String processToPerRow() {
+    final StringBuilder sb = new StringBuilder();
+    for (Object[] row : boxedRows) {
+      interpolator.processTo(sb, row);
+    }
+    return sb.toString();
+  }
+
+  @Benchmark
+  public String processColumns() {
+    return interpolator.processColumns(new StringBuilder(), rows, ids, names, balances)
+        .toString();
+  }
+
+  @Benchmark
+  public String processColumnsParallel() {
+    return interpolator.processColumnsParallel(rows, ids, names, balances);
+  }
+}
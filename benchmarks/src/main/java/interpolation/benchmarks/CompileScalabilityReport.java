@@ -0,0 +1,247 @@
+package interpolation.benchmarks;
+
+import com.sun.management.ThreadMXBean;
+import interpolation.benchmarks.SyntheticCodebase.Shape;
+import interpolation.processor.InterpolationProcessor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/**
+ * Prints the compile time, heap allocation and peak heap that {@link InterpolationProcessor} adds
+ * to a build, on synthetic source trees of growing size generated by {@link SyntheticCodebase}.
+ *
+ * <p>Each tree is compiled in-process with {@code javac} from {@link ToolProvider}, once with
+ * {@code -proc:none} and once with the processor, registered the way
+ * {@code InterpolationProcessorTest} does with compile-testing, into a fresh output directory
+ * every time, so the processor's incremental index never applies. Runs alternate between the two
+ * after warm-up compilations, and the medians are reported, so JIT compilation of {@code javac}
+ * and drift of the machine affect both sides alike. Allocation is counted over all threads,
+ * including the processor's transformation workers. The last line fits the added time and
+ * allocation per 1000 call sites over the sizes, the figure to track from build to build.
+ *
+ * <pre>{@code
+ * java -cp benchmarks/target/benchmarks.jar interpolation.benchmarks.CompileScalabilityReport \
+ *     classes=100,1000,5000 methods=10 callSites=3 templateLength=60 variables=2 plain=50 \
+ *     warmup=2 runs=5 format=table -Ainterpolation.threads=4
+ * }</pre>
+ *
+ * <p>Arguments starting with {@code -A} are passed to the processor.
+ */
+public final class CompileScalabilityReport {
+
+  private static final Map<String, String> DEFAULTS = Map.of(
+      "classes", "100,500,1000",
+      "methods", "10",
+      "callSites", "3",
+      "templateLength", "60",
+      "variables", "2",
+      "plain", "50",
+      "warmup", "2",
+      "runs", "5",
+      "format", "table");
+
+  private static final double MB = 1024 * 1024;
+
+  private final JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+  private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final List<String> processorOptions;
+
+  private CompileScalabilityReport(List<String> processorOptions) {
+    this.processorOptions = processorOptions;
+  }
+
+  /**
+   * Measurements of one compilation.
+   *
+   * @param nanos wall time
+   * @param allocated bytes allocated by all threads
+   * @param peakHeap peak heap usage, summed over the heap memory pools
+   */
+  private record Sample(long nanos, long allocated, long peakHeap) {
+  }
+
+  /**
+   * Runs the report.
+   *
+   * @param args {@code name=value} settings, see the class description, and processor options
+   * @throws IOException if the source tree cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    final Map<String, String> settings = new HashMap<>(DEFAULTS);
+    final List<String> processorOptions = new ArrayList<>();
+    for (String arg : args) {
+      final int equals = arg.indexOf('=');
+      if (arg.startsWith("-A")) {
+        processorOptions.add(arg);
+      } else if (equals > 0 && DEFAULTS.containsKey(arg.substring(0, equals))) {
+        settings.put(arg.substring(0, equals), arg.substring(equals + 1));
+      } else {
+        throw new IllegalArgumentException("Unknown argument '" + arg + "', expected one of "
+            + DEFAULTS.keySet() + " as name=value, or a -A processor option");
+      }
+    }
+    final boolean csv = "csv".equals(settings.get("format"));
+    final int warmup = Integer.parseInt(settings.get("warmup"));
+    final int runs = Integer.parseInt(settings.get("runs"));
+    final CompileScalabilityReport report = new CompileScalabilityReport(processorOptions);
+
+    final String[] columns = {"classes", "call sites", "javac ms", "+proc ms", "added ms",
+        "added %", "javac MB", "+proc MB", "peak MB", "+proc peak MB"};
+    final String row = csv ? "%s,%s,%s,%s,%s,%s,%s,%s,%s,%s%n"
+        : "%8s %11s %10s %10s %10s %8s %10s %10s %10s %14s%n";
+    System.out.printf(row, (Object[]) columns);
+    final List<long[]> curve = new ArrayList<>();
+    for (String classes : settings.get("classes").split(",")) {
+      final Shape shape = new Shape(Integer.parseInt(classes.strip()),
+          Integer.parseInt(settings.get("methods")), Integer.parseInt(settings.get("callSites")),
+          Integer.parseInt(settings.get("templateLength")),
+          Integer.parseInt(settings.get("variables")), Integer.parseInt(settings.get("plain")));
+      final Sample[][] samples = report.measure(shape, warmup, runs);
+      final Sample javacOnly = median(samples[0]);
+      final Sample processed = median(samples[1]);
+      final double addedMillis = (processed.nanos() - javacOnly.nanos()) / 1e6;
+      curve.add(new long[] {shape.totalCallSites(), processed.nanos() - javacOnly.nanos(),
+          processed.allocated() - javacOnly.allocated()});
+      System.out.printf(Locale.ROOT, row, shape.classes(), shape.totalCallSites(),
+          format(javacOnly.nanos() / 1e6), format(processed.nanos() / 1e6), format(addedMillis),
+          format(100 * addedMillis / (javacOnly.nanos() / 1e6)),
+          format(javacOnly.allocated() / MB), format(processed.allocated() / MB),
+          format(javacOnly.peakHeap() / MB), format(processed.peakHeap() / MB));
+    }
+    System.out.printf(Locale.ROOT, csv ? "# per 1000 call sites,%s ms,%s MB%n"
+        : "Added per 1000 call sites: %s ms, %s MB allocated%n",
+        format(1000 * slope(curve, 1) / 1e6), format(1000 * slope(curve, 2) / MB));
+  }
+
+  /**
+   * Generates a tree and compiles it alternately without and with the processor.
+   *
+   * @return the samples without the processor, then with it
+   */
+  private Sample[][] measure(Shape shape, int warmup, int runs) throws IOException {
+    final Path root = Files.createTempDirectory("interpolation-synthetic");
+    try {
+      final List<Path> sources = SyntheticCodebase.write(root.resolve("src"), shape);
+      for (int i = 0; i < warmup; i++) {
+        compile(root, sources, false);
+        compile(root, sources, true);
+      }
+      final Sample[][] samples = new Sample[2][runs];
+      for (int i = 0; i < runs; i++) {
+        samples[0][i] = compile(root, sources, false);
+        samples[1][i] = compile(root, sources, true);
+      }
+      return samples;
+    } finally {
+      delete(root);
+    }
+  }
+
+  private Sample compile(Path root, List<Path> sources, boolean processor) throws IOException {
+    final Path output = root.resolve("classes");
+    delete(output);
+    Files.createDirectories(output);
+    final List<String> options = new ArrayList<>(List.of("-nowarn", "-implicit:none",
+        "-classpath", System.getProperty("java.class.path")));
+    options.addAll(processor ? processorOptions : List.of("-proc:none"));
+    final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    final List<MemoryPoolMXBean> heap = ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> pool.getType() == MemoryType.HEAP)
+        .toList();
+
+    System.gc();
+    heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+    final long allocatedBefore = threads.getTotalThreadAllocatedBytes();
+    final long start = System.nanoTime();
+    final boolean success;
+    try (StandardJavaFileManager files =
+        javac.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+      files.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(output));
+      final JavaCompiler.CompilationTask task = javac.getTask(null, files, diagnostics, options,
+          null, files.getJavaFileObjectsFromPaths(sources));
+      if (processor) {
+        task.setProcessors(List.of(new InterpolationProcessor()));
+      }
+      success = task.call();
+    }
+    final long nanos = System.nanoTime() - start;
+    final long allocated = threads.getTotalThreadAllocatedBytes() - allocatedBefore;
+    final long peakHeap = heap.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+    if (!success) {
+      throw new IllegalStateException("Synthetic tree failed to compile: "
+          + diagnostics.getDiagnostics().stream()
+              .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+              .findFirst()
+              .map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+              .orElse("no error reported"));
+    }
+    return new Sample(nanos, allocated, peakHeap);
+  }
+
+  private static Sample median(Sample[] samples) {
+    return new Sample(median(samples, Sample::nanos), median(samples, Sample::allocated),
+        median(samples, Sample::peakHeap));
+  }
+
+  private static long median(Sample[] samples, ToLongFunction<Sample> metric) {
+    final long[] values = Arrays.stream(samples).mapToLong(metric).sorted().toArray();
+    return values[values.length / 2];
+  }
+
+  /**
+   * Least-squares slope of a column of the curve over its call sites.
+   */
+  private static double slope(List<long[]> curve, int column) {
+    final double meanX = curve.stream().mapToLong(point -> point[0]).average().orElse(0);
+    final double meanY = curve.stream().mapToLong(point -> point[column]).average().orElse(0);
+    double covariance = 0;
+    double variance = 0;
+    for (long[] point : curve) {
+      covariance += (point[0] - meanX) * (point[column] - meanY);
+      variance += (point[0] - meanX) * (point[0] - meanX);
+    }
+    return variance == 0 ? 0 : covariance / variance;
+  }
+
+  private static String format(double value) {
+    return String.format(Locale.ROOT, "%.1f", value);
+  }
+
+  private static void delete(Path root) throws IOException {
+    if (!Files.exists(root)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(root)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+        try {
+          Files.delete(path);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package interpolation.benchmarks;
+
+import interpolation.Interpolator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the effect of folding constant variables into their template, on a log line
+ * {@code "[${SERVICE} v${VERSION}] ${user} done"} and a metric name
+ * {@code "${SERVICE}.v${VERSION}.requests"} made of constants only:
+ * <ul>
+ *   <li>{@link #unfolded()} and {@link #unfoldedMetric()} - the constants passed and appended on
+ *       every call, the log line through the boxed {@code process(Object...)}</li>
+ *   <li>{@link #folded()} - {@code "[billing v3] "} baked into the first fragment, one variable
+ *       left for the unboxed {@code process(Object)}</li>
+ *   <li>{@link #foldedMetric()} - the single string an {@code ldc} loads</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConstantFoldingBenchmark {
+
+  private static final String SERVICE = "billing";
+  private static final int VERSION = 3;
+
+  private Interpolator unfolded;
+  private Interpolator folded;
+  private Interpolator unfoldedMetric;
+  private String user;
+
+  @Setup
+  public void setup() {
+    unfolded = new Interpolator(new String[] {"[", " v", "] ", " done"});
+    folded = new Interpolator(new String[] {"[billing v3] ", " done"});
+    unfoldedMetric = new Interpolator(new String[] {"", ".v", ".requests"});
+    user = "alice";
+    if (!unfolded().equals(folded()) || !unfoldedMetric().equals(foldedMetric())) {
+      throw new IllegalStateException("Folded templates differ");
+    }
+  }
+
+  @Benchmark
+  public String unfolded() {
+    return unfolded.process(SERVICE, VERSION, user);
+  }
+
+  @Benchmark
+  public String folded() {
+    return folded.process(user);
+  }
+
+  @Benchmark
+  public String unfoldedMetric() {
+    return unfoldedMetric.process(SERVICE, VERSION);
+  }
+
+  @Benchmark
+  public String foldedMetric() {
+    return "billing.v3.requests";
+  }
+}
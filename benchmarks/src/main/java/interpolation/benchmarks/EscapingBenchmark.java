@@ -0,0 +1,95 @@
+package interpolation.benchmarks;
+
+import interpolation.Interpolator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a JSON log payload {@code {"user": "${user}", "message": "${message}"}} whose values
+ * must be escaped:
+ * <ul>
+ *   <li>{@link #escapeThenProcess()} - each value escaped by a separate character-by-character
+ *       pass into its own {@code String}, then interpolated</li>
+ *   <li>{@link #escapingFormat()} - {@code ${user:json}} and {@code ${message:json}}, escaped
+ *       while appended, a word at a time with clean runs copied in bulk</li>
+ * </ul>
+ * {@code clean} messages have nothing to escape, the common case; {@code quoted} ones hold quotes,
+ * backslashes and a line break.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EscapingBenchmark {
+
+  @Param({"clean", "quoted"})
+  public String message;
+
+  private Interpolator plain;
+  private Interpolator escaping;
+  private String user;
+  private String text;
+
+  @Setup
+  public void setup() {
+    final String[] fragments = {"{\"user\": \"", "\", \"message\": \"", "\"}"};
+    plain = new Interpolator(fragments);
+    escaping = new Interpolator(fragments, new String[] {"json", "json"});
+    user = "olena.kovalenko";
+    text = "clean".equals(message)
+        ? "Payment of 1234.50 EUR accepted for order 1048576 after 3 retries on gateway eu-west-1"
+        : "Payment \"1234.50 EUR\" rejected:\n C:\\gateway\\eu-west-1 said \"card declined\"";
+    if (!escapeThenProcess().equals(escapingFormat())) {
+      throw new IllegalStateException("Escapings differ");
+    }
+  }
+
+  @Benchmark
+  public String escapeThenProcess() {
+    return plain.process(escape(user), escape(text));
+  }
+
+  @Benchmark
+  public String escapingFormat() {
+    return escaping.process(new Object[] {user, text});
+  }
+
+  /**
+   * A typical JSON string escaper, one check per character.
+   */
+  private static String escape(String value) {
+    final StringBuilder sb = new StringBuilder(value.length() + 16);
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '"' -> sb.append("\\\"");
+        case '\\' -> sb.append("\\\\");
+        case '\n' -> sb.append("\\n");
+        case '\r' -> sb.append("\\r");
+        case '\t' -> sb.append("\\t");
+        case '\b' -> sb.append("\\b");
+        case '\f' -> sb.append("\\f");
+        default -> {
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+        }
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,64 @@
+package interpolation.benchmarks;
+
+import interpolation.Interpolator;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a report line with formatted values rendered by {@code String.format}, which parses
+ * its format string on every call, with an interpolator of the equivalent template
+ * {@code "${customer:%-12s} ${total:%,.2f} ${due:iso} #${id:%08x}"}, whose specifiers are parsed
+ * once, when it is created.
+ *
+ * <p>Both produce the same text, checked in {@link #setup()}. With {@code -prof gc},
+ * {@code gc.alloc.rate.norm} shows the {@code Formatter}, its parsed specifiers and intermediate
+ * strings left out by {@link #interpolator()}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatBenchmark {
+
+  private Interpolator interpolator;
+  private String customer;
+  private double total;
+  private LocalDate due;
+  private int id;
+
+  @Setup
+  public void setup() {
+    interpolator = new Interpolator(new String[] {"", " ", " ", " #", ""},
+        new String[] {"%-12s", "%,.2f", "iso", "%08x"});
+    customer = "ACME Corp";
+    total = 1234567.891;
+    due = LocalDate.of(2024, 6, 30);
+    id = 0xBEEF;
+    if (!stringFormat().equals(interpolator())) {
+      throw new IllegalStateException("'" + stringFormat() + "' != '" + interpolator() + "'");
+    }
+  }
+
+  @Benchmark
+  public String stringFormat() {
+    return String.format(Locale.ROOT, "%-12s %,.2f %s #%08x", customer, total, due, id);
+  }
+
+  @Benchmark
+  public String interpolator() {
+    return interpolator.process(customer, total, due, id);
+  }
+}
@@ -0,0 +1,224 @@
+package interpolation.benchmarks;
+
+import interpolation.Interpolator;
+import interpolation.internal.parser.ParsedTemplate;
+import interpolation.parser.TemplateParserWrapper;
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the interpolation strategies for templates with 0, 1, 4 and 16 variables, primitive
+ * ({@code int}) or object ({@code String}) values and short or long fragments.
+ *
+ * <p>Templates are parsed by the processor's {@link TemplateParserWrapper}. The interpolator
+ * methods are called directly, the processor does not rewrite call sites yet:
+ * <ul>
+ *   <li>{@link #process()} - {@code Interpolator.process(Object...)} with a fresh boxed array</li>
+ *   <li>{@link #processUnboxed()} - the unboxed {@code process} overload for one variable,
+ *       varargs above</li>
+ * </ul>
+ *
+ * <p>Run with {@code java -jar benchmarks/target/benchmarks.jar InterpolationBenchmark -prof gc}
+ * to report the allocation per operation ({@code gc.alloc.rate.norm}) next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterpolationBenchmark {
+
+  @Param({"0", "1", "4", "16"})
+  public int variables;
+
+  @Param({"primitive", "object"})
+  public String values;
+
+  @Param({"short", "long"})
+  public String fragments;
+
+  private boolean primitive;
+  private String[] f;
+  private int[] ints;
+  private String[] strings;
+  private Interpolator interpolator;
+  private String format;
+  private String messageFormat;
+
+  @Setup
+  public void setup() {
+    primitive = "primitive".equals(values);
+    final ParsedTemplate parsed =
+        TemplateParserWrapper.parse(Templates.template(variables, "long".equals(fragments)));
+    f = parsed.fragments();
+    ints = new int[variables];
+    strings = new String[variables];
+    for (int i = 0; i < variables; i++) {
+      ints[i] = 1000 + 37 * i;
+      strings[i] = "value" + i;
+    }
+    interpolator = new Interpolator(f);
+
+    final StringBuilder formatBuilder = new StringBuilder();
+    final StringBuilder messageFormatBuilder = new StringBuilder();
+    for (int i = 0; i < f.length; i++) {
+      formatBuilder.append(f[i]);
+      messageFormatBuilder.append(f[i]);
+      if (i < variables) {
+        formatBuilder.append(primitive ? "%d" : "%s");
+        messageFormatBuilder.append('{').append(i).append(primitive ? ",number,#}" : "}");
+      }
+    }
+    format = formatBuilder.toString();
+    messageFormat = messageFormatBuilder.toString();
+
+    final String expected = stringBuilder();
+    for (String actual : new String[] {concat(), stringFormat(), messageFormat(), process(),
+        processUnboxed()}) {
+      if (!expected.equals(actual)) {
+        throw new IllegalStateException("Expected '" + expected + "', got '" + actual + "'");
+      }
+    }
+  }
+
+  @Benchmark
+  public String concat() {
+    return primitive ? concatPrimitive() : concatObject();
+  }
+
+  @Benchmark
+  public String stringBuilder() {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < variables; i++) {
+      sb.append(f[i]);
+      if (primitive) {
+        sb.append(ints[i]);
+      } else {
+        sb.append(strings[i]);
+      }
+    }
+    return sb.append(f[variables]).toString();
+  }
+
+  @Benchmark
+  public String stringFormat() {
+    return String.format(format, boxed());
+  }
+
+  @Benchmark
+  public String messageFormat() {
+    return MessageFormat.format(messageFormat, boxed());
+  }
+
+  @Benchmark
+  public String process() {
+    return primitive ? processPrimitive() : processObject();
+  }
+
+  @Benchmark
+  public String processUnboxed() {
+    return primitive ? unboxedPrimitive() : unboxedObject();
+  }
+
+  private Object[] boxed() {
+    final Object[] boxed = new Object[variables];
+    for (int i = 0; i < variables; i++) {
+      boxed[i] = primitive ? Integer.valueOf(ints[i]) : strings[i];
+    }
+    return boxed;
+  }
+
+  private String concatPrimitive() {
+    return switch (variables) {
+      case 0 -> f[0];
+      case 1 -> f[0] + ints[0] + f[1];
+      case 4 -> f[0] + ints[0] + f[1] + ints[1] + f[2] + ints[2] + f[3] + ints[3] + f[4];
+      case 16 ->
+          f[0] + ints[0] + f[1] + ints[1] + f[2] + ints[2] + f[3] + ints[3] + f[4] + ints[4] + f[5]
+              + ints[5] + f[6] + ints[6] + f[7] + ints[7] + f[8] + ints[8] + f[9] + ints[9] + f[10]
+              + ints[10] + f[11] + ints[11] + f[12] + ints[12] + f[13] + ints[13] + f[14] + ints[14]
+              + f[15] + ints[15] + f[16];
+      default -> throw new IllegalStateException("Unsupported variables: " + variables);
+    };
+  }
+
+  private String concatObject() {
+    return switch (variables) {
+      case 0 -> f[0];
+      case 1 -> f[0] + strings[0] + f[1];
+      case 4 ->
+          f[0] + strings[0] + f[1] + strings[1] + f[2] + strings[2] + f[3] + strings[3] + f[4];
+      case 16 ->
+          f[0] + strings[0] + f[1] + strings[1] + f[2] + strings[2] + f[3] + strings[3] + f[4]
+              + strings[4] + f[5] + strings[5] + f[6] + strings[6] + f[7] + strings[7] + f[8]
+              + strings[8] + f[9] + strings[9] + f[10] + strings[10] + f[11] + strings[11] + f[12]
+              + strings[12] + f[13] + strings[13] + f[14] + strings[14] + f[15] + strings[15]
+              + f[16];
+      default -> throw new IllegalStateException("Unsupported variables: " + variables);
+    };
+  }
+
+  private String processPrimitive() {
+    return switch (variables) {
+      case 0 -> interpolator.process(new Object[] {});
+      case 1 -> interpolator.process(new Object[] {ints[0]});
+      case 4 -> interpolator.process(new Object[] {ints[0], ints[1], ints[2], ints[3]});
+      case 16 ->
+          interpolator.process(new Object[] {ints[0], ints[1], ints[2], ints[3], ints[4], ints[5],
+              ints[6], ints[7], ints[8], ints[9], ints[10], ints[11], ints[12], ints[13], ints[14],
+              ints[15]});
+      default -> throw new IllegalStateException("Unsupported variables: " + variables);
+    };
+  }
+
+  private String processObject() {
+    return switch (variables) {
+      case 0 -> interpolator.process(new Object[] {});
+      case 1 -> interpolator.process(new Object[] {strings[0]});
+      case 4 -> interpolator.process(new Object[] {strings[0], strings[1], strings[2], strings[3]});
+      case 16 ->
+          interpolator.process(new Object[] {strings[0], strings[1], strings[2], strings[3],
+              strings[4], strings[5], strings[6], strings[7], strings[8], strings[9], strings[10],
+              strings[11], strings[12], strings[13], strings[14], strings[15]});
+      default -> throw new IllegalStateException("Unsupported variables: " + variables);
+    };
+  }
+
+  private String unboxedPrimitive() {
+    return switch (variables) {
+      case 0 -> interpolator.process();
+      case 1 -> interpolator.process(ints[0]);
+      case 4 -> interpolator.process(ints[0], ints[1], ints[2], ints[3]);
+      case 16 ->
+          interpolator.process(ints[0], ints[1], ints[2], ints[3], ints[4], ints[5], ints[6],
+              ints[7], ints[8], ints[9], ints[10], ints[11], ints[12], ints[13], ints[14],
+              ints[15]);
+      default -> throw new IllegalStateException("Unsupported variables: " + variables);
+    };
+  }
+
+  private String unboxedObject() {
+    return switch (variables) {
+      case 0 -> interpolator.process();
+      case 1 -> interpolator.process(strings[0]);
+      case 4 -> interpolator.process(strings[0], strings[1], strings[2], strings[3]);
+      case 16 ->
+          interpolator.process(strings[0], strings[1], strings[2], strings[3], strings[4],
+              strings[5], strings[6], strings[7], strings[8], strings[9], strings[10], strings[11],
+              strings[12], strings[13], strings[14], strings[15]);
+      default -> throw new IllegalStateException("Unsupported variables: " + variables);
+    };
+  }
+}
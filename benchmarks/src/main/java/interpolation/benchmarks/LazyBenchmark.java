@@ -0,0 +1,88 @@
+package interpolation.benchmarks;
+
+import interpolation.Interpolator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures a log statement, enabled or disabled, whose message is rendered eagerly by
+ * {@code process}, what {@code str()} call sites do, or deferred by {@code defer}.
+ * {@link #guarded()} is the hand-written
+ * {@code if (log.isEnabled())} baseline.
+ *
+ * <p>The template has a {@code String} and an {@code int} variable. Scores are nanoseconds per
+ * statement. With {@code -prof gc}, {@code gc.alloc.rate.norm} of {@link #deferred()} when disabled
+ * shows whether the JIT scalar-replaced the {@code Deferred} and its values array.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LazyBenchmark {
+
+  @Param({"false", "true"})
+  public boolean enabled;
+
+  private Interpolator interpolator;
+  private Log log;
+  private String user;
+  private int elapsed;
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    interpolator = new Interpolator(new String[] {"Handled ", " in ", " ms"});
+    log = new Log(enabled, blackhole);
+    user = "alice";
+    elapsed = 1234;
+  }
+
+  @Benchmark
+  public void eager() {
+    log.debug(interpolator.process(user, elapsed));
+  }
+
+  @Benchmark
+  public void deferred() {
+    log.debug(interpolator.defer(user, elapsed));
+  }
+
+  @Benchmark
+  public void guarded() {
+    if (log.enabled) {
+      log.debug(interpolator.process(user, elapsed));
+    }
+  }
+
+  /**
+   * A logger reduced to its level check, writing enabled messages to a blackhole.
+   */
+  static final class Log {
+
+    final boolean enabled;
+    private final Blackhole sink;
+
+    Log(boolean enabled, Blackhole sink) {
+      this.enabled = enabled;
+      this.sink = sink;
+    }
+
+    void debug(Object message) {
+      if (enabled) {
+        sink.consume(message.toString());
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package interpolation.benchmarks;
+
+import interpolation.Interpolator;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading a property path for {@code "${user.name} lives in ${user.address?.city}"}:
+ * <ul>
+ *   <li>{@link #direct()} - the accessor calls a resolved path stands for, with the null check
+ *       of the {@code ?.} step</li>
+ *   <li>{@link #reflective()} - the same accessors looked up once and called through
+ *       {@link Method#invoke}, as a runtime expression evaluator would</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropertyPathBenchmark {
+
+  /**
+   * The {@code address} property of a user.
+   *
+   * @param city the city
+   */
+  public record Address(String city) {
+  }
+
+  /**
+   * A template variable with nested properties.
+   *
+   * @param name the name
+   * @param address the address, possibly {@code null}
+   */
+  public record User(String name, Address address) {
+  }
+
+  private Interpolator interpolator;
+  private User user;
+  private Method name;
+  private Method address;
+  private Method city;
+
+  @Setup
+  public void setup() throws ReflectiveOperationException {
+    interpolator = new Interpolator(new String[] {"", " lives in ", ""});
+    user = new User("alice", new Address("Kyiv"));
+    name = User.class.getMethod("name");
+    address = User.class.getMethod("address");
+    city = Address.class.getMethod("city");
+    if (!direct().equals(reflective())) {
+      throw new IllegalStateException("Paths differ");
+    }
+  }
+
+  @Benchmark
+  public String direct() {
+    final Address value = user.address();
+    return interpolator.process(user.name(), value == null ? null : value.city());
+  }
+
+  @Benchmark
+  public String reflective() throws ReflectiveOperationException {
+    final Object value = address.invoke(user);
+    return interpolator.process(name.invoke(user), value == null ? null : city.invoke(value));
+  }
+}
@@ -0,0 +1,100 @@
+package interpolation.benchmarks;
+
+import interpolation.Interpolator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rendering a message template loaded at runtime,
+ * {@code "Dear ${customer}, your order ${order} ships on ${date}"}:
+ * <ul>
+ *   <li>{@link #regex()} - {@code ${name}} substituted from a {@code Map} with a regex on every
+ *       call, the usual fallback for templates from configuration</li>
+ *   <li>{@link #compileAndRenderMap()} - {@link Interpolator#compile(String)} on every call, a
+ *       cache hit, then {@code render(Map)}</li>
+ *   <li>{@link #renderMap()}, {@link #renderRecord()} and {@link #processPositional()} - an
+ *       interpolator compiled once, values bound by name from a {@code Map} or a record, or by
+ *       position</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RuntimeTemplateBenchmark {
+
+  private static final Pattern VARIABLE = Pattern.compile("\\$\\{(\\w+)}");
+
+  /**
+   * The values of the message.
+   *
+   * @param customer the customer name
+   * @param order the order number
+   * @param date the shipping date
+   */
+  public record Message(String customer, int order, String date) {
+  }
+
+  private String template;
+  private Interpolator interpolator;
+  private Map<String, Object> map;
+  private Message message;
+
+  @Setup
+  public void setup() {
+    template = "Dear ${customer}, your order ${order} ships on ${date}";
+    interpolator = Interpolator.compile(template);
+    map = Map.of("customer", "Olena Kovalenko", "order", 1_048_576, "date", "2024-03-01");
+    message = new Message("Olena Kovalenko", 1_048_576, "2024-03-01");
+    final String expected = regex();
+    if (!expected.equals(renderMap()) || !expected.equals(renderRecord())
+        || !expected.equals(processPositional())) {
+      throw new IllegalStateException("Renderings differ");
+    }
+  }
+
+  @Benchmark
+  public String regex() {
+    final Matcher matcher = VARIABLE.matcher(template);
+    final StringBuilder sb = new StringBuilder();
+    while (matcher.find()) {
+      matcher.appendReplacement(sb,
+          Matcher.quoteReplacement(String.valueOf(map.get(matcher.group(1)))));
+    }
+    return matcher.appendTail(sb).toString();
+  }
+
+  @Benchmark
+  public String compileAndRenderMap() {
+    return Interpolator.compile(template).render(map);
+  }
+
+  @Benchmark
+  public String renderMap() {
+    return interpolator.render(map);
+  }
+
+  @Benchmark
+  public String renderRecord() {
+    return interpolator.render(message);
+  }
+
+  @Benchmark
+  public String processPositional() {
+    return interpolator.process(message.customer(), message.order(), message.date());
+  }
+}
@@ -0,0 +1,161 @@
+package interpolation.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a source tree shaped like a large application, for the compile-time measurements of
+ * {@link CompileScalabilityReport}.
+ *
+ * <p>Classes are spread over packages of {@value #CLASSES_PER_PACKAGE}. Each method takes one
+ * parameter per variable, of types cycling through {@code String}, {@code int}, {@code long},
+ * {@code double} and {@code boolean}, and sums the lengths of its {@code str()} results. A share
+ * of the classes has no call site and concatenates the same values with {@code +}, since the
+ * processor sees every compilation unit of the build, not only those calling {@code str()}. The
+ * output only depends on the shape, so runs compile identical trees.
+ */
+final class SyntheticCodebase {
+
+  private static final int CLASSES_PER_PACKAGE = 50;
+  private static final String[] TYPES = {"String", "int", "long", "double", "boolean"};
+  private static final String FILLER = " of the generated message template";
+
+  /**
+   * Shape of a generated tree.
+   *
+   * @param classes number of classes
+   * @param methods methods per class
+   * @param callSites {@code str()} call sites per method
+   * @param templateLength characters of the fragments of each template, at least the generated
+   *     prefix
+   * @param variables variables per template, each a method parameter
+   * @param plainPercent percentage of the classes without call sites
+   */
+  record Shape(int classes, int methods, int callSites, int templateLength, int variables,
+      int plainPercent) {
+
+    /**
+     * Returns the number of {@code str()} call sites in the tree.
+     *
+     * @return the call sites of the classes that have some
+     */
+    long totalCallSites() {
+      return (long) (classes - plainClasses()) * methods * callSites;
+    }
+
+    /**
+     * Returns the number of classes without call sites.
+     *
+     * @return the plain classes
+     */
+    int plainClasses() {
+      int plain = 0;
+      for (int i = 0; i < classes; i++) {
+        if (plain(i)) {
+          plain++;
+        }
+      }
+      return plain;
+    }
+
+    /**
+     * Spreads the plain classes evenly over the tree, one whenever the running share of plain
+     * classes reaches the next whole class.
+     */
+    private boolean plain(int index) {
+      return (long) index * plainPercent / 100 != (long) (index + 1) * plainPercent / 100;
+    }
+  }
+
+  private SyntheticCodebase() {
+    // Utility class
+  }
+
+  /**
+   * Writes the source files of a tree.
+   *
+   * @param root the source root, which must exist
+   * @param shape the shape of the tree
+   * @return the written files
+   * @throws IOException if a file cannot be written
+   */
+  static List<Path> write(Path root, Shape shape) throws IOException {
+    final List<Path> files = new ArrayList<>(shape.classes());
+    for (int i = 0; i < shape.classes(); i++) {
+      final String packageName = "synthetic.p" + i / CLASSES_PER_PACKAGE;
+      final Path directory = root.resolve(packageName.replace('.', '/'));
+      Files.createDirectories(directory);
+      final Path file = directory.resolve("C" + i + ".java");
+      Files.writeString(file, source(packageName, i, shape));
+      files.add(file);
+    }
+    return files;
+  }
+
+  private static String source(String packageName, int index, Shape shape) {
+    final boolean plain = shape.plain(index);
+    final StringBuilder source = new StringBuilder(4096)
+        .append("package ").append(packageName).append(";\n\n");
+    if (!plain) {
+      source.append("import static interpolation.Interpolator.str;\n\n");
+    }
+    source.append("public class C").append(index).append(" {\n");
+    for (int m = 0; m < shape.methods(); m++) {
+      source.append("\n  public int m").append(m).append('(');
+      for (int v = 0; v < shape.variables(); v++) {
+        source.append(v == 0 ? "" : ", ").append(TYPES[v % TYPES.length]).append(" v").append(v);
+      }
+      source.append(") {\n    int length = 0;\n");
+      for (int c = 0; c < shape.callSites(); c++) {
+        final String prefix = "C" + index + ".m" + m + "#" + c;
+        source.append("    length += ")
+            .append(plain ? concatenation(prefix, shape) : template(prefix, shape))
+            .append(".length();\n");
+      }
+      source.append("    return length;\n  }\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  /**
+   * Returns a {@code str()} call whose fragments total about {@code templateLength} characters.
+   */
+  private static String template(String prefix, Shape shape) {
+    final String[] fragments = fragments(prefix, shape);
+    final StringBuilder call = new StringBuilder("str(\"").append(fragments[0]);
+    for (int v = 0; v < shape.variables(); v++) {
+      call.append("${v").append(v).append('}').append(fragments[v + 1]);
+    }
+    return call.append("\")").toString();
+  }
+
+  /**
+   * Returns the concatenation equivalent to {@link #template(String, Shape)}.
+   */
+  private static String concatenation(String prefix, Shape shape) {
+    final String[] fragments = fragments(prefix, shape);
+    final StringBuilder expression = new StringBuilder("(\"").append(fragments[0]).append('"');
+    for (int v = 0; v < shape.variables(); v++) {
+      expression.append(" + v").append(v).append(" + \"").append(fragments[v + 1]).append('"');
+    }
+    return expression.append(')').toString();
+  }
+
+  private static String[] fragments(String prefix, Shape shape) {
+    final String[] fragments = new String[shape.variables() + 1];
+    final int length = Math.max(0, shape.templateLength() - prefix.length() - 1);
+    final int each = length / fragments.length;
+    for (int i = 0; i < fragments.length; i++) {
+      final StringBuilder fragment = new StringBuilder(i == 0 ? prefix + " " : " ");
+      while (fragment.length() < (i == 0 ? prefix.length() + 1 + each : each)) {
+        fragment.append(FILLER);
+      }
+      fragments[i] = fragment.substring(0, Math.max(1,
+          i == 0 ? prefix.length() + 1 + each : each));
+    }
+    return fragments;
+  }
+}
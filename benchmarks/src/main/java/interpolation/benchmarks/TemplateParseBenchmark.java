@@ -0,0 +1,64 @@
+package interpolation.benchmarks;
+
+import interpolation.internal.parser.TemplateScanner;
+import interpolation.parser.TemplateParserWrapper;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the ANTLR parser pipeline of {@link TemplateParserWrapper} with the hand-written
+ * {@link TemplateScanner} on a corpus of templates. Scores are templates parsed per microsecond.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateParseBenchmark {
+
+  private static final int CORPUS_SIZE = 1000;
+
+  private String[] corpus;
+
+  @Setup
+  public void setup() {
+    final Random random = new Random(465);
+    corpus = new String[CORPUS_SIZE];
+    for (int i = 0; i < CORPUS_SIZE; i++) {
+      String template = Templates.template(random.nextInt(8), random.nextBoolean());
+      if (random.nextInt(4) == 0) {
+        template = "Cost: $$${amount} " + template;
+      }
+      corpus[i] = template;
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CORPUS_SIZE)
+  public void antlr(Blackhole blackhole) {
+    for (String template : corpus) {
+      blackhole.consume(TemplateParserWrapper.parse(template));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CORPUS_SIZE)
+  public void scanner(Blackhole blackhole) {
+    for (String template : corpus) {
+      blackhole.consume(TemplateScanner.parse(template));
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package interpolation.benchmarks;
+
+/**
+ * Builds the representative templates measured by the benchmarks.
+ */
+final class Templates {
+
+  private Templates() {
+    // Utility class
+  }
+
+  /**
+   * Builds a template like {@code "v0=${v0} v1=${v1}."}.
+   *
+   * @param variables number of variables in the template
+   * @param longFragments true for fragments of about 50 characters, false for 4 characters
+   * @return the template text
+   */
+  static String template(int variables, boolean longFragments) {
+    final StringBuilder template = new StringBuilder();
+    for (int i = 0; i < variables; i++) {
+      template.append(fragment(i, longFragments)).append("${v").append(i).append('}');
+    }
+    return template.append(longFragments ? ", end of the longer log line template." : ".")
+        .toString();
+  }
+
+  private static String fragment(int index, boolean longFragments) {
+    if (longFragments) {
+      return " and the value of variable number " + index + " in this line is ";
+    }
+    return " v" + index + "=";
+  }
+}
@@ -0,0 +1,118 @@
+package interpolation.benchmarks;
+
+import interpolation.Interpolator;
+import interpolation.parser.TemplateParserWrapper;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares encoding an interpolated template to UTF-8 through an intermediate {@code String}
+ * ({@code process(...).getBytes(UTF_8)}) with the direct-to-bytes methods of {@link Interpolator}:
+ * <ul>
+ *   <li>{@link #processUtf8()} - a new array of the exact size</li>
+ *   <li>{@link #processUtf8ToArray()} - a reused array, like a pooled one</li>
+ *   <li>{@link #processUtf8ToHeap()} and {@link #processUtf8ToDirect()} - a reused heap or direct
+ *       {@code ByteBuffer}, cleared before each template</li>
+ * </ul>
+ *
+ * <p>Values alternate {@code String}s and {@code int}s, with ASCII or Cyrillic text. With
+ * {@code -prof gc}, {@code gc.alloc.rate.norm} shows the boxed values and varargs array left for
+ * the buffer variants, against the builder, {@code String} and array of {@code getBytes}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Utf8Benchmark {
+
+  @Param({"1", "4", "16"})
+  public int variables;
+
+  @Param({"short", "long"})
+  public String fragments;
+
+  @Param({"ascii", "cyrillic"})
+  public String text;
+
+  private Interpolator interpolator;
+  private String[] strings;
+  private int[] ints;
+  private byte[] pooled;
+  private ByteBuffer heap;
+  private ByteBuffer direct;
+
+  @Setup
+  public void setup() {
+    interpolator = new Interpolator(TemplateParserWrapper
+        .parse(Templates.template(variables, "long".equals(fragments))).fragments());
+    strings = new String[variables];
+    ints = new int[variables];
+    for (int i = 0; i < variables; i++) {
+      strings[i] = ("ascii".equals(text) ? "value" : "значение") + i;
+      ints[i] = 1000 + 37 * i;
+    }
+    pooled = new byte[4096];
+    heap = ByteBuffer.allocate(4096);
+    direct = ByteBuffer.allocateDirect(4096);
+
+    final byte[] expected = getBytes();
+    final byte[] fromHeap = new byte[processUtf8ToHeap().flip().remaining()];
+    heap.get(fromHeap);
+    final byte[] fromDirect = new byte[processUtf8ToDirect().flip().remaining()];
+    direct.get(fromDirect);
+    if (!Arrays.equals(expected, processUtf8())
+        || !Arrays.equals(expected, 0, expected.length, pooled, 0, processUtf8ToArray())
+        || !Arrays.equals(expected, fromHeap) || !Arrays.equals(expected, fromDirect)) {
+      throw new IllegalStateException("Encodings differ for '" + interpolator.process(values())
+          + "'");
+    }
+  }
+
+  @Benchmark
+  public byte[] getBytes() {
+    return interpolator.process(values()).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] processUtf8() {
+    return interpolator.processUtf8(values());
+  }
+
+  @Benchmark
+  public int processUtf8ToArray() {
+    return interpolator.processUtf8To(pooled, 0, values());
+  }
+
+  @Benchmark
+  public ByteBuffer processUtf8ToHeap() {
+    return interpolator.processUtf8To(heap.clear(), values());
+  }
+
+  @Benchmark
+  public ByteBuffer processUtf8ToDirect() {
+    return interpolator.processUtf8To(direct.clear(), values());
+  }
+
+  private Object[] values() {
+    final Object[] values = new Object[variables];
+    for (int i = 0; i < variables; i++) {
+      values[i] = i % 2 == 0 ? strings[i] : Integer.valueOf(ints[i]);
+    }
+    return values;
+  }
+}
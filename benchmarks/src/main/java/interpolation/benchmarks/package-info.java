@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks comparing the interpolation strategies.
+ */
+package interpolation.benchmarks;
@@ -0,0 +1,144 @@
+package interpolation;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free pool of {@link StringBuilder}s reused by {@link Interpolator#process} to build
+ * its result, so a call allocates the resulting {@code String} only, not a builder and its backing
+ * array every time.
+ *
+ * <p>The pool is a fixed array of slots claimed with {@code getAndSet} and refilled with
+ * {@code compareAndSet}, probing a few slots from a start derived from the thread id. Slots are
+ * {@value #STRIDE} references apart, so threads claiming neighbouring slots do not write to the
+ * same cache line. It holds no lock, so a virtual thread never pins its carrier nor parks on it,
+ * and it does not rely on {@code ThreadLocal}, whose per-thread buffers would be created and
+ * dropped with every short-lived virtual thread. When every probed slot is empty, a new builder is
+ * allocated; when every probed slot is full, the builder is left to the garbage collector. The pool
+ * therefore never retains more than its number of slots, whatever the number of threads.
+ *
+ * <p>Builders grown beyond the retained capacity by an occasional large result are not returned,
+ * so they do not pin memory. The size of the pool and the retained capacity are read once from the
+ * {@code interpolation.bufferPool.size} and {@code interpolation.bufferPool.maxRetained} system
+ * properties; a size of {@code 0} disables pooling.
+ *
+ * <p>A builder that held a non-Latin-1 character has inflated its backing array to UTF-16, which it
+ * keeps when reused: later results take twice the bytes to build and are compressed back by
+ * {@code toString()}. Such builders are returned all the same, as telling them apart would take a
+ * pass over every result, and a Latin-1 only workload never inflates one.
+ */
+final class BufferPool {
+
+  /**
+   * Maximum number of slots probed to acquire or release a builder.
+   */
+  private static final int PROBES = 4;
+
+  /**
+   * Distance between two slots in the backing array, in references: a 64-byte cache line with
+   * compressed references, 128 bytes without.
+   */
+  private static final int STRIDE = 16;
+
+  /**
+   * Multiplier spreading consecutive thread ids over the slots, the 32-bit golden ratio.
+   */
+  private static final long SPREAD = 0x9E3779B9L;
+
+  /**
+   * Low bits of the spread thread id dropped, as they vary least between threads.
+   */
+  private static final int SPREAD_SHIFT = 16;
+
+  /**
+   * The pool shared by all interpolators, sized by system properties: by default four slots per
+   * available processor, rounded up to a power of two, up to 256, each retaining up to 8192
+   * characters.
+   */
+  static final BufferPool SHARED = new BufferPool(
+      Integer.getInteger("interpolation.bufferPool.size",
+          Math.min(256, 4 * Runtime.getRuntime().availableProcessors())),
+      Integer.getInteger("interpolation.bufferPool.maxRetained", 8192));
+
+  private final AtomicReferenceArray<StringBuilder> slots;
+  private final int mask;
+  private final int probes;
+  private final int maxRetained;
+
+  /**
+   * Creates a pool.
+   *
+   * @param size number of pooled builders, rounded up to a power of two, {@code 0} to disable
+   *     pooling
+   * @param maxRetained largest capacity of a builder returned to the pool, in characters
+   */
+  BufferPool(int size, int maxRetained) {
+    final int count = size <= 1 ? Math.max(0, size) : Integer.highestOneBit(size - 1) << 1;
+    this.slots = new AtomicReferenceArray<>(count * STRIDE);
+    this.mask = count - 1;
+    this.probes = Math.min(PROBES, count);
+    this.maxRetained = maxRetained;
+  }
+
+  /**
+   * Returns an empty builder, pooled if one is available.
+   *
+   * @param capacity the expected length of the result
+   * @return an empty builder with at least {@code capacity} characters of capacity
+   */
+  StringBuilder acquire(int capacity) {
+    final int start = start();
+    for (int i = 0; i < probes; i++) {
+      final int slot = ((start + i) & mask) * STRIDE;
+      if (slots.getPlain(slot) != null) {
+        final StringBuilder sb = slots.getAndSet(slot, null);
+        if (sb != null) {
+          sb.ensureCapacity(capacity);
+          return sb;
+        }
+      }
+    }
+    return new StringBuilder(capacity);
+  }
+
+  /**
+   * Returns a builder to the pool, unless it grew beyond the retained capacity or the probed slots
+   * are full. The caller must not use the builder afterwards.
+   *
+   * @param sb a builder obtained from {@link #acquire(int)}
+   */
+  void release(StringBuilder sb) {
+    if (sb.capacity() > maxRetained) {
+      return;
+    }
+    sb.setLength(0);
+    final int start = start();
+    for (int i = 0; i < probes; i++) {
+      final int slot = ((start + i) & mask) * STRIDE;
+      if (slots.getPlain(slot) == null && slots.compareAndSet(slot, null, sb)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of builders currently pooled, for tests.
+   *
+   * @return the number of non-empty slots
+   */
+  int pooled() {
+    int pooled = 0;
+    for (int i = 0; i < slots.length(); i += STRIDE) {
+      if (slots.get(i) != null) {
+        pooled++;
+      }
+    }
+    return pooled;
+  }
+
+  /**
+   * Spreads threads over the slots, so concurrent threads mostly probe different ones.
+   */
+  private static int start() {
+    return (int) (Thread.currentThread().threadId() * SPREAD >>> SPREAD_SHIFT);
+  }
+}
@@ -0,0 +1,110 @@
+package interpolation;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Column sources of the bulk rendering methods of {@link Interpolator}, such as
+ * {@link Interpolator#processColumns(StringBuilder, int, Object...)}.
+ *
+ * <p>Each column is resolved once, before the row loop, into a {@link Column} that appends the
+ * value of a row: primitive arrays without boxing unless the column has a format, {@code Object}
+ * arrays and lists through the same conversions as {@code process}. The loop then does no type
+ * dispatch per value.
+ */
+final class Columns {
+
+  private Columns() {
+    // Utility class
+  }
+
+  /**
+   * Appends the value of a row of a column.
+   */
+  @FunctionalInterface
+  interface Column {
+
+    /**
+     * Appends the value of a row.
+     *
+     * @param sb the builder to append to
+     * @param row the row index
+     */
+    void append(StringBuilder sb, int row);
+  }
+
+  /**
+   * Resolves the columns of a bulk rendering.
+   *
+   * @param columns the column sources, one per variable
+   * @param rows the number of rows, which every column must hold at least
+   * @param formats the formats of the variables, {@code null} if none has one
+   * @return the columns
+   * @throws IllegalArgumentException if a column is shorter than {@code rows} or not an array or
+   *     a {@code List}
+   */
+  static Column[] of(Object[] columns, int rows, ValueFormat[] formats) {
+    if (rows < 0) {
+      throw new IllegalArgumentException("Negative number of rows: " + rows);
+    }
+    final Column[] resolved = new Column[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      final ValueFormat format = formats != null && i < formats.length ? formats[i] : null;
+      resolved[i] = format == null ? column(columns[i], i) : formatted(columns[i], i, format);
+      final int length = columns[i] instanceof List<?> list ? list.size()
+          : Array.getLength(columns[i]);
+      if (length < rows) {
+        throw new IllegalArgumentException(
+            "Column " + i + " has " + length + " values, expected " + rows);
+      }
+    }
+    return resolved;
+  }
+
+  private static Column column(Object source, int index) {
+    if (source instanceof Object[] values) {
+      return (sb, row) -> Interpolator.append(sb, values[row]);
+    } else if (source instanceof int[] values) {
+      return (sb, row) -> sb.append(values[row]);
+    } else if (source instanceof long[] values) {
+      return (sb, row) -> sb.append(values[row]);
+    } else if (source instanceof double[] values) {
+      return (sb, row) -> sb.append(values[row]);
+    } else if (source instanceof float[] values) {
+      return (sb, row) -> sb.append(values[row]);
+    } else if (source instanceof boolean[] values) {
+      return (sb, row) -> sb.append(values[row]);
+    } else if (source instanceof char[] values) {
+      return (sb, row) -> sb.append(values[row]);
+    } else if (source instanceof short[] values) {
+      return (sb, row) -> sb.append(values[row]);
+    } else if (source instanceof byte[] values) {
+      return (sb, row) -> sb.append(values[row]);
+    } else if (source instanceof List<?> values) {
+      final List<?> list =
+          values instanceof RandomAccess ? values : Arrays.asList(values.toArray());
+      return (sb, row) -> Interpolator.append(sb, list.get(row));
+    }
+    throw unsupported(source, index);
+  }
+
+  private static Column formatted(Object source, int index, ValueFormat format) {
+    if (source instanceof Object[] values) {
+      return (sb, row) -> format.format(sb, values[row]);
+    } else if (source instanceof List<?> values) {
+      final Object[] array = values.toArray();
+      return (sb, row) -> format.format(sb, array[row]);
+    } else if (source != null && source.getClass().isArray()) {
+      return (sb, row) -> format.format(sb, Array.get(source, row));
+    }
+    throw unsupported(source, index);
+  }
+
+  private static IllegalArgumentException unsupported(Object source, int index) {
+    return new IllegalArgumentException("Column " + index + " is "
+        + (source == null ? "null" : "a " + source.getClass().getName())
+        + ", expected an array or a List");
+  }
+}
@@ -0,0 +1,73 @@
+package interpolation;
+
+import java.util.function.Supplier;
+
+/**
+ * An interpolation rendered on first use, returned by {@link Interpolator#defer(Object...)}.
+ *
+ * <p>Creating one only captures the interpolator and the values, so passing it to a log statement
+ * that turns out to be disabled costs no rendering. When the call site and the logger are inlined
+ * and the object never escapes, the JIT can scalar-replace it with its values array, leaving no
+ * allocation at all. The text is rendered by the first call to {@link #toString()} or
+ * {@link #get()}, or to one of the {@code CharSequence} methods, and kept for the next ones.
+ *
+ * <p>Values are rendered when the text is, so mutable values should not change in between.
+ * Like {@code StringBuilder}, a {@code Deferred} does not override {@code equals} and
+ * {@code hashCode}. Concurrent first uses may render the text more than once, with equal results.
+ */
+public final class Deferred implements CharSequence, Supplier<String> {
+
+  private final Interpolator interpolator;
+  private final Object[] values;
+  private String text;
+
+  /**
+   * Creates a new Deferred. The values array is kept, not copied.
+   *
+   * @param interpolator the interpolator of the call site
+   * @param values the variable values, in template order
+   */
+  Deferred(Interpolator interpolator, Object[] values) {
+    this.interpolator = interpolator;
+    this.values = values;
+  }
+
+  /**
+   * Returns the interpolated text, rendering it on the first call.
+   *
+   * @return the interpolated text
+   */
+  @Override
+  public String toString() {
+    String text = this.text;
+    if (text == null) {
+      this.text = text = interpolator.process(values);
+    }
+    return text;
+  }
+
+  /**
+   * Returns the interpolated text, rendering it on the first call.
+   *
+   * @return the interpolated text
+   */
+  @Override
+  public String get() {
+    return toString();
+  }
+
+  @Override
+  public int length() {
+    return toString().length();
+  }
+
+  @Override
+  public char charAt(int index) {
+    return toString().charAt(index);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return toString().subSequence(start, end);
+  }
+}
@@ -0,0 +1,210 @@
+package interpolation;
+
+/**
+ * Escaping of values for the {@code json}, {@code html} and {@code csv} format specifiers.
+ *
+ * <p>Values are scanned a word at a time: four characters are packed in the 16-bit lanes of a
+ * {@code long}, and a few SWAR operations tell whether any lane holds a character to escape, with
+ * one branch per four characters instead of one per character. Runs without such characters are
+ * appended with a single bulk {@code append(CharSequence, int, int)}, so values that need no
+ * escaping, the common case, are copied once, as without escaping.
+ *
+ * <p>Only values are escaped: fragments are the template's own markup, checked at compile time
+ * by the annotation processor, and constant variables are escaped when they are folded into
+ * fragments.
+ */
+enum Escaping {
+
+  /**
+   * Content of a JSON string: {@code "} and {@code \} are escaped with a backslash, control
+   * characters with their short escape or {@code \}{@code u00XX}.
+   */
+  JSON {
+    @Override
+    long matches(long word) {
+      return equal(word, '"') | equal(word, '\\') | less(word, 0x20);
+    }
+
+    @Override
+    boolean matches(char c) {
+      return c == '"' || c == '\\' || c < 0x20;
+    }
+
+    @Override
+    void escape(StringBuilder sb, char c) {
+      switch (c) {
+        case '"' -> sb.append("\\\"");
+        case '\\' -> sb.append("\\\\");
+        case '\n' -> sb.append("\\n");
+        case '\r' -> sb.append("\\r");
+        case '\t' -> sb.append("\\t");
+        case '\b' -> sb.append("\\b");
+        case '\f' -> sb.append("\\f");
+        default -> sb.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+      }
+    }
+  },
+
+  /**
+   * HTML text or quoted attribute value: {@code & < > " '} are escaped as character references.
+   */
+  HTML {
+    @Override
+    long matches(long word) {
+      return equal(word, '&') | equal(word, '<') | equal(word, '>') | equal(word, '"')
+          | equal(word, '\'');
+    }
+
+    @Override
+    boolean matches(char c) {
+      return c == '&' || c == '<' || c == '>' || c == '"' || c == '\'';
+    }
+
+    @Override
+    void escape(StringBuilder sb, char c) {
+      sb.append(switch (c) {
+        case '&' -> "&amp;";
+        case '<' -> "&lt;";
+        case '>' -> "&gt;";
+        case '"' -> "&quot;";
+        default -> "&#39;";
+      });
+    }
+  },
+
+  /**
+   * RFC 4180 field: a value holding {@code , " CR} or {@code LF} is quoted, with {@code "}
+   * doubled.
+   */
+  CSV {
+    @Override
+    long matches(long word) {
+      return equal(word, ',') | equal(word, '"') | equal(word, '\n') | equal(word, '\r');
+    }
+
+    @Override
+    boolean matches(char c) {
+      return c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+
+    @Override
+    void escape(StringBuilder sb, char c) {
+      sb.append(c);
+      if (c == '"') {
+        sb.append('"');
+      }
+    }
+
+    @Override
+    void escape(StringBuilder sb, CharSequence value) {
+      if (scan(value, 0) == value.length()) {
+        sb.append(value);
+      } else {
+        super.escape(sb.append('"'), value);
+        sb.append('"');
+      }
+    }
+  };
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final long ONES = 0x0001_0001_0001_0001L;
+  private static final long HIGHS = 0x8000_8000_8000_8000L;
+
+  /**
+   * Returns the escaping of a format specifier.
+   *
+   * @param specifier the specifier
+   * @return the escaping, {@code null} if the specifier is not an escaping one
+   */
+  static Escaping of(String specifier) {
+    return switch (specifier) {
+      case "json" -> JSON;
+      case "html" -> HTML;
+      case "csv" -> CSV;
+      default -> null;
+    };
+  }
+
+  /**
+   * Tells whether any of the four characters packed in a word must be escaped.
+   *
+   * @param word four characters, the first in the low lane
+   * @return non-zero if a character must be escaped
+   */
+  abstract long matches(long word);
+
+  /**
+   * Tells whether a character must be escaped.
+   *
+   * @param c the character
+   * @return true if the character must be escaped
+   */
+  abstract boolean matches(char c);
+
+  /**
+   * Appends the escape of a character {@link #matches(char)} accepts.
+   *
+   * @param sb the builder to append to
+   * @param c the character
+   */
+  abstract void escape(StringBuilder sb, char c);
+
+  /**
+   * Appends an escaped value, copying the runs between characters to escape in bulk.
+   *
+   * @param sb the builder to append to
+   * @param value the value
+   */
+  void escape(StringBuilder sb, CharSequence value) {
+    final int length = value.length();
+    int run = 0;
+    for (int i = scan(value, 0); i < length; i = scan(value, run)) {
+      sb.append(value, run, i);
+      escape(sb, value.charAt(i));
+      run = i + 1;
+    }
+    sb.append(value, run, length);
+  }
+
+  /**
+   * Returns the index of the first character to escape from an index, four characters at a time.
+   *
+   * @param value the value
+   * @param from the index to scan from
+   * @return the index of the first character to escape, or the length of the value if none
+   */
+  int scan(CharSequence value, int from) {
+    final int length = value.length();
+    int i = from;
+    for (; i + 4 <= length; i += 4) {
+      final long word = value.charAt(i) | (long) value.charAt(i + 1) << 16
+          | (long) value.charAt(i + 2) << 32 | (long) value.charAt(i + 3) << 48;
+      if (matches(word) != 0) {
+        break;
+      }
+    }
+    for (; i < length; i++) {
+      if (matches(value.charAt(i))) {
+        return i;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Flags the lanes equal to a character: the classic test for a zero lane, on the word XOR the
+   * character in every lane. Exact on whether any lane matches.
+   */
+  private static long equal(long word, char c) {
+    final long x = word ^ (ONES * c);
+    return (x - ONES) & ~x & HIGHS;
+  }
+
+  /**
+   * Flags the lanes less than {@code n}, for {@code n} up to {@code 0x8000}. Exact on whether any
+   * lane matches.
+   */
+  private static long less(long word, int n) {
+    return (word - ONES * n) & ~word & HIGHS;
+  }
+}
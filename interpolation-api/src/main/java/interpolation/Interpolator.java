@@ -1,13 +1,178 @@
 package interpolation;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
 /**
- * Immutable record holding parsed template data. Instances are created at compile-time and cached
- * in bytecode.
+ * Immutable holder of parsed template data. Instances are created at compile-time and cached in
+ * bytecode.
+ *
+ * <p>The total length of the fragments is computed once per instance, and each call remembers how
+ * many characters the values took, so {@link #process(Object...)} allocates its buffer once at the
+ * right size for the typical call. Fragments and values are appended as {@code String}s and
+ * primitives, which keeps the buffer in the compact Latin-1 representation as long as the template
+ * and the values are Latin-1 only. The buffers are {@code StringBuilder}s reused from a bounded
+ * lock-free pool shared by all interpolators, safe on platform and virtual threads, so a call
+ * allocates its resulting {@code String} only.
+ *
+ * <p>Besides {@link #process(Object...)}, {@code process} is overloaded for templates with no
+ * variable or one, of {@code Object} or any primitive type. The annotation processor calls the
+ * overload matching the variable type of the call site, so a primitive is appended without boxing
+ * and no varargs array is allocated. {@code byte} and {@code short} use the {@code int} overload.
+ * Call sites with more variables use {@link #process(Object...)}.
+ *
+ * <p>{@link #processTo(StringBuilder, Object...)} and {@link #processTo(Appendable, Object...)}
+ * append the fragments and values straight to the caller's builder or writer, without building
+ * and copying an intermediate {@code String}.
+ *
+ * <p>{@link #processUtf8(Object...)} and {@link #processUtf8To(ByteBuffer, Object...)} produce
+ * UTF-8 bytes directly. They copy fragments encoded once per interpolator and encode only the
+ * values, into an array of the exact size or a caller's heap or direct buffer, instead of building
+ * a {@code String} and encoding all of it again.
+ *
+ * <p>{@link #defer(Object...)} only captures the values in a {@link Deferred} rendered on first
+ * use, for log statements that are usually disabled.
+ *
+ * <p>Variables with a format specifier, such as {@code ${amount:%.2f}}, are formatted by the
+ * {@link ValueFormat} parsed once when the interpolator is created, instead of parsing the
+ * specifier on every call like {@code String.format}. The annotation processor checks each
+ * specifier against the type of its variable at compile time. The unboxed overloads of
+ * {@code process} apply the formats too, boxing the values of formatted interpolators only, so
+ * {@code Interpolator.compile("<b>${name:html}</b>").process(name)} escapes {@code name}.
+ *
+ * <p>Every method taking values or columns, except {@link #process(Object...)}, throws
+ * {@code IllegalArgumentException} when called with fewer or more of them than the template has
+ * variables. {@link #process(Object...)} keeps its original lenient behaviour: values beyond the
+ * variables are ignored, and variables without a value are left out.
+ *
+ * <p>{@link #compile(String)} parses templates known only at runtime, such as message templates
+ * from configuration, into interpolators cached by {@link TemplateCompiler}. They keep their
+ * variable names, and render values bound by name with {@link #render(Map)} and
+ * {@link #render(Record)}, or by position with {@link #process(Object...)}.
+ *
+ * <p>{@link #processColumns(StringBuilder, int, Object...)} renders many rows of values, given as
+ * one array or list per variable, into a single buffer sized once for all of them: column types
+ * are resolved before the row loop, primitive arrays are appended without boxing, and the last
+ * fragment of a row and the first of the next are appended as one. Large row counts can be split
+ * across the common {@link ForkJoinPool} with {@link #processColumnsParallel(int, Object...)},
+ * whose chunks are concatenated in row order.
  */
-public record Interpolator(
-  String[] fragments /** Template split by variables: ["Hello ", ", you have ", " items"] */,
-  VarInfo[] varInfos /** Compile-time metadata records */
-) {
+public final class Interpolator {
+
+  private static final VarInfo[] NO_VAR_INFOS = new VarInfo[0];
+
+  // Characters rendered by processColumns(Appendable, ...) between two appends to the target
+  private static final int FLUSH_SIZE = 4096;
+
+  // Fewest rows rendered by a task of processColumnsParallel, below which it is not worth a fork
+  private static final int PARALLEL_CHUNK = 1024;
+
+  // Largest capacity requested for a builder, the longest array most JVMs allocate
+  private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+
+  // Template split by variables: ["Hello ", ", you have ", " items"]
+  private final String[] fragments;
+  private final VarInfo[] varInfos; // Variable names of compiled templates, empty otherwise
+  private final int fragmentsLength; // Total length of all fragments
+  private final ValueFormat[] formats; // Formats of the variables, null if none has a specifier
+
+  // Length of the values of the last call, sizes the next buffer. Races are harmless: any value is
+  // a valid estimate.
+  private int valuesLength;
+
+  // Fragments encoded to UTF-8 on first use. Races are harmless: each thread encodes equal bytes.
+  private Utf8Fragments utf8;
+
+  // Accessors of the last record type rendered by render(Record). Races only cost a lookup.
+  private RecordAccessors recordAccessors;
+
+  /**
+   * Creates an interpolator for a parsed template.
+   *
+   * @param fragments template split by variables, one more than the variables
+   */
+  public Interpolator(String[] fragments) {
+    this(fragments, NO_VAR_INFOS, null);
+  }
+
+  /**
+   * Creates an interpolator for a parsed template with format specifiers, parsing each specifier
+   * once.
+   *
+   * @param fragments template split by variables, one more than the variables
+   * @param formats format specifiers of the variables, {@code null} or empty for none; the array
+   *     itself may be {@code null}
+   * @throws IllegalArgumentException if a specifier is not supported by {@link ValueFormat}
+   */
+  public Interpolator(String[] fragments, String[] formats) {
+    this(fragments, NO_VAR_INFOS, formats);
+  }
+
+  /**
+   * Creates an interpolator for a template compiled at runtime, keeping its variable names.
+   *
+   * @param fragments template split by variables, one more than the variables
+   * @param varInfos the variables, named like in the template
+   * @param formats format specifiers of the variables, {@code null} or empty for none
+   * @throws IllegalArgumentException if a specifier is not supported by {@link ValueFormat}
+   */
+  Interpolator(String[] fragments, VarInfo[] varInfos, String[] formats) {
+    this.fragments = fragments;
+    this.varInfos = varInfos;
+    int length = 0;
+    for (String fragment : fragments) {
+      length += fragment.length();
+    }
+    this.fragmentsLength = length;
+    this.formats = formats(formats);
+  }
+
+  /**
+   * Returns the template fragments.
+   *
+   * @return the fragments
+   */
+  public String[] fragments() {
+    return fragments;
+  }
+
+  /**
+   * Returns the format specifiers of the variables.
+   *
+   * @return the specifiers, {@code null} for variables without one, or an empty array if none has
+   */
+  public String[] formats() {
+    if (formats == null) {
+      return new String[0];
+    }
+    final String[] specifiers = new String[formats.length];
+    for (int i = 0; i < formats.length; i++) {
+      specifiers[i] = formats[i] == null ? null : formats[i].specifier();
+    }
+    return specifiers;
+  }
+
+  /**
+   * Returns the variables of a template compiled at runtime.
+   *
+   * @return the variables, empty unless the interpolator was created by {@link #compile(String)}
+   */
+  VarInfo[] varInfos() {
+    return varInfos;
+  }
+
   /**
    * Placeholder method - replaced by annotation processor. Never actually called at runtime.
    */
@@ -17,16 +182,623 @@ public record Interpolator(
   }
 
   /**
-   * Runtime interpolation method. Combines fragments with provided values.
+   * Compiles a template known only at runtime, such as one loaded from configuration, into an
+   * interpolator cached by template text. Unlike {@link #str(String)}, the template need not be a
+   * literal, and is parsed when first compiled instead of at compile time.
+   *
+   * @param template the template
+   * @return the cached interpolator of the template, with its variable names
+   * @throws IllegalArgumentException if the template is malformed, has an unsupported format
+   *     specifier or a misplaced escaped variable
+   * @see TemplateCompiler
+   */
+  public static Interpolator compile(String template) {
+    return TemplateCompiler.SHARED.compile(template);
+  }
+
+  /**
+   * Returns the statistics of the cache behind {@link #compile(String)}.
+   *
+   * @return a snapshot of the hits, misses and evictions
+   */
+  public static TemplateCompiler.Stats compilerStats() {
+    return TemplateCompiler.SHARED.stats();
+  }
+
+  /**
+   * Renders the template with values bound by variable name. A property path such as
+   * {@code ${app.name}} is looked up as a single key, {@code "app.name"}.
+   *
+   * @param values the values by variable name; a key mapped to {@code null} renders
+   *     {@code "null"}
+   * @return the interpolated string
+   * @throws IllegalArgumentException if a variable has no key in {@code values}
+   * @throws IllegalStateException if the interpolator has no variable names
+   */
+  public String render(Map<String, ?> values) {
+    final Object[] bound = new Object[fragments.length - 1];
+    for (int i = 0; i < bound.length; i++) {
+      final String name = name(i);
+      bound[i] = values.get(name);
+      if (bound[i] == null && !values.containsKey(name)) {
+        throw new IllegalArgumentException("No value for variable '" + name + "'");
+      }
+    }
+    return process(bound);
+  }
+
+  /**
+   * Renders the template with the components of a record bound by variable name. The component
+   * accessors are looked up once per record type and called through method handles.
+   *
+   * @param values the record whose components are named like the variables
+   * @return the interpolated string
+   * @throws IllegalArgumentException if a variable is not a component of the record, or the
+   *     components are not accessible
+   * @throws IllegalStateException if the interpolator has no variable names
+   */
+  public String render(Record values) {
+    RecordAccessors accessors = this.recordAccessors;
+    if (accessors == null || accessors.type() != values.getClass()) {
+      this.recordAccessors = accessors = recordAccessors(values.getClass());
+    }
+    final Object[] bound = new Object[accessors.handles().length];
+    try {
+      for (int i = 0; i < bound.length; i++) {
+        bound[i] = (Object) accessors.handles()[i].invokeExact((Object) values);
+      }
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new UndeclaredThrowableException(e);
+    }
+    return process(bound);
+  }
+
+  /**
+   * Runtime interpolation method. Combines fragments with provided values. Values beyond the
+   * variables of the template are ignored, and variables without a value are left out.
    */
   public String process(Object... values) {
-    final StringBuilder sb = new StringBuilder();
+    final int count = Math.min(values.length, fragments.length - 1);
+    final StringBuilder sb = open();
+    for (int i = 0; i < count; i++) {
+      append(sb, i, values[i]).append(fragments[i + 1]);
+    }
+    return end(sb, count + 1);
+  }
+
+  /**
+   * Runtime deferred interpolation method. Captures the values without rendering them. Kept small
+   * enough to be inlined into the call site, so the result can be scalar-replaced when unused.
+   *
+   * @param values the variable values, in template order, kept as is
+   * @return the interpolation, rendered by its first {@code toString()}
+   */
+  public Deferred defer(Object... values) {
+    checkArity(values.length);
+    return new Deferred(this, values);
+  }
+
+  /**
+   * Runtime streaming interpolation method. Appends fragments and values to a builder, growing it
+   * once to fit the typical call.
+   *
+   * @param sb the builder to append to
+   * @param values the variable values, in template order
+   * @return {@code sb}
+   */
+  public StringBuilder processTo(StringBuilder sb, Object... values) {
+    checkArity(values.length);
+    final int start = sb.length();
+    sb.ensureCapacity(start + fragmentsLength + valuesLength);
+    sb.append(fragments[0]);
+    for (int i = 0; i < values.length; i++) {
+      append(sb, i, values[i]).append(fragments[i + 1]);
+    }
+    valuesLength = sb.length() - start - fragmentsLength;
+    return sb;
+  }
+
+  /**
+   * Runtime streaming interpolation method. Appends fragments and values to any
+   * {@code Appendable}, passing {@code String} and {@code CharSequence} values through as they
+   * are, so a {@code Writer} copies them once, into its own buffer.
+   *
+   * @param out the target to append to
+   * @param values the variable values, in template order
+   * @param <A> the type of the target
+   * @return {@code out}
+   * @throws IOException if {@code out} fails to append
+   */
+  public <A extends Appendable> A processTo(A out, Object... values) throws IOException {
+    if (out instanceof StringBuilder sb) {
+      processTo(sb, values);
+      return out;
+    }
+    checkArity(values.length);
     for (int i = 0; i < fragments.length; i++) {
-      sb.append(fragments[i]);
+      if (!fragments[i].isEmpty()) {
+        out.append(fragments[i]);
+      }
       if (i < values.length) {
-        sb.append(values[i]);
+        if (format(i) != null) {
+          out.append(format(i).format(values[i]));
+        } else {
+          append(out, values[i]);
+        }
       }
     }
+    return out;
+  }
+
+  /**
+   * Bulk interpolation method. Appends one interpolation per row to a builder, growing it once
+   * for all the rows, with the values of each variable taken from a column.
+   *
+   * <p>A column is an array, of objects or of a primitive type, or a {@code List}, holding at
+   * least {@code rows} values. Values are converted as by {@link #process(Object...)}, including
+   * their formats, and primitive arrays of unformatted variables are appended without boxing.
+   *
+   * @param sb the builder to append to
+   * @param rows the number of rows to render
+   * @param columns the columns, one per variable, in template order
+   * @return {@code sb}
+   * @throws IllegalArgumentException if the number of columns does not match the variables, a
+   *     column is not an array or a {@code List}, or it holds fewer than {@code rows} values
+   */
+  public StringBuilder processColumns(StringBuilder sb, int rows, Object... columns) {
+    return appendSizedRows(sb, columns(columns, rows), 0, rows);
+  }
+
+  /**
+   * Bulk streaming interpolation method. Renders rows as
+   * {@link #processColumns(StringBuilder, int, Object...)} does, in batches of about
+   * {@value #FLUSH_SIZE} characters into a pooled builder, each appended to {@code out} at once, so
+   * a {@code Writer} sees a few large writes and the rows are never held in memory together.
+   *
+   * @param out the target to append to
+   * @param rows the number of rows to render
+   * @param columns the columns, one per variable, in template order
+   * @param <A> the type of the target
+   * @return {@code out}
+   * @throws IOException if {@code out} fails to append
+   * @throws IllegalArgumentException if the columns do not match the template or {@code rows}
+   */
+  public <A extends Appendable> A processColumns(A out, int rows, Object... columns)
+      throws IOException {
+    if (out instanceof StringBuilder sb) {
+      processColumns(sb, rows, columns);
+      return out;
+    }
+    final Columns.Column[] resolved = columns(columns, rows);
+    final StringBuilder sb = BufferPool.SHARED.acquire(FLUSH_SIZE + fragmentsLength);
+    // The first row, flushed with the first batch, tells how many rows a batch takes
+    appendRows(sb, resolved, 0, Math.min(1, rows));
+    final int batch = Math.max(1, FLUSH_SIZE / Math.max(1, sb.length()));
+    for (int from = 1; from < rows; from += batch) {
+      appendRows(sb, resolved, from, Math.min(rows, from + batch));
+      out.append(sb);
+      sb.setLength(0);
+    }
+    if (rows == 1) {
+      out.append(sb);
+    }
+    BufferPool.SHARED.release(sb);
+    return out;
+  }
+
+  /**
+   * Bulk interpolation method for rows of values. Appends one interpolation per row to a builder,
+   * as {@link #processTo(StringBuilder, Object...)} does for each.
+   *
+   * @param sb the builder to append to
+   * @param rows the variable values of each row, in template order
+   * @return {@code sb}
+   */
+  public StringBuilder processRows(StringBuilder sb, Iterable<? extends Object[]> rows) {
+    for (Object[] values : rows) {
+      processTo(sb, values);
+    }
+    return sb;
+  }
+
+  /**
+   * Parallel bulk interpolation method. Renders rows as
+   * {@link #processColumns(StringBuilder, int, Object...)} does, split into chunks of at least
+   * {@value #PARALLEL_CHUNK} rows rendered by the common {@link ForkJoinPool}, then appended in row
+   * order to one builder sized for all of them. Fewer rows are rendered on the calling thread.
+   *
+   * <p>Columns must not be modified during the call. Values are converted concurrently, so their
+   * {@code toString()} must be safe to call from several threads.
+   *
+   * @param rows the number of rows to render
+   * @param columns the columns, one per variable, in template order
+   * @return the interpolations of all the rows, in row order
+   * @throws IllegalArgumentException if the columns do not match the template or {@code rows}
+   */
+  public String processColumnsParallel(int rows, Object... columns) {
+    final Columns.Column[] resolved = columns(columns, rows);
+    final int tasks = 4 * ForkJoinPool.getCommonPoolParallelism();
+    final int chunk = Math.max(PARALLEL_CHUNK, (int) ((rows + (long) tasks - 1) / tasks));
+    final int chunks = (int) ((rows + (long) chunk - 1) / chunk);
+    if (chunks <= 1) {
+      final StringBuilder sb =
+          appendSizedRows(BufferPool.SHARED.acquire(fragmentsLength), resolved, 0, rows);
+      final String result = sb.toString();
+      BufferPool.SHARED.release(sb);
+      return result;
+    }
+    final StringBuilder[] parts = new StringBuilder[chunks];
+    IntStream.range(0, chunks).parallel().forEach(c -> {
+      final int from = c * chunk;
+      final int to = Math.min(rows, from + chunk);
+      parts[c] = appendSizedRows(new StringBuilder(fragmentsLength), resolved, from, to);
+    });
+    long length = 0;
+    for (StringBuilder part : parts) {
+      length += part.length();
+    }
+    final StringBuilder sb = new StringBuilder((int) Math.min(MAX_LENGTH, length));
+    for (StringBuilder part : parts) {
+      sb.append(part);
+    }
     return sb.toString();
   }
+
+  /**
+   * Runtime UTF-8 interpolation method. Encodes the values into an array of the exact size,
+   * together with the fragments, encoded once per interpolator.
+   *
+   * @param values the variable values, in template order
+   * @return the interpolated string encoded in UTF-8
+   */
+  public byte[] processUtf8(Object... values) {
+    final int count = checkArity(values.length);
+    final Object[] encodable = Utf8.encodable(values, count, formats);
+    final byte[] bytes = new byte[utf8Length(encodable, count)];
+    encodeUtf8(ByteBuffer.wrap(bytes), 0, encodable, count);
+    return bytes;
+  }
+
+  /**
+   * Runtime UTF-8 interpolation method. Encodes fragments and values into a caller's array, such
+   * as a pooled one.
+   *
+   * @param dst the array to write to
+   * @param offset the index of the first byte to write
+   * @param values the variable values, in template order
+   * @return the number of bytes written
+   * @throws IndexOutOfBoundsException if the bytes do not fit, in which case none is written
+   */
+  public int processUtf8To(byte[] dst, int offset, Object... values) {
+    final int count = checkArity(values.length);
+    final Object[] encodable = Utf8.encodable(values, count, formats);
+    final int length = utf8Length(encodable, count);
+    Objects.checkFromIndexSize(offset, length, dst.length);
+    encodeUtf8(ByteBuffer.wrap(dst), offset, encodable, count);
+    return length;
+  }
+
+  /**
+   * Runtime UTF-8 interpolation method. Encodes fragments and values into a caller's buffer at its
+   * position, which then moves past the written bytes. Direct buffers are written in place, so the
+   * result can go to an NIO channel without another copy.
+   *
+   * @param dst the buffer to write to
+   * @param values the variable values, in template order
+   * @return {@code dst}
+   * @throws BufferOverflowException if the bytes do not fit in the remaining space, in which case
+   *     none is written and the position is unchanged
+   */
+  public ByteBuffer processUtf8To(ByteBuffer dst, Object... values) {
+    final int count = checkArity(values.length);
+    final Object[] encodable = Utf8.encodable(values, count, formats);
+    if (utf8Length(encodable, count) > dst.remaining()) {
+      throw new BufferOverflowException();
+    }
+    return dst.position(encodeUtf8(dst, dst.position(), encodable, count));
+  }
+
+  /**
+   * Returns the number of bytes {@link #processUtf8} produces for some values, to size a buffer.
+   * Values other than character sequences, boxed primitives and {@code null} are converted with
+   * {@code String.valueOf} to be measured.
+   *
+   * @param values the variable values, in template order
+   * @return the length of the interpolated string encoded in UTF-8
+   */
+  public int utf8Length(Object... values) {
+    final int count = checkArity(values.length);
+    return utf8Length(Utf8.encodable(values, count, formats), count);
+  }
+
+  /**
+   * Unboxed entry point for a template without variables.
+   *
+   * @return the interpolated string
+   */
+  public String process() {
+    checkArity(0);
+    return fragments[0];
+  }
+
+  // Unboxed entry points for templates with one variable
+
+  public String process(Object v0) {
+    return formats != null ? formatted(new Object[] {v0})
+        : end(append(begin(1), v0), 1);
+  }
+
+  public String process(int v0) {
+    return formats != null ? formatted(new Object[] {v0})
+        : end(begin(1).append(v0), 1);
+  }
+
+  public String process(long v0) {
+    return formats != null ? formatted(new Object[] {v0})
+        : end(begin(1).append(v0), 1);
+  }
+
+  public String process(float v0) {
+    return formats != null ? formatted(new Object[] {v0})
+        : end(begin(1).append(v0), 1);
+  }
+
+  public String process(double v0) {
+    return formats != null ? formatted(new Object[] {v0})
+        : end(begin(1).append(v0), 1);
+  }
+
+  public String process(boolean v0) {
+    return formats != null ? formatted(new Object[] {v0})
+        : end(begin(1).append(v0), 1);
+  }
+
+  public String process(char v0) {
+    return formats != null ? formatted(new Object[] {v0})
+        : end(begin(1).append(v0), 1);
+  }
+
+  private String name(int index) {
+    if (varInfos.length != fragments.length - 1) {
+      throw new IllegalStateException(
+          "Variable names are unknown: compile the template with Interpolator.compile()");
+    }
+    return varInfos[index].name();
+  }
+
+  private RecordAccessors recordAccessors(Class<?> type) {
+    final RecordComponent[] components = type.getRecordComponents();
+    final MethodHandle[] handles = new MethodHandle[fragments.length - 1];
+    for (int i = 0; i < handles.length; i++) {
+      final String name = name(i);
+      for (RecordComponent component : components) {
+        if (component.getName().equals(name)) {
+          final Method accessor = component.getAccessor();
+          try {
+            accessor.setAccessible(true);
+            handles[i] = MethodHandles.lookup().unreflect(accessor)
+                .asType(MethodType.methodType(Object.class, Object.class));
+          } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot access component '" + name + "' of "
+                + type.getName() + ": " + e.getMessage(), e);
+          }
+        }
+      }
+      if (handles[i] == null) {
+        throw new IllegalArgumentException(
+            "Record " + type.getName() + " has no component '" + name + "'");
+      }
+    }
+    return new RecordAccessors(type, handles);
+  }
+
+  private static ValueFormat[] formats(String[] specifiers) {
+    ValueFormat[] formats = null;
+    for (int i = 0; specifiers != null && i < specifiers.length; i++) {
+      if (specifiers[i] != null && !specifiers[i].isEmpty()) {
+        if (formats == null) {
+          formats = new ValueFormat[specifiers.length];
+        }
+        formats[i] = ValueFormat.of(specifiers[i]);
+      }
+    }
+    return formats;
+  }
+
+  private ValueFormat format(int index) {
+    return formats != null && index < formats.length ? formats[index] : null;
+  }
+
+  private StringBuilder append(StringBuilder sb, int index, Object value) {
+    final ValueFormat format = format(index);
+    return format == null ? append(sb, value) : format.format(sb, value);
+  }
+
+  /**
+   * Appends the interpolations of rows {@code from} to {@code to}, the last fragment of a row and
+   * the first of the next being appended as one.
+   */
+  private StringBuilder appendRows(StringBuilder sb, Columns.Column[] columns, int from, int to) {
+    final int last = fragments.length - 1;
+    if (last == 0) {
+      for (int row = from; row < to; row++) {
+        sb.append(fragments[0]);
+      }
+      return sb;
+    }
+    if (from >= to) {
+      return sb;
+    }
+    final String between = fragments[last] + fragments[0];
+    sb.append(fragments[0]);
+    for (int row = from; row < to; row++) {
+      columns[0].append(sb, row);
+      for (int i = 1; i < last; i++) {
+        sb.append(fragments[i]);
+        columns[i].append(sb, row);
+      }
+      sb.append(row < to - 1 ? between : fragments[last]);
+    }
+    return sb;
+  }
+
+  /**
+   * Appends the interpolations of rows {@code from} to {@code to} as
+   * {@link #appendRows(StringBuilder, Columns.Column[], int, int)} does, growing the builder once
+   * for all of them from the length of the first.
+   */
+  private StringBuilder appendSizedRows(StringBuilder sb, Columns.Column[] columns, int from,
+      int to) {
+    final int start = sb.length();
+    appendRows(sb, columns, from, Math.min(from + 1, to));
+    sb.ensureCapacity(start + estimate(to - from, sb.length() - start));
+    return appendRows(sb, columns, from + 1, to);
+  }
+
+  /**
+   * Estimates the length of the interpolations of a number of rows from the length of one.
+   */
+  private static int estimate(int rows, int rowLength) {
+    return (int) Math.min(MAX_LENGTH, (long) rows * rowLength);
+  }
+
+  /**
+   * Renders the values of an unboxed overload through the formats of the interpolator.
+   */
+  private String formatted(Object[] values) {
+    checkArity(values.length);
+    return process(values);
+  }
+
+  /**
+   * Checks the number of values or columns of a call against the variables of the template, the
+   * same way for every method.
+   *
+   * @return {@code count}
+   */
+  private int checkArity(int count) {
+    if (count != fragments.length - 1) {
+      throw new IllegalArgumentException(
+          "Expected " + (fragments.length - 1) + " values, got " + count);
+    }
+    return count;
+  }
+
+  private Columns.Column[] columns(Object[] columns, int rows) {
+    checkArity(columns.length);
+    return Columns.of(columns, rows, formats);
+  }
+
+  private StringBuilder begin(int count) {
+    checkArity(count);
+    return open();
+  }
+
+  private StringBuilder open() {
+    return BufferPool.SHARED.acquire(fragmentsLength + valuesLength).append(fragments[0]);
+  }
+
+  private String end(StringBuilder sb, int from) {
+    for (int i = from; i < fragments.length; i++) {
+      sb.append(fragments[i]);
+    }
+    valuesLength = sb.length() - fragmentsLength;
+    final String result = sb.toString();
+    BufferPool.SHARED.release(sb);
+    return result;
+  }
+
+  private Utf8Fragments utf8() {
+    Utf8Fragments utf8 = this.utf8;
+    if (utf8 == null) {
+      final byte[][] bytes = new byte[fragments.length][];
+      int length = 0;
+      for (int i = 0; i < fragments.length; i++) {
+        bytes[i] = fragments[i].getBytes(StandardCharsets.UTF_8);
+        length += bytes[i].length;
+      }
+      this.utf8 = utf8 = new Utf8Fragments(bytes, length);
+    }
+    return utf8;
+  }
+
+  private int utf8Length(Object[] encodable, int count) {
+    int length = utf8().length();
+    for (int i = 0; i < count; i++) {
+      length += Utf8.length(encodable[i]);
+    }
+    return length;
+  }
+
+  private int encodeUtf8(ByteBuffer dst, int pos, Object[] encodable, int count) {
+    final byte[][] bytes = utf8().bytes();
+    for (int i = 0; i < bytes.length; i++) {
+      dst.put(pos, bytes[i]);
+      pos += bytes[i].length;
+      if (i < count) {
+        pos = Utf8.encode(encodable[i], dst, pos);
+      }
+    }
+    return pos;
+  }
+
+  /**
+   * Component accessors of the last record type rendered, typed {@code (Object)Object}.
+   */
+  private record RecordAccessors(Class<?> type, MethodHandle[] handles) {
+  }
+
+  /**
+   * UTF-8 encoded fragments and their total length, published together through final fields.
+   */
+  private record Utf8Fragments(byte[][] bytes, int length) {
+  }
+
+  /**
+   * Appends a value without the intermediate {@code String} that
+   * {@link StringBuilder#append(Object)} creates for boxed primitives and non-{@code String}
+   * character sequences.
+   */
+  static StringBuilder append(StringBuilder sb, Object value) {
+    if (value instanceof String s) {
+      sb.append(s);
+    } else if (value instanceof Integer i) {
+      sb.append(i.intValue());
+    } else if (value instanceof Long l) {
+      sb.append(l.longValue());
+    } else if (value instanceof CharSequence cs) {
+      sb.append(cs);
+    } else if (value instanceof Boolean b) {
+      sb.append(b.booleanValue());
+    } else if (value instanceof Character c) {
+      sb.append(c.charValue());
+    } else if (value instanceof Double d) {
+      sb.append(d.doubleValue());
+    } else if (value instanceof Float f) {
+      sb.append(f.floatValue());
+    } else if (value instanceof Short sh) {
+      sb.append(sh.shortValue());
+    } else if (value instanceof Byte by) {
+      sb.append(by.byteValue());
+    } else {
+      sb.append(value);
+    }
+    return sb;
+  }
+
+  /**
+   * Appends a value to an {@code Appendable}. Only primitives and other objects are converted to
+   * a {@code String}, since {@code Appendable} has no primitive overloads.
+   */
+  static void append(Appendable out, Object value) throws IOException {
+    if (value instanceof CharSequence cs) {
+      out.append(cs);
+    } else if (value instanceof Character c) {
+      out.append(c.charValue());
+    } else {
+      out.append(String.valueOf(value));
+    }
+  }
 }
@@ -0,0 +1,201 @@
+package interpolation;
+
+import interpolation.internal.parser.EscapingContext;
+import interpolation.internal.parser.ParsedTemplate;
+import interpolation.internal.parser.TemplateParseException;
+import interpolation.internal.parser.TemplateScanner;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compiles templates known only at runtime, such as message templates loaded from configuration,
+ * into {@link Interpolator}s cached by template text.
+ *
+ * <p>Templates use the syntax of {@code str()} literals, {@code ${name}}, {@code ${name:spec}},
+ * {@code ${a.b}} and {@code $${}, parsed by the {@link TemplateScanner} the annotation processor
+ * shares, and are rejected with the messages the processor reports at compile time. A compiled
+ * interpolator keeps the variable names, so it renders values bound by name from a {@code Map} or
+ * a record with {@link Interpolator#render(Map)} and {@link Interpolator#render(Record)}, or by
+ * position with {@link Interpolator#process(Object...)}. Rendering parses nothing: the template is
+ * parsed, and its format specifiers too, when it is compiled.
+ *
+ * <p>The cache is bounded and safe for concurrent use. Lookups are {@link ConcurrentHashMap} reads
+ * and take no lock. When a compilation exceeds the maximum size, entries are evicted in
+ * second-chance order by a clock hand that resumes where the last eviction stopped, an entry used
+ * since the hand last passed it being kept once; evictions hold a lock, so the hand moves for one
+ * thread at a time. Two threads compiling the same new template may both parse it, and one of the
+ * results is kept. Malformed templates are not cached.
+ *
+ * <p>{@link Interpolator#compile(String)} uses a cache shared by the whole application, sized by
+ * the {@code interpolation.compiler.maxSize} system property, {@value #DEFAULT_MAX_SIZE} by
+ * default.
+ */
+public final class TemplateCompiler {
+
+  /**
+   * Default maximum number of cached templates.
+   */
+  public static final int DEFAULT_MAX_SIZE = 1024;
+
+  /**
+   * The cache behind {@link Interpolator#compile(String)}.
+   */
+  static final TemplateCompiler SHARED = new TemplateCompiler(
+      Integer.getInteger("interpolation.compiler.maxSize", DEFAULT_MAX_SIZE));
+
+  private final int maxSize;
+  private final Map<String, Entry> interpolators = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+
+  // Clock hand over the cache, guarded by evictionLock
+  private Iterator<Map.Entry<String, Entry>> hand;
+
+  /**
+   * Creates a compiler with its own cache.
+   *
+   * @param maxSize the maximum number of cached templates
+   * @throws IllegalArgumentException if {@code maxSize} is not positive
+   */
+  public TemplateCompiler(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+    }
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the interpolator of a template, compiling it on the first lookup.
+   *
+   * @param template the template
+   * @return the shared interpolator of the template, with its variable names
+   * @throws IllegalArgumentException if the template is malformed, has an unsupported format
+   *     specifier or a misplaced escaped variable
+   */
+  public Interpolator compile(String template) {
+    if (template == null) {
+      throw new IllegalArgumentException("Template cannot be null");
+    }
+    final Entry entry = interpolators.get(template);
+    if (entry != null) {
+      hits.increment();
+      if (!entry.used) {
+        entry.used = true;
+      }
+      return entry.interpolator;
+    }
+    misses.increment();
+    final Entry compiled = new Entry(parse(template));
+    final Entry raced = interpolators.putIfAbsent(template, compiled);
+    if (raced != null) {
+      return raced.interpolator;
+    }
+    if (interpolators.size() > maxSize) {
+      evictionLock.lock();
+      try {
+        while (interpolators.size() > maxSize && evictOne()) {
+          // Until back within bounds
+        }
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+    return compiled.interpolator;
+  }
+
+  /**
+   * Returns the lookup statistics.
+   *
+   * @return a snapshot of the statistics
+   */
+  public Stats stats() {
+    return new Stats(hits.sum(), misses.sum(), evictions.sum(), interpolators.size());
+  }
+
+  /**
+   * Parses a template with {@link TemplateScanner} into an interpolator keeping its variable
+   * names, after checking its escaped variables with {@link EscapingContext}.
+   */
+  private static Interpolator parse(String template) {
+    final ParsedTemplate parsed;
+    try {
+      parsed = TemplateScanner.parse(template);
+    } catch (TemplateParseException e) {
+      throw new IllegalArgumentException("Malformed template " + e.getMessage(), e);
+    }
+    final String misplaced = EscapingContext.check(parsed);
+    if (misplaced != null) {
+      throw new IllegalArgumentException(misplaced);
+    }
+    final String[] names = parsed.varNames();
+    final VarInfo[] varInfos = new VarInfo[names.length];
+    for (int i = 0; i < names.length; i++) {
+      varInfos[i] = new VarInfo(names[i], -1, false, "Ljava/lang/Object;", null);
+    }
+    return new Interpolator(parsed.fragments(), varInfos, parsed.formats());
+  }
+
+  /**
+   * Moves the clock hand to the first entry not used since the hand last passed it and evicts it,
+   * clearing the use of the entries passed on the way. Gives up after two full turns, when other
+   * threads keep using every entry. Called with {@link #evictionLock} held.
+   */
+  private boolean evictOne() {
+    for (int steps = 2 * interpolators.size() + 1; steps > 0; steps--) {
+      if (hand == null || !hand.hasNext()) {
+        hand = interpolators.entrySet().iterator();
+        if (!hand.hasNext()) {
+          return false;
+        }
+      }
+      final Map.Entry<String, Entry> candidate = hand.next();
+      if (candidate.getValue().used) {
+        candidate.getValue().used = false;
+      } else if (interpolators.remove(candidate.getKey(), candidate.getValue())) {
+        evictions.increment();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A cached interpolator and whether it was looked up since the clock hand last passed it. Races
+   * on the flag only affect which entry is evicted.
+   */
+  private static final class Entry {
+
+    final Interpolator interpolator;
+    boolean used;
+
+    Entry(Interpolator interpolator) {
+      this.interpolator = interpolator;
+    }
+  }
+
+  /**
+   * Snapshot of cache statistics.
+   *
+   * @param hits lookups answered from the cache
+   * @param misses lookups that compiled the template, including malformed ones
+   * @param evictions templates evicted to respect the size bound
+   * @param size templates currently cached
+   */
+  public record Stats(long hits, long misses, long evictions, int size) {
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     *
+     * @return hits over lookups, {@code 0} before the first lookup
+     */
+    public double hitRate() {
+      final long lookups = hits + misses;
+      return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+  }
+}
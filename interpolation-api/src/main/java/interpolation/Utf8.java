@@ -0,0 +1,166 @@
+package interpolation;
+
+import java.nio.ByteBuffer;
+
+/**
+ * UTF-8 encoding of interpolated values straight into a {@link ByteBuffer}, heap or direct.
+ *
+ * <p>Values are measured before they are written, so the output is allocated or checked once, at
+ * its exact size, and no intermediate {@code String} or {@code byte[]} is created for
+ * {@code CharSequence}, integral, {@code boolean} and {@code char} values. Other values are
+ * converted with {@link String#valueOf(Object)} once, by {@link #encodable}. Like
+ * {@link String#getBytes(java.nio.charset.Charset)}, unpaired surrogates are encoded as
+ * {@code '?'}, so the output is the same as {@code process(values).getBytes(UTF_8)}.
+ */
+final class Utf8 {
+
+  private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+  private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+  private Utf8() {
+    // Utility class
+  }
+
+  /**
+   * Replaces the values that cannot be measured and encoded in place, or that have a format, by
+   * their string value.
+   *
+   * @param values the values
+   * @param count the number of values used
+   * @param formats the formats of the values, or {@code null} if none has one
+   * @return {@code values} itself, or a copy if a value was replaced
+   */
+  static Object[] encodable(Object[] values, int count, ValueFormat[] formats) {
+    Object[] encodable = values;
+    for (int i = 0; i < count; i++) {
+      final Object value = values[i];
+      final ValueFormat format = formats != null && i < formats.length ? formats[i] : null;
+      if (format != null) {
+        if (encodable == values) {
+          encodable = values.clone();
+        }
+        encodable[i] = format.format(value);
+      } else if (!(value instanceof CharSequence || value instanceof Integer
+          || value instanceof Long || value instanceof Boolean || value instanceof Character
+          || value instanceof Short || value instanceof Byte)) {
+        if (encodable == values) {
+          encodable = values.clone();
+        }
+        encodable[i] = String.valueOf(value);
+      }
+    }
+    return encodable;
+  }
+
+  /**
+   * Returns the encoded length of a value returned by {@link #encodable}.
+   */
+  static int length(Object value) {
+    if (value instanceof CharSequence cs) {
+      return length(cs);
+    } else if (value instanceof Boolean b) {
+      return b ? TRUE.length : FALSE.length;
+    } else if (value instanceof Character c) {
+      return length(c.charValue());
+    }
+    return length(((Number) value).longValue());
+  }
+
+  /**
+   * Encodes a value returned by {@link #encodable} at an absolute position.
+   *
+   * @return the position after the value
+   */
+  static int encode(Object value, ByteBuffer dst, int pos) {
+    if (value instanceof CharSequence cs) {
+      return encode(cs, dst, pos);
+    } else if (value instanceof Boolean b) {
+      final byte[] bytes = b ? TRUE : FALSE;
+      dst.put(pos, bytes);
+      return pos + bytes.length;
+    } else if (value instanceof Character c) {
+      return encode(c.charValue(), dst, pos);
+    }
+    return encode(((Number) value).longValue(), dst, pos);
+  }
+
+  static int length(CharSequence s) {
+    final int n = s.length();
+    int length = n;
+    for (int i = 0; i < n; i++) {
+      final char c = s.charAt(i);
+      if (c < 0x80) {
+        continue;
+      }
+      if (Character.isHighSurrogate(c) && i + 1 < n
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        length += 2; // 4 bytes for 2 chars
+        i++;
+      } else {
+        length += length(c) - 1;
+      }
+    }
+    return length;
+  }
+
+  static int encode(CharSequence s, ByteBuffer dst, int pos) {
+    final int n = s.length();
+    for (int i = 0; i < n; i++) {
+      final char c = s.charAt(i);
+      if (c < 0x80) {
+        dst.put(pos++, (byte) c);
+      } else if (Character.isHighSurrogate(c) && i + 1 < n
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        final int codePoint = Character.toCodePoint(c, s.charAt(++i));
+        dst.put(pos++, (byte) (0xF0 | codePoint >> 18));
+        dst.put(pos++, (byte) (0x80 | codePoint >> 12 & 0x3F));
+        dst.put(pos++, (byte) (0x80 | codePoint >> 6 & 0x3F));
+        dst.put(pos++, (byte) (0x80 | codePoint & 0x3F));
+      } else {
+        pos = encode(c, dst, pos);
+      }
+    }
+    return pos;
+  }
+
+  static int length(char c) {
+    return c < 0x80 || Character.isSurrogate(c) ? 1 : c < 0x800 ? 2 : 3;
+  }
+
+  static int encode(char c, ByteBuffer dst, int pos) {
+    if (c < 0x80 || Character.isSurrogate(c)) {
+      dst.put(pos++, (byte) (c < 0x80 ? c : '?'));
+    } else if (c < 0x800) {
+      dst.put(pos++, (byte) (0xC0 | c >> 6));
+      dst.put(pos++, (byte) (0x80 | c & 0x3F));
+    } else {
+      dst.put(pos++, (byte) (0xE0 | c >> 12));
+      dst.put(pos++, (byte) (0x80 | c >> 6 & 0x3F));
+      dst.put(pos++, (byte) (0x80 | c & 0x3F));
+    }
+    return pos;
+  }
+
+  static int length(long v) {
+    int length = v < 0 ? 2 : 1;
+    // Negative values cover Long.MIN_VALUE
+    for (long n = v < 0 ? v : -v; n <= -10; n /= 10) {
+      length++;
+    }
+    return length;
+  }
+
+  static int encode(long v, ByteBuffer dst, int pos) {
+    final int end = pos + length(v);
+    int i = end;
+    long n = v < 0 ? v : -v;
+    do {
+      dst.put(--i, (byte) ('0' - n % 10));
+      n /= 10;
+    } while (n != 0);
+    if (v < 0) {
+      dst.put(--i, (byte) '-');
+    }
+    return end;
+  }
+}
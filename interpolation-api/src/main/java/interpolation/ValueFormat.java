@@ -0,0 +1,499 @@
+package interpolation;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The format specifier of a template variable, such as {@code %.2f} in {@code ${amount:%.2f}}.
+ *
+ * <p>A specifier is parsed once, when the interpolator of its call site is created, into a
+ * formatter that appends values straight to the output. {@code String.format} parses its format
+ * string again on every call and creates a {@code Formatter}, a builder and boxed arguments.
+ * The annotation processor parses specifiers at compile time too, and rejects those that do not
+ * apply to the type of their variable.
+ *
+ * <p>Supported specifiers:
+ * <ul>
+ *   <li>{@code %[flags][width]d}, {@code x}, {@code X} and {@code o} - integral values
+ *       ({@code byte}, {@code short}, {@code int}, {@code long} and their wrappers). Flags are
+ *       {@code -} (left-justify), {@code 0} (zero padding), {@code +} and space (sign of positive
+ *       decimals), {@code ,} (grouping of decimals) and {@code #} (prefix of {@code x} and
+ *       {@code o}).</li>
+ *   <li>{@code %[flags][width][.precision]f} - {@code float}, {@code double} and their wrappers,
+ *       6 decimals by default, with the same flags as {@code d}.</li>
+ *   <li>{@code %[-][width][.precision]s} and {@code S} - any value, truncated to
+ *       {@code precision} characters, upper case with {@code S}.</li>
+ *   <li>{@code iso} - {@code java.time} values in their ISO-8601 format: {@code Instant},
+ *       {@code LocalDate}, {@code LocalTime}, {@code LocalDateTime}, {@code OffsetTime},
+ *       {@code OffsetDateTime} and {@code ZonedDateTime}.</li>
+ *   <li>{@code json}, {@code html} and {@code csv} - any value, escaped for the content of a JSON
+ *       string, HTML text or quoted attribute value, or a CSV field, quoted only if it needs to
+ *       be. Values are scanned four characters at a time, and runs with nothing to escape are
+ *       copied in bulk.</li>
+ * </ul>
+ *
+ * <p>Output is the same as {@code String.format(Locale.ROOT, specifier, value)}: decimals are
+ * rounded half up from the shortest representation of the value, the decimal separator is
+ * {@code '.'} and the grouping separator {@code ','}, whatever the default locale. {@code null}
+ * values are formatted as {@code "null"}, truncated to the precision. Instances are immutable
+ * and thread-safe.
+ */
+public final class ValueFormat {
+
+  private static final String ISO = "iso";
+  private static final String DIGITS = "0123456789abcdef";
+
+  private static final Set<String> INTEGRAL = Set.of("B", "S", "I", "J", "Ljava/lang/Byte;",
+      "Ljava/lang/Short;", "Ljava/lang/Integer;", "Ljava/lang/Long;");
+  private static final Set<String> FLOATING = Set.of("F", "D", "Ljava/lang/Float;",
+      "Ljava/lang/Double;");
+  private static final Set<String> TEMPORAL = Set.of("Ljava/time/Instant;",
+      "Ljava/time/LocalDate;", "Ljava/time/LocalTime;", "Ljava/time/LocalDateTime;",
+      "Ljava/time/OffsetTime;", "Ljava/time/OffsetDateTime;", "Ljava/time/ZonedDateTime;");
+
+  /**
+   * Conversions, with the types they accept.
+   */
+  private enum Conversion {
+    DECIMAL("-+ 0,", INTEGRAL, "byte, short, int, long or their wrappers"),
+    HEX("-#0", INTEGRAL, "byte, short, int, long or their wrappers"),
+    OCTAL("-#0", INTEGRAL, "byte, short, int, long or their wrappers"),
+    FIXED("-#+ 0,", FLOATING, "float, double or their wrappers"),
+    STRING("-", null, "any type"),
+    ESCAPE(null, null, "any type"),
+    TEMPORAL(null, ValueFormat.TEMPORAL, "java.time.Instant, LocalDate, LocalTime, LocalDateTime,"
+        + " OffsetTime, OffsetDateTime or ZonedDateTime");
+
+    private final String flags;
+    private final Set<String> types;
+    private final String expected;
+
+    Conversion(String flags, Set<String> types, String expected) {
+      this.flags = flags;
+      this.types = types;
+      this.expected = expected;
+    }
+  }
+
+  private final String specifier;
+  private final Conversion conversion;
+  private final Escaping escaping;
+  private final boolean upperCase;
+  private final boolean leftAlign;
+  private final boolean alternate;
+  private final boolean plus;
+  private final boolean space;
+  private final boolean zeroPad;
+  private final boolean grouping;
+  private final int width;
+  private final int precision;
+
+  private ValueFormat(String specifier, Conversion conversion, boolean upperCase, String flags,
+      int width, int precision) {
+    this.specifier = specifier;
+    this.conversion = conversion;
+    this.escaping = conversion == Conversion.ESCAPE ? Escaping.of(specifier) : null;
+    this.upperCase = upperCase;
+    this.leftAlign = flags.indexOf('-') >= 0;
+    this.alternate = flags.indexOf('#') >= 0;
+    this.plus = flags.indexOf('+') >= 0;
+    this.space = flags.indexOf(' ') >= 0;
+    this.zeroPad = flags.indexOf('0') >= 0;
+    this.grouping = flags.indexOf(',') >= 0;
+    this.width = width;
+    this.precision = precision;
+  }
+
+  /**
+   * Parses a format specifier.
+   *
+   * @param specifier the specifier, such as {@code %.2f} or {@code iso}
+   * @return the format
+   * @throws IllegalArgumentException if the specifier is not supported
+   */
+  public static ValueFormat of(String specifier) {
+    if (ISO.equals(specifier)) {
+      return new ValueFormat(specifier, Conversion.TEMPORAL, false, "", -1, -1);
+    }
+    if (Escaping.of(specifier) != null) {
+      return new ValueFormat(specifier, Conversion.ESCAPE, false, "", -1, -1);
+    }
+    if (specifier.length() < 2 || specifier.charAt(0) != '%') {
+      throw invalid(specifier, "expected '%' and a conversion, 'iso', 'json', 'html' or 'csv'");
+    }
+    int i = 1;
+    final StringBuilder flags = new StringBuilder();
+    while (i < specifier.length() && "-#+ 0,".indexOf(specifier.charAt(i)) >= 0) {
+      if (flags.indexOf(String.valueOf(specifier.charAt(i))) >= 0) {
+        throw invalid(specifier, "duplicate flag '" + specifier.charAt(i) + "'");
+      }
+      flags.append(specifier.charAt(i++));
+    }
+    final int widthStart = i;
+    while (i < specifier.length() && Character.isDigit(specifier.charAt(i))) {
+      i++;
+    }
+    final int width = number(specifier, widthStart, i);
+    int precision = -1;
+    if (i < specifier.length() && specifier.charAt(i) == '.') {
+      final int precisionStart = ++i;
+      while (i < specifier.length() && Character.isDigit(specifier.charAt(i))) {
+        i++;
+      }
+      if (i == precisionStart) {
+        throw invalid(specifier, "missing precision after '.'");
+      }
+      precision = number(specifier, precisionStart, i);
+    }
+    if (i != specifier.length() - 1) {
+      throw invalid(specifier, "expected a single conversion character at the end");
+    }
+    final char c = specifier.charAt(i);
+    final Conversion conversion = switch (c) {
+      case 'd' -> Conversion.DECIMAL;
+      case 'x', 'X' -> Conversion.HEX;
+      case 'o' -> Conversion.OCTAL;
+      case 'f' -> Conversion.FIXED;
+      case 's', 'S' -> Conversion.STRING;
+      default -> throw invalid(specifier, "unsupported conversion '" + c + "'");
+    };
+    for (int f = 0; f < flags.length(); f++) {
+      if (conversion.flags.indexOf(flags.charAt(f)) < 0) {
+        throw invalid(specifier, "flag '" + flags.charAt(f) + "' does not apply to '" + c + "'");
+      }
+    }
+    if (precision >= 0 && conversion != Conversion.FIXED && conversion != Conversion.STRING) {
+      throw invalid(specifier, "precision does not apply to '" + c + "'");
+    }
+    if ((flags.indexOf("-") >= 0 || flags.indexOf("0") >= 0) && width < 0) {
+      throw invalid(specifier, "flags '-' and '0' need a width");
+    }
+    if (flags.indexOf("-") >= 0 && flags.indexOf("0") >= 0
+        || flags.indexOf("+") >= 0 && flags.indexOf(" ") >= 0) {
+      throw invalid(specifier, "conflicting flags");
+    }
+    return new ValueFormat(specifier, conversion, c == 'X' || c == 'S', flags.toString(), width,
+        precision);
+  }
+
+  /**
+   * Returns the specifier this format was parsed from.
+   *
+   * @return the specifier
+   */
+  public String specifier() {
+    return specifier;
+  }
+
+  /**
+   * Checks whether this format applies to a variable type.
+   *
+   * @param typeDescriptor JVM type descriptor of the variable
+   * @return true if values of the type can be formatted
+   */
+  public boolean accepts(String typeDescriptor) {
+    return conversion.types == null || conversion.types.contains(typeDescriptor);
+  }
+
+  /**
+   * Describes the types this format applies to, for error messages.
+   *
+   * @return the accepted types
+   */
+  public String expected() {
+    return conversion.expected;
+  }
+
+  /**
+   * Formats a value to a new string.
+   *
+   * @param value the value
+   * @return the formatted value
+   * @throws IllegalArgumentException if the format does not apply to the value
+   */
+  public String format(Object value) {
+    return format(new StringBuilder(), value).toString();
+  }
+
+  /**
+   * Appends a formatted value.
+   *
+   * @param sb the builder to append to
+   * @param value the value
+   * @return {@code sb}
+   * @throws IllegalArgumentException if the format does not apply to the value
+   */
+  public StringBuilder format(StringBuilder sb, Object value) {
+    final int start = sb.length();
+    if (value == null) {
+      sb.append(upperCase ? "NULL" : "null", 0, precision < 0 ? 4 : Math.min(precision, 4));
+      return justify(sb, start);
+    }
+    switch (conversion) {
+      case DECIMAL -> decimal(sb, integral(value));
+      case HEX -> unsigned(sb, value, 4);
+      case OCTAL -> unsigned(sb, value, 3);
+      case FIXED -> {
+        if (!(value instanceof Double || value instanceof Float)) {
+          throw mismatch(value);
+        }
+        fixed(sb, ((Number) value).doubleValue());
+      }
+      case STRING -> string(sb, value);
+      case TEMPORAL -> temporal(sb, value);
+      case ESCAPE -> escape(sb, value);
+      default -> throw new IllegalStateException(conversion.name());
+    }
+    return sb;
+  }
+
+  @Override
+  public String toString() {
+    return specifier;
+  }
+
+  private void decimal(StringBuilder sb, long value) {
+    final int start = sb.length();
+    sign(sb, value < 0);
+    final int digits = sb.length();
+    if (value == Long.MIN_VALUE) {
+      sb.append("9223372036854775808");
+    } else {
+      sb.append(Math.abs(value));
+    }
+    if (grouping) {
+      group(sb, digits, sb.length());
+    }
+    pad(sb, start, digits);
+  }
+
+  private void unsigned(StringBuilder sb, Object value, int shift) {
+    final long bits;
+    if (value instanceof Integer i) {
+      bits = i & 0xFFFF_FFFFL;
+    } else if (value instanceof Long l) {
+      bits = l;
+    } else if (value instanceof Short s) {
+      bits = s & 0xFFFF;
+    } else if (value instanceof Byte b) {
+      bits = b & 0xFF;
+    } else {
+      throw mismatch(value);
+    }
+    final int start = sb.length();
+    if (alternate) {
+      sb.append(shift == 3 ? "0" : upperCase ? "0X" : "0x");
+    }
+    final int digits = sb.length();
+    final int bitCount = Long.SIZE - Long.numberOfLeadingZeros(bits);
+    final int count = Math.max(1, (bitCount + shift - 1) / shift);
+    for (int i = count - 1; i >= 0; i--) {
+      final char digit = DIGITS.charAt((int) (bits >>> (i * shift)) & ((1 << shift) - 1));
+      sb.append(upperCase ? Character.toUpperCase(digit) : digit);
+    }
+    pad(sb, start, digits);
+  }
+
+  /**
+   * Appends a {@code %f} value: the shortest decimal representation of the value, from
+   * {@link Double#toString(double)}, rounded half up to the precision.
+   */
+  private void fixed(StringBuilder sb, double value) {
+    final int start = sb.length();
+    if (Double.isNaN(value)) {
+      sb.append("NaN");
+      justify(sb, start);
+      return;
+    }
+    sign(sb, Double.compare(value, 0.0) < 0);
+    final int digits = sb.length();
+    final double magnitude = Math.abs(value);
+    if (Double.isInfinite(magnitude)) {
+      sb.append("Infinity");
+      justify(sb, start);
+      return;
+    }
+    final String repr = Double.toString(magnitude);
+    final int exponentIndex = repr.indexOf('E');
+    final int mantissaEnd = exponentIndex < 0 ? repr.length() : exponentIndex;
+    final int dot = repr.indexOf('.');
+    // repr is d+.d+ with an optional exponent: point is the number of integer digits
+    final int point = dot + (exponentIndex < 0 ? 0 : Integer.parseInt(repr, exponentIndex + 1,
+        repr.length(), 10));
+    final int scale = precision < 0 ? 6 : precision;
+    // Integer part, at least one digit
+    if (point <= 0) {
+      sb.append('0');
+    } else {
+      for (int i = 0; i < point; i++) {
+        sb.append(mantissaDigit(repr, dot, mantissaEnd, i));
+      }
+    }
+    if (scale > 0 || alternate) {
+      sb.append('.');
+    }
+    for (int i = point; i < point + scale; i++) {
+      sb.append(mantissaDigit(repr, dot, mantissaEnd, i));
+    }
+    if (mantissaDigit(repr, dot, mantissaEnd, point + scale) >= '5') {
+      roundUp(sb, digits);
+    }
+    if (grouping) {
+      final int fraction = sb.indexOf(".", digits);
+      group(sb, digits, fraction < 0 ? sb.length() : fraction);
+    }
+    pad(sb, start, digits);
+  }
+
+  /**
+   * Returns the digit at a position of the digits of {@code repr}, '0' outside of them.
+   */
+  private static char mantissaDigit(String repr, int dot, int mantissaEnd, int index) {
+    if (index < 0) {
+      return '0';
+    }
+    final int i = index < dot ? index : index + 1;
+    return i < mantissaEnd ? repr.charAt(i) : '0';
+  }
+
+  private static void roundUp(StringBuilder sb, int digits) {
+    for (int i = sb.length() - 1; i >= digits; i--) {
+      final char c = sb.charAt(i);
+      if (c == '.') {
+        continue;
+      }
+      if (c != '9') {
+        sb.setCharAt(i, (char) (c + 1));
+        return;
+      }
+      sb.setCharAt(i, '0');
+    }
+    sb.insert(digits, '1');
+  }
+
+  private void string(StringBuilder sb, Object value) {
+    final int start = sb.length();
+    final CharSequence text = value instanceof CharSequence cs ? cs : String.valueOf(value);
+    sb.append(text, 0, precision < 0 ? text.length() : Math.min(precision, text.length()));
+    if (upperCase) {
+      final String upper = sb.substring(start).toUpperCase(Locale.ROOT);
+      sb.setLength(start);
+      sb.append(upper);
+    }
+    justify(sb, start);
+  }
+
+  private void escape(StringBuilder sb, Object value) {
+    if (value instanceof Number || value instanceof Boolean) {
+      // Their text has nothing to escape
+      Interpolator.append(sb, value);
+    } else {
+      escaping.escape(sb, value instanceof CharSequence cs ? cs : String.valueOf(value));
+    }
+  }
+
+  private void temporal(StringBuilder sb, Object value) {
+    final DateTimeFormatter formatter;
+    if (value instanceof Instant) {
+      formatter = DateTimeFormatter.ISO_INSTANT;
+    } else if (value instanceof LocalDateTime) {
+      formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    } else if (value instanceof LocalDate) {
+      formatter = DateTimeFormatter.ISO_LOCAL_DATE;
+    } else if (value instanceof OffsetDateTime) {
+      formatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+    } else if (value instanceof ZonedDateTime) {
+      formatter = DateTimeFormatter.ISO_ZONED_DATE_TIME;
+    } else if (value instanceof LocalTime) {
+      formatter = DateTimeFormatter.ISO_LOCAL_TIME;
+    } else if (value instanceof OffsetTime) {
+      formatter = DateTimeFormatter.ISO_OFFSET_TIME;
+    } else {
+      throw mismatch(value);
+    }
+    formatter.formatTo((TemporalAccessor) value, sb);
+  }
+
+  private long integral(Object value) {
+    if (value instanceof Integer || value instanceof Long || value instanceof Short
+        || value instanceof Byte) {
+      return ((Number) value).longValue();
+    }
+    throw mismatch(value);
+  }
+
+  private void sign(StringBuilder sb, boolean negative) {
+    if (negative) {
+      sb.append('-');
+    } else if (plus) {
+      sb.append('+');
+    } else if (space) {
+      sb.append(' ');
+    }
+  }
+
+  /**
+   * Inserts grouping separators between the digits in {@code [from, to)}.
+   */
+  private static void group(StringBuilder sb, int from, int to) {
+    for (int i = to - 3; i > from; i -= 3) {
+      sb.insert(i, ',');
+    }
+  }
+
+  /**
+   * Pads a number to the width, with zeros after its sign or prefix if requested.
+   */
+  private void pad(StringBuilder sb, int start, int digits) {
+    if (zeroPad) {
+      for (int i = sb.length() - start; i < width; i++) {
+        sb.insert(digits, '0');
+      }
+    } else {
+      justify(sb, start);
+    }
+  }
+
+  /**
+   * Pads a value to the width with spaces, on the left unless left-justified.
+   */
+  private StringBuilder justify(StringBuilder sb, int start) {
+    for (int i = sb.length() - start; i < width; i++) {
+      if (leftAlign) {
+        sb.append(' ');
+      } else {
+        sb.insert(start, ' ');
+      }
+    }
+    return sb;
+  }
+
+  private IllegalArgumentException mismatch(Object value) {
+    return new IllegalArgumentException("Format '" + specifier + "' cannot format "
+        + value.getClass().getName() + ", it expects " + conversion.expected);
+  }
+
+  private static int number(String specifier, int from, int to) {
+    if (from == to) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(specifier, from, to, 10);
+    } catch (NumberFormatException e) {
+      throw invalid(specifier, "number too large");
+    }
+  }
+
+  private static IllegalArgumentException invalid(String specifier, String reason) {
+    return new IllegalArgumentException("Invalid format specifier '" + specifier + "': " + reason);
+  }
+}
@@ -0,0 +1,215 @@
+package interpolation.internal.parser;
+
+import java.util.Set;
+
+/**
+ * Checks that the variables escaped with the {@code json}, {@code html} and {@code csv}
+ * specifiers sit where their escaping makes the output well-formed, from the fragments around
+ * them. The processor reports the errors at compile time, {@code Interpolator.compile} when a
+ * runtime template is compiled.
+ *
+ * <p>Fragments are the template's own markup and are emitted as they are; only values are escaped
+ * at runtime. Escaping is only safe in some positions, which the fragments tell:
+ * <ul>
+ *   <li>{@code json} escapes the content of a string, so the variable must be between the quotes
+ *       of a JSON string literal</li>
+ *   <li>{@code html} escapes text and attribute values, so the variable must be in text or a
+ *       quoted attribute value, not in a tag name, an unquoted attribute or a comment. Entities
+ *       do not make a value safe where the browser runs or fetches it: the raw text of a
+ *       {@code <script>} or {@code <style>} element, an {@code on*} event handler, a
+ *       {@code style} attribute or a URL attribute such as {@code href} or {@code src}</li>
+ *   <li>{@code csv} quotes a whole field, so the variable must be alone between separators</li>
+ * </ul>
+ */
+public final class EscapingContext {
+
+  private EscapingContext() {
+    // Utility class
+  }
+
+  /**
+   * Checks the escaped variables of a template.
+   *
+   * @param template the parsed template
+   * @return the error to report on the template, {@code null} if every escaped variable is in a
+   *     valid position
+   */
+  public static String check(ParsedTemplate template) {
+    final String[] fragments = template.fragments();
+    final String[] formats = template.formats();
+    final Json json = new Json();
+    final Html html = new Html();
+    for (int i = 0; i < formats.length; i++) {
+      json.scan(fragments[i]);
+      html.scan(fragments[i]);
+      final String name = template.varNames()[i];
+      if ("json".equals(formats[i]) && !json.inString) {
+        return "Variable '" + name + "' escaped with 'json' must be inside a JSON string literal";
+      }
+      if ("html".equals(formats[i])) {
+        final String misplaced = html.check(name);
+        if (misplaced != null) {
+          return misplaced;
+        }
+      }
+      if ("csv".equals(formats[i]) && !(startsField(fragments[i], i == 0)
+          && endsField(fragments[i + 1], i == formats.length - 1))) {
+        return "Variable '" + name + "' escaped with 'csv' must be a whole field between"
+            + " separators";
+      }
+    }
+    return null;
+  }
+
+  private static boolean startsField(String before, boolean first) {
+    return before.isEmpty() ? first : before.endsWith(",") || before.endsWith("\n");
+  }
+
+  private static boolean endsField(String after, boolean last) {
+    return after.isEmpty() ? last
+        : after.startsWith(",") || after.startsWith("\r") || after.startsWith("\n");
+  }
+
+  /**
+   * Tracks whether the end of the text scanned so far is inside a JSON string literal.
+   */
+  private static final class Json {
+
+    boolean inString;
+    boolean escaped;
+
+    void scan(String fragment) {
+      for (int i = 0; i < fragment.length(); i++) {
+        final char c = fragment.charAt(i);
+        if (escaped) {
+          escaped = false;
+        } else if (inString && c == '\\') {
+          escaped = true;
+        } else if (c == '"') {
+          inString = !inString;
+        }
+      }
+    }
+  }
+
+  /**
+   * Tracks the HTML context at the end of the text scanned so far: text, the name of a tag, inside
+   * a tag, inside a quoted attribute value, inside a comment, or in the raw text of a
+   * {@code <script>} or {@code <style>} element. The names of the last tag and attribute are kept
+   * to tell the contexts where entity escaping is not enough.
+   */
+  private static final class Html {
+
+    static final int TEXT = 0;
+    static final int TAG_NAME = 1;
+    static final int TAG = 2;
+    static final int QUOTED = 3;
+    static final int COMMENT = 4;
+    static final int RAW_TEXT = 5;
+
+    /**
+     * Elements whose content is script or style text, where entities are not decoded.
+     */
+    static final Set<String> RAW_TEXT_ELEMENTS = Set.of("script", "style");
+
+    /**
+     * Attributes whose value is a URL, where escaping does not stop a {@code javascript:} URL.
+     */
+    static final Set<String> URL_ATTRIBUTES = Set.of("action", "background", "cite", "codebase",
+        "data", "formaction", "href", "icon", "longdesc", "manifest", "ping", "poster", "src",
+        "srcset", "usemap", "xlink:href");
+
+    int state = TEXT;
+    char quote;
+    final StringBuilder tag = new StringBuilder();
+    final StringBuilder attribute = new StringBuilder();
+    boolean attributeEnded;
+
+    void scan(String fragment) {
+      for (int i = 0; i < fragment.length(); i++) {
+        final char c = fragment.charAt(i);
+        switch (state) {
+          case TEXT -> {
+            if (fragment.startsWith("<!--", i)) {
+              state = COMMENT;
+              i += 3;
+            } else if (c == '<') {
+              state = TAG_NAME;
+              tag.setLength(0);
+            }
+          }
+          case TAG_NAME -> {
+            if (c == '>') {
+              endTag();
+            } else if (Character.isWhitespace(c) || c == '/' && tag.length() > 0) {
+              state = TAG;
+              attribute.setLength(0);
+              attributeEnded = false;
+            } else {
+              tag.append(Character.toLowerCase(c));
+            }
+          }
+          case TAG -> {
+            if (c == '"' || c == '\'') {
+              state = QUOTED;
+              quote = c;
+            } else if (c == '>') {
+              endTag();
+            } else if (Character.isWhitespace(c) || c == '=' || c == '/') {
+              attributeEnded = true;
+            } else {
+              if (attributeEnded) {
+                attribute.setLength(0);
+                attributeEnded = false;
+              }
+              attribute.append(Character.toLowerCase(c));
+            }
+          }
+          case QUOTED -> {
+            if (c == quote) {
+              state = TAG;
+              attributeEnded = true;
+            }
+          }
+          case COMMENT -> {
+            if (fragment.startsWith("-->", i)) {
+              state = TEXT;
+              i += 2;
+            }
+          }
+          default -> {
+            if (c == '<' && fragment.regionMatches(true, i + 1, "/" + tag, 0, tag.length() + 1)) {
+              state = TEXT;
+              i--;
+            }
+          }
+        }
+      }
+    }
+
+    private void endTag() {
+      state = RAW_TEXT_ELEMENTS.contains(tag.toString()) ? RAW_TEXT : TEXT;
+    }
+
+    /**
+     * Returns the error to report on a variable escaped with {@code html} at the end of the text
+     * scanned so far, {@code null} if entity escaping makes it safe there.
+     */
+    String check(String name) {
+      final String escaped = "Variable '" + name + "' escaped with 'html' ";
+      if (state == RAW_TEXT) {
+        return escaped + "cannot be in the raw text of a <" + tag + "> element";
+      }
+      if (state == QUOTED) {
+        final String attributeName = attribute.toString();
+        if (attributeName.startsWith("on") || "style".equals(attributeName)
+            || URL_ATTRIBUTES.contains(attributeName)) {
+          return escaped + "cannot be in the '" + attributeName + "' attribute, whose value is a"
+              + " script, a style or a URL";
+        }
+        return null;
+      }
+      return state == TEXT ? null : escaped + "must be in text or a quoted attribute value";
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package interpolation.internal.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable record holding parsed template data.
+ * Contains the text fragments and variable names extracted from a template string.
+ *
+ * <p>For example, parsing the template {@code "Hello ${name}, you have ${count} items"}
+ * produces:
+ * <ul>
+ *   <li>fragments: ["Hello ", ", you have ", " items"]</li>
+ *   <li>varNames: ["name", "count"]</li>
+ * </ul>
+ *
+ * <p>The fragments array always has one more element than the varNames array.
+ * If the template starts with a variable, the first fragment is empty string.
+ * If the template ends with a variable, the last fragment is empty string.
+ *
+ * <p>A variable may carry a format specifier after a colon, such as {@code ${amount:%.2f}}.
+ * The formats array has one element per variable, {@code null} for variables without one.
+ *
+ * @param fragments the text fragments between variables
+ * @param varNames the variable names extracted from the template
+ * @param formats the format specifiers of the variables, {@code null} where absent
+ */
+public record ParsedTemplate(String[] fragments, String[] varNames, String[] formats) {
+
+    /**
+     * Creates a ParsedTemplate whose variables have no format specifier.
+     *
+     * @param fragments the text fragments between variables
+     * @param varNames the variable names extracted from the template
+     */
+    public ParsedTemplate(String[] fragments, String[] varNames) {
+        this(fragments, varNames, new String[varNames.length]);
+    }
+
+    /**
+     * Returns whether any variable has a format specifier.
+     *
+     * @return true if some format is not {@code null}
+     */
+    public boolean hasFormats() {
+        for (String format : formats) {
+            if (format != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Folds the text of constant variables into their adjacent fragments. A template whose
+     * variables are all folded is left with a single fragment and no variable.
+     *
+     * @param constants the text of each variable, in template order, {@code null} for variables
+     *     that are not constant
+     * @return the folded template, or this one if no variable is constant
+     */
+    public ParsedTemplate fold(String[] constants) {
+        final List<String> foldedFragments = new ArrayList<>();
+        final List<String> foldedNames = new ArrayList<>();
+        final List<String> foldedFormats = new ArrayList<>();
+        final StringBuilder fragment = new StringBuilder(fragments[0]);
+        for (int i = 0; i < varNames.length; i++) {
+            if (constants[i] == null) {
+                foldedFragments.add(fragment.toString());
+                foldedNames.add(varNames[i]);
+                foldedFormats.add(formats[i]);
+                fragment.setLength(0);
+            } else {
+                fragment.append(constants[i]);
+            }
+            fragment.append(fragments[i + 1]);
+        }
+        if (foldedNames.size() == varNames.length) {
+            return this;
+        }
+        foldedFragments.add(fragment.toString());
+        return of(foldedFragments, foldedNames, foldedFormats);
+    }
+
+    /**
+     * Creates a ParsedTemplate from lists of fragments and variable names.
+     *
+     * @param fragments the text fragments
+     * @param varNames the variable names
+     * @return a new ParsedTemplate
+     */
+    public static ParsedTemplate of(List<String> fragments, List<String> varNames) {
+        return new ParsedTemplate(
+                fragments.toArray(String[]::new),
+                varNames.toArray(String[]::new)
+        );
+    }
+
+    /**
+     * Creates a ParsedTemplate from lists of fragments, variable names and format specifiers.
+     *
+     * @param fragments the text fragments
+     * @param varNames the variable names
+     * @param formats the format specifiers, {@code null} where absent
+     * @return a new ParsedTemplate
+     */
+    public static ParsedTemplate of(List<String> fragments, List<String> varNames,
+                                    List<String> formats) {
+        return new ParsedTemplate(
+                fragments.toArray(String[]::new),
+                varNames.toArray(String[]::new),
+                formats.toArray(String[]::new)
+        );
+    }
+}
@@ -1,4 +1,4 @@
-package interpolation.parser;
+package interpolation.internal.parser;
 
 /**
  * Exception thrown when a template string cannot be parsed.
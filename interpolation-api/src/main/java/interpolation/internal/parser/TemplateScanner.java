@@ -0,0 +1,307 @@
+package interpolation.internal.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written single-pass scanner for template strings.
+ *
+ * <p>Accepts the same language as the ANTLR grammar of the annotation processor's
+ * {@code TemplateParserWrapper} and produces identical {@link ParsedTemplate}s, but walks the
+ * template once over a {@code char[]} without building a lexer, token stream, parse tree or error
+ * listeners. Malformed templates throw a {@link TemplateParseException} with the same message,
+ * line and column the ANTLR pipeline reports, columns counted in code points like ANTLR does.
+ *
+ * <p>{@code TemplateCompiler} parses templates compiled at runtime with it, and the annotation
+ * processor {@code str()} literals with {@code -Ainterpolation.parser=scanner}, so there is a
+ * single hand-written parser for both.
+ */
+public final class TemplateScanner {
+
+    private static final int ID = 0;
+    private static final int EXPR_END = 1;
+    private static final int EOF = 2;
+    private static final int FORMAT = 3;
+    private static final int DOT = 4;
+    private static final int SAFE_DOT = 5;
+
+    private final String template;
+    private final char[] chars;
+    private int pos;
+    private int line = 1;
+    private int column;
+
+    // Start of the last token returned by nextExpressionToken()
+    private int tokenStart;
+    private int tokenLine;
+    private int tokenColumn;
+
+    // Empty format specifier, reported like the ANTLR visitor does: once the whole template parsed
+    private TemplateParseException emptyFormat;
+
+    private TemplateScanner(String template) {
+        this.template = template;
+        this.chars = template.toCharArray();
+    }
+
+    /**
+     * Parses a template string and extracts fragments and variable names.
+     *
+     * @param template the template string to parse
+     * @return a ParsedTemplate containing fragments and variable names
+     * @throws TemplateParseException if the template is malformed
+     */
+    public static ParsedTemplate parse(String template) {
+        if (template == null) {
+            throw new IllegalArgumentException("Template cannot be null");
+        }
+
+        if (template.isEmpty()) {
+            return new ParsedTemplate(new String[]{""}, new String[0]);
+        }
+
+        return new TemplateScanner(template).scan();
+    }
+
+    private ParsedTemplate scan() {
+        final List<String> fragments = new ArrayList<>();
+        final List<String> varNames = new ArrayList<>();
+        final List<String> formats = new ArrayList<>();
+        final StringBuilder currentFragment = new StringBuilder(chars.length);
+
+        while (pos < chars.length) {
+            final char c = chars[pos];
+            if (c == '$' && lookingAt(pos + 1, '$') && lookingAt(pos + 2, '{')) {
+                // $${ becomes literal ${
+                currentFragment.append("${");
+                advance(3);
+            } else if (c == '$' && lookingAt(pos + 1, '{')) {
+                advance(2);
+                fragments.add(currentFragment.toString());
+                currentFragment.setLength(0);
+                varNames.add(expression(formats));
+            } else {
+                final int start = pos;
+                do {
+                    advance(1);
+                } while (pos < chars.length && chars[pos] != '$');
+                currentFragment.append(chars, start, pos - start);
+            }
+        }
+        fragments.add(currentFragment.toString());
+        if (emptyFormat != null) {
+            throw emptyFormat;
+        }
+
+        return ParsedTemplate.of(fragments, varNames, formats);
+    }
+
+    /**
+     * Scans {@code expr EXPR_END} after {@code ${}, reporting errors the way ANTLR's default error
+     * strategy does: a mismatched token is reported only after the token following it was lexed.
+     * Returns the property path, its identifiers and dots without whitespace or comments.
+     */
+    private String expression(List<String> formats) {
+        int token = nextExpressionToken();
+        if (token == EXPR_END) {
+            throw error("Empty variable name in ${}");
+        }
+        expectId(token);
+        final StringBuilder path = new StringBuilder().append(chars, tokenStart, pos - tokenStart);
+        token = nextExpressionToken();
+        while (token == DOT || token == SAFE_DOT) {
+            final String dot = template.substring(tokenStart, pos);
+            path.append(dot);
+            token = nextExpressionToken();
+            if (token == EXPR_END) {
+                throw error("Missing property name after '" + dot + "'");
+            }
+            expectId(token);
+            path.append(chars, tokenStart, pos - tokenStart);
+            token = nextExpressionToken();
+        }
+        final String varName = path.toString();
+
+        if (token == FORMAT) {
+            final String format = template.substring(tokenStart + 1, pos).strip();
+            if (format.isEmpty() && emptyFormat == null) {
+                emptyFormat = error("Empty format specifier");
+            }
+            token = nextExpressionToken();
+            if (token == EOF) {
+                throw error("Unclosed ${...} expression");
+            }
+            // A FORMAT token ends at the closing brace
+            formats.add(format);
+            return varName;
+        }
+        if (token == EXPR_END) {
+            formats.add(null);
+            return varName;
+        }
+        if (token == EOF) {
+            throw error("Unclosed ${...} expression");
+        }
+
+        // Extra identifier: ANTLR looks one token further to tell deletion from mismatch
+        final String extra = template.substring(tokenStart, pos);
+        final int extraLine = tokenLine;
+        final int extraColumn = tokenColumn;
+        final String message = nextExpressionToken() == EXPR_END
+                ? "extraneous input '" + extra + "' expecting '}'"
+                : "mismatched input '" + extra + "' expecting {'}', FORMAT, '?.', '.'}";
+        throw new TemplateParseException(message, extraLine, extraColumn);
+    }
+
+    /**
+     * Checks that a path starts, or continues after a dot, with an identifier. Like ANTLR's inline
+     * recovery, a dot or specifier followed by an identifier is reported as extraneous, and
+     * otherwise the identifier as missing.
+     */
+    private void expectId(int token) {
+        if (token == ID) {
+            return;
+        }
+        if (token == EOF) {
+            throw error("Unclosed ${...} expression");
+        }
+        final String text = display(tokenStart, pos);
+        final TemplateParseException missing = error("missing ID at '" + text + "'");
+        // A specifier runs up to the closing brace, so no identifier can follow it
+        if (token != FORMAT && nextExpressionToken() == ID) {
+            throw new TemplateParseException("extraneous input '" + text + "' expecting ID",
+                    missing.getLine(), missing.getColumn());
+        }
+        throw missing;
+    }
+
+    /**
+     * Returns the next token of the EXPRESSION lexer mode, skipping whitespace and block comments.
+     */
+    private int nextExpressionToken() {
+        while (true) {
+            tokenStart = pos;
+            tokenLine = line;
+            tokenColumn = column;
+            if (pos >= chars.length) {
+                return EOF;
+            }
+            final char c = chars[pos];
+            if (c == '}') {
+                advance(1);
+                return EXPR_END;
+            } else if (c == ':') {
+                // The specifier runs up to the closing brace
+                do {
+                    advance(1);
+                } while (pos < chars.length && chars[pos] != '}');
+                return FORMAT;
+            } else if (c == '.') {
+                advance(1);
+                return DOT;
+            } else if (c == '?' && lookingAt(pos + 1, '.')) {
+                advance(2);
+                return SAFE_DOT;
+            } else if (c == '?') {
+                // Like the slash, ANTLR fails on the character after the question mark
+                throw recognitionError(endOfCodePoint(pos + 1));
+            } else if (isIdStart(c)) {
+                do {
+                    advance(1);
+                } while (pos < chars.length && isIdPart(chars[pos]));
+                return ID;
+            } else if (isWhitespace(c)) {
+                do {
+                    advance(1);
+                } while (pos < chars.length && isWhitespace(chars[pos]));
+            } else if (c == '/' && lookingAt(pos + 1, '*')) {
+                skipBlockComment();
+            } else if (c == '/') {
+                // ANTLR fails on the character after the slash and reports both
+                throw recognitionError(endOfCodePoint(pos + 1));
+            } else {
+                throw recognitionError(endOfCodePoint(pos));
+            }
+        }
+    }
+
+    private void skipBlockComment() {
+        final int end = template.indexOf("*/", pos + 2);
+        if (end < 0) {
+            throw recognitionError(chars.length);
+        }
+        advance(end + 2 - pos);
+    }
+
+    /**
+     * Builds ANTLR's lexer error for the token starting at {@link #tokenStart} whose text ends at
+     * {@code end}.
+     */
+    private TemplateParseException recognitionError(int end) {
+        return new TemplateParseException(
+                "token recognition error at: '" + display(tokenStart, end) + "'",
+                tokenLine, tokenColumn);
+    }
+
+    /**
+     * Returns source text the way ANTLR displays it in messages, with escaped line breaks and tabs.
+     */
+    private String display(int start, int end) {
+        final StringBuilder text = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            switch (chars[i]) {
+                case '\n' -> text.append("\\n");
+                case '\t' -> text.append("\\t");
+                case '\r' -> text.append("\\r");
+                default -> text.append(chars[i]);
+            }
+        }
+        return text.toString();
+    }
+
+    private TemplateParseException error(String message) {
+        return new TemplateParseException(message, tokenLine, tokenColumn);
+    }
+
+    /**
+     * Consumes characters, tracking the line and the column in code points.
+     */
+    private void advance(int count) {
+        for (int end = pos + count; pos < end; pos++) {
+            final char c = chars[pos];
+            if (c == '\n') {
+                line++;
+                column = 0;
+            } else if (!isTrailingSurrogate(pos)) {
+                column++;
+            }
+        }
+    }
+
+    private boolean isTrailingSurrogate(int index) {
+        return index > 0 && Character.isLowSurrogate(chars[index])
+                && Character.isHighSurrogate(chars[index - 1]);
+    }
+
+    private boolean lookingAt(int index, char c) {
+        return index < chars.length && chars[index] == c;
+    }
+
+    private int endOfCodePoint(int index) {
+        return index < chars.length
+                ? index + Character.charCount(template.codePointAt(index))
+                : index;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private static boolean isIdStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdPart(char c) {
+        return isIdStart(c) || (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Template parser shared by the annotation processor and runtime templates. This package is
+ * internal to the interpolation jars, not API: its types may change in any release.
+ */
+package interpolation.internal.parser;
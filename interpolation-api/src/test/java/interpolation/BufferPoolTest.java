@@ -0,0 +1,97 @@
+package interpolation;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BufferPool}.
+ */
+public class BufferPoolTest {
+
+  @Test
+  public void reuseReleasedBuilders() {
+    final BufferPool pool = new BufferPool(4, 1024);
+    final StringBuilder sb = pool.acquire(16).append("used");
+
+    pool.release(sb);
+
+    assertThat(pool.pooled(), is(1));
+    final StringBuilder reused = pool.acquire(32);
+    assertThat(reused, is(sameInstance(sb)));
+    assertThat(reused.length(), is(0));
+    assertThat(reused.capacity() >= 32, is(true));
+    assertThat(pool.pooled(), is(0));
+  }
+
+  @Test
+  public void dropOversizedBuilders() {
+    final BufferPool pool = new BufferPool(4, 64);
+
+    pool.release(pool.acquire(1000));
+
+    assertThat(pool.pooled(), is(0));
+  }
+
+  @Test
+  public void reuseInflatedBuilders() {
+    final BufferPool pool = new BufferPool(4, 1024);
+
+    pool.release(pool.acquire(16).append("\u0433\u0440\u043d"));
+
+    assertThat(pool.pooled(), is(1));
+  }
+
+  @Test
+  public void retainAtMostSizeBuilders() {
+    final BufferPool pool = new BufferPool(3, 1024);
+    for (int i = 0; i < 10; i++) {
+      pool.release(new StringBuilder());
+    }
+
+    assertThat(pool.pooled(), is(4));
+  }
+
+  @Test
+  public void allocateWhenDisabled() {
+    final BufferPool pool = new BufferPool(0, 1024);
+    final StringBuilder sb = pool.acquire(8);
+
+    pool.release(sb);
+
+    assertThat(pool.pooled(), is(0));
+    assertThat(pool.acquire(8), is(not(sameInstance(sb))));
+  }
+
+  @Test
+  public void processOnManyVirtualThreads() throws Exception {
+    final Interpolator interpolator = new Interpolator(new String[] {"task ", " of ", ": ", ""});
+    final List<Future<Boolean>> results = new ArrayList<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 1000; i++) {
+        final int task = i;
+        results.add(executor.submit(() -> {
+          for (int j = 0; j < 100; j++) {
+            final String value = j % 10 == 0 ? "ünïcødé" : "x".repeat(j);
+            if (!interpolator.process(task, j, value).equals("task " + task + " of " + j + ": "
+                + value)) {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+    }
+    for (Future<Boolean> result : results) {
+      assertThat(result.get(), is(true));
+    }
+  }
+}
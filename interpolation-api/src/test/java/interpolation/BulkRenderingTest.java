@@ -0,0 +1,169 @@
+package interpolation;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Unit tests for the bulk rendering methods of {@link Interpolator}.
+ */
+public class BulkRenderingTest {
+
+  private static final Interpolator ROW = new Interpolator(
+      new String[] {"<tr><td>", "</td><td>", "</td></tr>\n"});
+
+  @Test
+  public void renderColumnsLikeProcess() {
+    final String[] names = {"apple", "pear", "plum"};
+    final Object[] counts = {1, 20L, null};
+
+    final String bulk = ROW.processColumns(new StringBuilder("rows:\n"), 3, names, counts)
+        .toString();
+
+    assertThat(bulk, is("rows:\n" + ROW.process("apple", 1) + ROW.process("pear", 20L)
+        + ROW.process("plum", null)));
+  }
+
+  @Test
+  public void renderPrimitiveColumnsWithoutBoxing() {
+    final Interpolator interpolator = new Interpolator(
+        new String[] {"", ",", ",", ",", ",", ",", ",", ",", ";"});
+
+    final StringBuilder sb = interpolator.processColumns(new StringBuilder(), 2,
+        new int[] {1, -2}, new long[] {3, 4}, new double[] {0.5, 6}, new float[] {7, 8.25f},
+        new boolean[] {true, false}, new char[] {'x', 'y'}, new short[] {9, 10},
+        new byte[] {11, -12});
+
+    assertThat(sb.toString(), is("1,3,0.5,7.0,true,x,9,11;-2,4,6.0,8.25,false,y,10,-12;"));
+  }
+
+  @Test
+  public void renderOnlyTheRequestedRows() {
+    assertThat(ROW.processColumns(new StringBuilder(), 1, new String[] {"a", "b"},
+        List.of(1, 2)).toString(), is(ROW.process("a", 1)));
+    assertThat(ROW.processColumns(new StringBuilder("x"), 0, new String[0], new int[0])
+        .toString(), is("x"));
+  }
+
+  @Test
+  public void renderListColumns() {
+    final List<String> names = new LinkedList<>(List.of("a", "b", "c"));
+
+    assertThat(ROW.processColumns(new StringBuilder(), 3, names, List.of(1, 2, 3)).toString(),
+        is(ROW.process("a", 1) + ROW.process("b", 2) + ROW.process("c", 3)));
+  }
+
+  @Test
+  public void applyFormatsToColumns() {
+    final Interpolator interpolator = new Interpolator(new String[] {"", " = ", "\n"},
+        new String[] {"json", "%.2f"});
+
+    assertThat(interpolator.processColumns(new StringBuilder(), 2,
+        new String[] {"a\"b", "c"}, new double[] {1.005, 2}).toString(),
+        is("a\\\"b = 1.01\nc = 2.00\n"));
+  }
+
+  @Test
+  public void renderTemplatesWithoutVariables() {
+    final Interpolator constant = new Interpolator(new String[] {"-\n"});
+
+    assertThat(constant.processColumns(new StringBuilder(), 3).toString(), is("-\n-\n-\n"));
+  }
+
+  @Test
+  public void renderRowsOfValues() {
+    final List<Object[]> rows = List.of(new Object[] {"a", 1}, new Object[] {"b", 2.5});
+
+    assertThat(ROW.processRows(new StringBuilder(), rows).toString(),
+        is(ROW.process("a", 1) + ROW.process("b", 2.5)));
+  }
+
+  @Test
+  public void streamColumnsInBatches() throws IOException {
+    final int rows = 5000;
+    final int[] ids = new int[rows];
+    final List<String> expected = new ArrayList<>();
+    for (int i = 0; i < rows; i++) {
+      ids[i] = i;
+      expected.add(ROW.process(null, i));
+    }
+    final List<Integer> writes = new ArrayList<>();
+    final StringWriter target = new StringWriter();
+    final Writer writer = new Writer() {
+      @Override
+      public Writer append(CharSequence csq) {
+        writes.add(csq.length());
+        target.append(csq);
+        return this;
+      }
+
+      @Override
+      public void write(char[] cbuf, int off, int len) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+
+    ROW.processColumns(writer, rows, new String[rows], ids);
+
+    assertThat(target.toString(), is(String.join("", expected)));
+    assertThat(writes.size() > 1, is(true));
+    assertThat(writes.size() < rows / 10, is(true));
+  }
+
+  @Test
+  public void streamSingleRows() throws IOException {
+    assertThat(ROW.processColumns(new StringWriter(), 1, new String[] {"a"}, new int[] {1})
+        .toString(), is(ROW.process("a", 1)));
+    assertThat(ROW.processColumns(new StringWriter(), 0, new String[0], new int[0]).toString(),
+        is(""));
+  }
+
+  @Test
+  public void renderInParallelInRowOrder() {
+    final int rows = 100_000;
+    final long[] ids = new long[rows];
+    final Object[] names = new Object[rows];
+    final StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < rows; i++) {
+      ids[i] = i;
+      names[i] = "n" + i;
+      expected.append(ROW.process(names[i], (long) i));
+    }
+
+    assertThat(ROW.processColumnsParallel(rows, names, ids), is(expected.toString()));
+    assertThat(ROW.processColumnsParallel(2, names, ids),
+        is(ROW.process("n0", 0L) + ROW.process("n1", 1L)));
+  }
+
+  @Test
+  public void rejectMismatchedColumns() {
+    assertThat(assertThrows(IllegalArgumentException.class,
+        () -> ROW.processColumns(new StringBuilder(), 1, new int[1])).getMessage(),
+        is("Expected 2 values, got 1"));
+    assertThat(assertThrows(IllegalArgumentException.class,
+        () -> ROW.processColumns(new StringBuilder(), 3, new int[3], List.of(1, 2)))
+        .getMessage(), is("Column 1 has 2 values, expected 3"));
+    assertThat(assertThrows(IllegalArgumentException.class,
+        () -> ROW.processColumns(new StringBuilder(), 1, new int[1], "x")).getMessage(),
+        is("Column 1 is a java.lang.String, expected an array or a List"));
+    assertThat(assertThrows(IllegalArgumentException.class,
+        () -> ROW.processColumnsParallel(-1, new int[0], new int[0])).getMessage(),
+        is("Negative number of rows: -1"));
+  }
+}
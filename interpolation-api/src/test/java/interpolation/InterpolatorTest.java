@@ -0,0 +1,321 @@
+package interpolation;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.function.ThrowingRunnable;
+
+/**
+ * Unit tests for {@link Interpolator}.
+ */
+public class InterpolatorTest {
+
+  private static Interpolator interpolator(String... fragments) {
+    return new Interpolator(fragments);
+  }
+
+  @Test
+  public void processStringAndPrimitiveValues() {
+    Interpolator interpolator = interpolator("Hello ", ", you have ", " items");
+
+    assertThat(interpolator.process("Alice", 5), is("Hello Alice, you have 5 items"));
+  }
+
+  @Test
+  public void processAllBoxedPrimitives() {
+    Interpolator interpolator = interpolator("", " ", " ", " ", " ", " ", " ", " ", "");
+
+    assertThat(interpolator.process(1, 2L, true, 'c', 1.5d, 2.5f, (short) 3, (byte) 4),
+        is("1 2 true c 1.5 2.5 3 4"));
+  }
+
+  @Test
+  public void processCharSequenceAndOtherObjects() {
+    Interpolator interpolator = interpolator("[", "|", "|", "]");
+
+    assertThat(interpolator.process(new StringBuilder("sb"), List.of(1, 2), null),
+        is("[sb|[1, 2]|null]"));
+  }
+
+  @Test
+  public void processUnboxedOverloads() {
+    Interpolator one = interpolator("<", ">");
+    Interpolator two = interpolator("", "=", "");
+
+    assertThat(one.process(42), is("<42>"));
+    assertThat(one.process(42L), is("<42>"));
+    assertThat(one.process(0.1f), is("<0.1>"));
+    assertThat(one.process(0.1d), is("<0.1>"));
+    assertThat(one.process(true), is("<true>"));
+    assertThat(one.process('c'), is("<c>"));
+    assertThat(one.process((Object) null), is("<null>"));
+    assertThat(two.process("id", 7L), is("id=7"));
+  }
+
+  @Test
+  public void processWithoutVariables() {
+    assertThat(interpolator("plain text").process(), is("plain text"));
+    assertThat(interpolator("").process(), is(""));
+  }
+
+  @Test
+  public void everyMethodRejectsTooFewValues() {
+    assertRejectsWrongArity(interpolator("a", "b", "c"), new Object[] {"1"},
+        "Expected 2 values, got 1");
+    assertRejectsWrongArity(Interpolator.compile("${a:%d} ${b}"), new Object[] {1},
+        "Expected 2 values, got 1");
+  }
+
+  @Test
+  public void everyMethodRejectsTooManyValues() {
+    assertRejectsWrongArity(interpolator("a"), new Object[] {"1"}, "Expected 0 values, got 1");
+    assertRejectsWrongArity(interpolator("a", "b"), new Object[] {1, 2L},
+        "Expected 1 values, got 2");
+  }
+
+  @Test
+  public void varargsProcessIgnoresWrongNumberOfValues() {
+    assertThat(interpolator("a", "b", "c").process(new Object[] {"1"}), is("a1bc"));
+    assertThat(interpolator("a", "b").process("1", "2"), is("a1b"));
+    assertThat(interpolator("a").process(new Object[] {"1"}), is("a"));
+    assertThat(Interpolator.compile("${a:%d}/${b}").process(new Object[] {7}), is("7/"));
+  }
+
+  @Test
+  public void unboxedProcessRejectsWrongNumberOfValues() {
+    final Interpolator two = interpolator("a", "b", "c");
+
+    assertRejected(() -> two.process(1), "Expected 2 values, got 1");
+    assertRejected(() -> two.process('x'), "Expected 2 values, got 1");
+    assertRejected(() -> two.process(), "Expected 2 values, got 0");
+    assertRejected(() -> interpolator("a").process(1L), "Expected 0 values, got 1");
+    assertRejected(() -> Interpolator.compile("${a:%d} ${b}").process(1),
+        "Expected 2 values, got 1");
+  }
+
+  /**
+   * Asserts that every method taking values or columns rejects {@code values} with the same
+   * message.
+   */
+  private static void assertRejectsWrongArity(Interpolator interpolator, Object[] values,
+      String message) {
+    final Object[] columns = new Object[values.length];
+    Arrays.setAll(columns, i -> new Object[] {values[i]});
+
+    assertRejected(() -> interpolator.processTo(new StringBuilder(), values), message);
+    assertRejected(() -> interpolator.processTo(new StringWriter(), values), message);
+    assertRejected(() -> interpolator.processRows(new StringBuilder(), List.<Object[]>of(values)),
+        message);
+    assertRejected(() -> interpolator.processUtf8(values), message);
+    assertRejected(() -> interpolator.processUtf8To(new byte[64], 0, values), message);
+    assertRejected(() -> interpolator.processUtf8To(ByteBuffer.allocate(64), values), message);
+    assertRejected(() -> interpolator.utf8Length(values), message);
+    assertRejected(() -> interpolator.defer(values), message);
+    assertRejected(() -> interpolator.processColumns(new StringBuilder(), 1, columns), message);
+    assertRejected(() -> interpolator.processColumns(new StringWriter(), 1, columns), message);
+    assertRejected(() -> interpolator.processColumnsParallel(1, columns), message);
+  }
+
+  private static void assertRejected(ThrowingRunnable call, String message) {
+    assertThat(assertThrows(IllegalArgumentException.class, call).getMessage(), is(message));
+  }
+
+  @Test
+  public void unboxedProcessAppliesFormats() {
+    final Interpolator html = Interpolator.compile("<b>${name:html}</b>");
+    final Interpolator amount = Interpolator.compile("${x:%.2f}");
+    final Interpolator pair = Interpolator.compile("\"${a:json}\" ${b:%05d}");
+
+    assertThat(html.process("<script>"), is("<b>&lt;script&gt;</b>"));
+    assertThat(html.process((Object) null), is("<b>null</b>"));
+    assertThat(amount.process(1.5), is("1.50"));
+    assertThat(amount.process(1.5f), is("1.50"));
+    assertThat(pair.process("\"q\"", 42), is("\"\\\"q\\\"\" 00042"));
+  }
+
+  @Test
+  public void processNonLatin1Template() {
+    Interpolator interpolator = interpolator("это ", " 你好");
+
+    assertThat(interpolator.process("name"), is("это name 你好"));
+    assertThat(interpolator.process("مرحبا"), is("это مرحبا 你好"));
+  }
+
+  @Test
+  public void processRepeatedlyWithChangingValueLengths() {
+    Interpolator interpolator = interpolator("<", ">");
+
+    assertThat(interpolator.process("x".repeat(100)), is("<" + "x".repeat(100) + ">"));
+    assertThat(interpolator.process(""), is("<>"));
+    assertThat(interpolator.process("abc"), is("<abc>"));
+  }
+
+  @Test
+  public void processToAppendsToBuilder() {
+    Interpolator interpolator = interpolator("Hello ", ", you have ", " items");
+    StringBuilder sb = new StringBuilder("> ");
+
+    assertThat(interpolator.processTo(sb, "Alice", 5), is(sameInstance(sb)));
+    assertThat(interpolator.processTo(sb.append('\n'), "Bob", 'c').toString(),
+        is("> Hello Alice, you have 5 items\nHello Bob, you have c items"));
+  }
+
+  @Test
+  public void processToAppendsToWriter() throws IOException {
+    Interpolator interpolator = interpolator("[", "|", "|", "|", "]");
+    StringWriter out = new StringWriter();
+
+    assertThat(interpolator.processTo(out, new StringBuilder("sb"), 'c', 2.5d, null),
+        is(sameInstance(out)));
+    assertThat(interpolator.processTo(out, "это", "", "", ""), is(sameInstance(out)));
+    assertThat(out.toString(), is("[sb|c|2.5|null][это|||]"));
+  }
+
+  @Test
+  public void processToPassesBuildersAsAppendable() throws IOException {
+    Appendable sb = new StringBuilder();
+
+    assertThat(interpolator("<", ">").processTo(sb, 42).toString(), is("<42>"));
+  }
+
+  @Test
+  public void compiledTemplateStreamsToBuilderAndWriter() throws IOException {
+    Interpolator row = Interpolator.compile("<p>${name} has ${count} items</p>");
+
+    assertThat(row.processTo(new StringBuilder("> "), "Alice", 3).toString(),
+        is("> <p>Alice has 3 items</p>"));
+    assertThat(row.processTo(new StringWriter(), "Bob", 0L).toString(),
+        is("<p>Bob has 0 items</p>"));
+  }
+
+  @Test
+  public void processUtf8MatchesProcessGetBytes() {
+    Interpolator interpolator = interpolator("это ", " 你好 ", " ", " ", " ", " ", " ", "!");
+    Object[][] rows = {
+        {"name", 0, -1L, true, 'c', 2.5d, null},
+        {"مرحبا", Integer.MIN_VALUE, Long.MIN_VALUE, false, 'я', 0.1f, List.of(1)},
+        {"😀 \ud800x", Integer.MAX_VALUE, Long.MAX_VALUE, (short) -3, '€', (byte) 7, 'x'},
+        {"\udc00", new StringBuilder("sb\u00e9"), 1234567890L, '\ud800', "", "", ""},
+    };
+
+    for (Object[] row : rows) {
+      byte[] expected = interpolator.process(row).getBytes(StandardCharsets.UTF_8);
+      assertThat(interpolator.processUtf8(row), is(expected));
+      assertThat(interpolator.utf8Length(row), is(expected.length));
+    }
+  }
+
+  @Test
+  public void compiledTemplateEncodesToArrayAndBuffer() {
+    Interpolator line = Interpolator.compile("${id}: ${name}\n");
+    byte[] expected = "42: Zoë\n".getBytes(StandardCharsets.UTF_8);
+
+    assertThat(line.processUtf8(42L, "Zoë"), is(expected));
+    assertThat(line.utf8Length(42L, "Zoë"), is(expected.length));
+    ByteBuffer buffer = line.processUtf8To(ByteBuffer.allocateDirect(16), 42L, "Zoë").flip();
+    byte[] written = new byte[buffer.remaining()];
+    buffer.get(written);
+    assertThat(written, is(expected));
+  }
+
+  @Test
+  public void processUtf8ToWritesAtBufferPosition() {
+    Interpolator interpolator = interpolator("id=", ", name=", "\n");
+
+    for (ByteBuffer buffer : new ByteBuffer[] {ByteBuffer.allocate(64),
+        ByteBuffer.allocateDirect(64)}) {
+      buffer.put((byte) '>');
+      assertThat(interpolator.processUtf8To(buffer, 42, "Алиса"), is(sameInstance(buffer)));
+      buffer.flip();
+      byte[] written = new byte[buffer.remaining()];
+      buffer.get(written);
+      assertThat(new String(written, StandardCharsets.UTF_8), is(">id=42, name=Алиса\n"));
+    }
+  }
+
+  @Test
+  public void processUtf8ToLeavesFullBufferUnchanged() {
+    Interpolator interpolator = interpolator("id=", "");
+    ByteBuffer buffer = ByteBuffer.allocateDirect(5);
+    buffer.put((byte) '>');
+
+    try {
+      interpolator.processUtf8To(buffer, 42);
+      throw new AssertionError("Expected BufferOverflowException");
+    } catch (BufferOverflowException expected) {
+      assertThat(buffer.position(), is(1));
+    }
+    assertThat(interpolator.processUtf8To(buffer, 4).position(), is(5));
+  }
+
+  @Test
+  public void processUtf8ToWritesAtArrayOffset() {
+    Interpolator interpolator = interpolator("<", ">");
+    byte[] pooled = new byte[8];
+
+    assertThat(interpolator.processUtf8To(pooled, 2, "é"), is(4));
+    assertThat(new String(pooled, 2, 4, StandardCharsets.UTF_8), is("<é>"));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void processUtf8ToRejectsTooSmallArray() {
+    interpolator("<", ">").processUtf8To(new byte[4], 1, "xy");
+  }
+
+  @Test
+  public void deferRendersOnFirstUseOnly() {
+    StringBuilder value = new StringBuilder("first");
+    Deferred deferred = interpolator("<", ">").defer(value);
+
+    value.replace(0, value.length(), "second");
+    assertThat(deferred.toString(), is("<second>"));
+    value.append("!");
+    assertThat(deferred.get(), is(sameInstance(deferred.toString())));
+    assertThat(deferred.length(), is(8));
+    assertThat(deferred.charAt(1), is('s'));
+    assertThat(deferred.subSequence(1, 7).toString(), is("second"));
+  }
+
+  @Test
+  public void compiledTemplateDefersRendering() {
+    Interpolator message = Interpolator.compile("Handled ${user} in ${elapsed:%,d} ms");
+    StringBuilder user = new StringBuilder("alice");
+    Deferred deferred = message.defer(user, 1234);
+
+    user.append("@example.org");
+    assertThat(deferred.toString(), is("Handled alice@example.org in 1,234 ms"));
+    assertThat(deferred.get(), is(sameInstance(deferred.toString())));
+  }
+
+  @Test
+  public void processAppliesFormats() throws IOException {
+    Interpolator interpolator =
+        Interpolator.compile("Paid ${amount:%,.2f} on ${date:iso} by ${name}");
+    Object[] values = {1234.5, LocalDate.of(2024, 3, 1), "Alice"};
+    String expected = "Paid 1,234.50 on 2024-03-01 by Alice";
+
+    assertThat(interpolator.process(values), is(expected));
+    assertThat(interpolator.processTo(new StringBuilder(), values).toString(), is(expected));
+    assertThat(interpolator.processTo(new StringWriter(), values).toString(), is(expected));
+    assertThat(interpolator.processUtf8(values), is(expected.getBytes(StandardCharsets.UTF_8)));
+    assertThat(interpolator.defer(values).toString(), is(expected));
+    assertThat(Arrays.asList(interpolator.formats()), is(Arrays.asList("%,.2f", "iso", null)));
+  }
+
+  @Test
+  public void rejectsInvalidFormatOnCreation() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new Interpolator(new String[] {"", ""}, new String[] {"%q"}));
+  }
+}
@@ -0,0 +1,163 @@
+package interpolation;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link TemplateCompiler} and the rendering of compiled interpolators.
+ */
+public class TemplateCompilerTest {
+
+  record Invoice(String customer, double total, LocalDate due) {
+  }
+
+  private static final String INVOICE = "Dear ${customer}, ${total:%.2f} EUR are due on ${due:iso}";
+
+  @Test
+  public void renderValuesBoundByName() {
+    final Interpolator interpolator = Interpolator.compile(INVOICE);
+    final Map<String, Object> values = new HashMap<>();
+    values.put("due", LocalDate.of(2024, 3, 1));
+    values.put("customer", "Olena");
+    values.put("total", 1234.5);
+
+    assertThat(interpolator.render(values), is("Dear Olena, 1234.50 EUR are due on 2024-03-01"));
+    assertThat(interpolator.render(new Invoice("Taras", 9.999, LocalDate.of(2024, 4, 2))),
+        is("Dear Taras, 10.00 EUR are due on 2024-04-02"));
+  }
+
+  @Test
+  public void renderValuesBoundByPosition() {
+    assertThat(Interpolator.compile("${a}-${b}/$${c}").process("x", 42), is("x-42/${c}"));
+  }
+
+  @Test
+  public void lookUpPropertyPathsAsKeys() {
+    final Interpolator interpolator = Interpolator.compile("${app.name} v${ app . version }");
+
+    assertThat(interpolator.render(Map.of("app.name", "billing", "app.version", 3)),
+        is("billing v3"));
+  }
+
+  @Test
+  public void renderNullValues() {
+    final Map<String, Object> values = new HashMap<>();
+    values.put("customer", null);
+    values.put("due", null);
+
+    assertThat(Interpolator.compile("${customer} is due on ${due:iso}").render(values),
+        is("null is due on null"));
+  }
+
+  @Test
+  public void rejectMissingValues() {
+    final IllegalArgumentException missing = assertThrows(IllegalArgumentException.class,
+        () -> Interpolator.compile(INVOICE).render(Map.of("customer", "Olena")));
+    final IllegalArgumentException component = assertThrows(IllegalArgumentException.class,
+        () -> Interpolator.compile("${customer} ${vat}").render(new Invoice("a", 1, null)));
+
+    assertThat(missing.getMessage(), is("No value for variable 'total'"));
+    assertThat(component.getMessage(),
+        is("Record interpolation.TemplateCompilerTest$Invoice has no component 'vat'"));
+  }
+
+  @Test
+  public void rejectRenderingWithoutNames() {
+    final Interpolator interpolator = new Interpolator(new String[] {"Hello ", ""});
+
+    assertThrows(IllegalStateException.class, () -> interpolator.render(Map.of("name", "x")));
+  }
+
+  @Test
+  public void rejectMalformedTemplates() {
+    final TemplateCompiler compiler = new TemplateCompiler(8);
+
+    assertThat(assertThrows(IllegalArgumentException.class, () -> compiler.compile("Hi ${name"))
+        .getMessage(), is("Malformed template at position 1:9: Unclosed ${...} expression"));
+    assertThat(assertThrows(IllegalArgumentException.class, () -> compiler.compile("${a.}"))
+        .getMessage(), is("Malformed template at position 1:4: Missing property name after '.'"));
+    assertThat(assertThrows(IllegalArgumentException.class, () -> compiler.compile("${a:%q}"))
+        .getMessage(), is("Invalid format specifier '%q': unsupported conversion 'q'"));
+    assertThat(compiler.stats().size(), is(0));
+  }
+
+  @Test
+  public void rejectMisplacedEscaping() {
+    final TemplateCompiler compiler = new TemplateCompiler(8);
+
+    assertThat(assertThrows(IllegalArgumentException.class,
+        () -> compiler.compile("{\"user\": ${user:json}}")).getMessage(),
+        is("Variable 'user' escaped with 'json' must be inside a JSON string literal"));
+    assertThat(assertThrows(IllegalArgumentException.class,
+        () -> compiler.compile("<script>var s = '${s:html}';</script>")).getMessage(),
+        is("Variable 's' escaped with 'html' cannot be in the raw text of a <script> element"));
+    assertThat(assertThrows(IllegalArgumentException.class,
+        () -> compiler.compile("<a onclick=\"go('${id:html}')\">")).getMessage(),
+        is("Variable 'id' escaped with 'html' cannot be in the 'onclick' attribute, whose value"
+            + " is a script, a style or a URL"));
+    assertThat(assertThrows(IllegalArgumentException.class,
+        () -> compiler.compile("<a class=\"x\" href='${url:html}'>")).getMessage(),
+        is("Variable 'url' escaped with 'html' cannot be in the 'href' attribute, whose value"
+            + " is a script, a style or a URL"));
+    assertThat(compiler.compile("<script>1</script><p title=\"${t:html}\">${b:html}</p>")
+        .render(Map.of("t", "\"", "b", "<")), is("<script>1</script><p title=\"&quot;\">&lt;</p>"));
+  }
+
+  @Test
+  public void cacheCompiledTemplates() {
+    final TemplateCompiler compiler = new TemplateCompiler(8);
+    final Interpolator first = compiler.compile("Hello ${name}");
+
+    assertThat(compiler.compile("Hello ${name}"), is(sameInstance(first)));
+    assertThat(compiler.compile("Hello ${name}"), is(sameInstance(first)));
+    assertThat(compiler.stats(), is(new TemplateCompiler.Stats(2, 1, 0, 1)));
+    assertThat(compiler.stats().hitRate(), is(2.0 / 3));
+  }
+
+  @Test
+  public void evictBeyondMaximumSize() {
+    final TemplateCompiler compiler = new TemplateCompiler(4);
+    final Interpolator hot = compiler.compile("hot ${x}");
+    for (int i = 0; i < 100; i++) {
+      compiler.compile("cold " + i + " ${x}");
+      compiler.compile("hot ${x}");
+    }
+
+    assertThat(compiler.stats().size(), is(4));
+    assertThat(compiler.stats().evictions(), is(97L));
+    assertThat(compiler.compile("hot ${x}"), is(sameInstance(hot)));
+  }
+
+  @Test
+  public void keepTemplatesUsedBeforeTheHandComesBack() {
+    final TemplateCompiler compiler = new TemplateCompiler(8);
+    for (int i = 0; i < 4; i++) {
+      compiler.compile("warm " + i + " ${x}");
+    }
+    long warmMisses = 0;
+    for (int i = 0; i < 1000; i++) {
+      compiler.compile("cold " + i + " ${x}");
+      if (i % 3 == 0) {
+        final long misses = compiler.stats().misses();
+        for (int j = 0; j < 4; j++) {
+          compiler.compile("warm " + j + " ${x}");
+        }
+        warmMisses += compiler.stats().misses() - misses;
+      }
+    }
+
+    assertThat(warmMisses, is(0L));
+  }
+
+  @Test
+  public void rejectInvalidSize() {
+    assertThrows(IllegalArgumentException.class, () -> new TemplateCompiler(0));
+  }
+}
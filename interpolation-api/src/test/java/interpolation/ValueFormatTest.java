@@ -0,0 +1,207 @@
+package interpolation;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ValueFormat}, checked against {@code String.format(Locale.ROOT, ...)}.
+ */
+public class ValueFormatTest {
+
+  private static final List<Object> INTEGRALS = List.of(0, 7, -7, 42, 1234, -1234567,
+      Integer.MAX_VALUE, Integer.MIN_VALUE, 0L, 123456789012L, Long.MAX_VALUE, Long.MIN_VALUE,
+      (short) -300, (short) 999, (byte) -1, (byte) 127);
+
+  private static final List<Object> FLOATINGS = List.of(0.0, -0.0, 1.0, 0.5, 1.5, 2.5, -2.5,
+      0.125, 0.005, 1.005, 9.995, 99.99, 123.456, -1234567.891, 1e-7, 3.14159265358979,
+      1e15, 1.2345e20, 1e-300, Double.MAX_VALUE, Double.MIN_VALUE, Double.NaN,
+      Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.1f, 2.5f, -1.75f, 1e10f);
+
+  private static void assertParity(String specifier, Object value) {
+    assertThat(specifier + " of " + value, ValueFormat.of(specifier).format(value),
+        is(String.format(Locale.ROOT, specifier, value)));
+  }
+
+  @Test
+  public void formatIntegralsLikeStringFormat() {
+    for (String specifier : List.of("%d", "%5d", "%-8d", "%08d", "%+d", "% d", "%,d", "%,015d",
+        "%+,12d", "%-+,14d", "%x", "%X", "%#x", "%#010X", "%o", "%#o", "%-#12o", "%012x")) {
+      for (Object value : INTEGRALS) {
+        assertParity(specifier, value);
+      }
+    }
+  }
+
+  @Test
+  public void formatFloatingsLikeStringFormat() {
+    for (String specifier : List.of("%f", "%.2f", "%.0f", "%#.0f", "%10.3f", "%-12.1f", "%012.4f",
+        "%+.2f", "% .3f", "%,.2f", "%,020.2f", "%.10f", "%.17f")) {
+      for (Object value : FLOATINGS) {
+        assertParity(specifier, value);
+      }
+    }
+  }
+
+  @Test
+  public void formatRandomFloatingsLikeStringFormat() {
+    final Random random = new Random(17);
+    for (int i = 0; i < 20_000; i++) {
+      final double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(16) - 4);
+      assertParity("%." + random.nextInt(8) + "f", value);
+      assertParity("%,.2f", value);
+    }
+  }
+
+  @Test
+  public void formatStringsLikeStringFormat() {
+    for (String specifier : List.of("%s", "%S", "%10s", "%-10s", "%.3s", "%8.2s", "%-6.4S")) {
+      for (Object value : List.of("", "abc", "straße", "interpolation", 42, 1.5, List.of(1, 2))) {
+        assertParity(specifier, value);
+      }
+    }
+  }
+
+  @Test
+  public void formatNullLikeStringFormat() {
+    for (String specifier : List.of("%d", "%6x", "%.2f", "%-8s", "%.2s", "%S", "%X", "%5S",
+        "%-6X", "%.2S")) {
+      assertParity(specifier, null);
+    }
+    assertThat(ValueFormat.of("iso").format((Object) null), is("null"));
+  }
+
+  @Test
+  public void formatTemporalsInIso() {
+    final LocalDateTime dateTime = LocalDateTime.of(2024, 2, 29, 13, 5, 0, 120_000_000);
+    final ValueFormat iso = ValueFormat.of("iso");
+
+    assertThat(iso.format(dateTime), is("2024-02-29T13:05:00.12"));
+    assertThat(iso.format(dateTime.toLocalDate()), is("2024-02-29"));
+    assertThat(iso.format(LocalTime.of(10, 15)), is("10:15:00"));
+    assertThat(iso.format(Instant.ofEpochSecond(1_700_000_000L)), is("2023-11-14T22:13:20Z"));
+    assertThat(iso.format(dateTime.atOffset(ZoneOffset.ofHours(2))),
+        is("2024-02-29T13:05:00.12+02:00"));
+    final ZonedDateTime zoned = dateTime.atZone(ZoneOffset.UTC);
+    assertThat(iso.format(zoned), is(DateTimeFormatter.ISO_ZONED_DATE_TIME.format(zoned)));
+    assertThat(iso.format(OffsetDateTime.MIN.toOffsetTime()), is("00:00:00+18:00"));
+  }
+
+  @Test
+  public void formatAppendsToBuilder() {
+    final StringBuilder sb = new StringBuilder("total: ");
+
+    assertThat(ValueFormat.of("%,.2f").format(sb, 1234.5).append(" EUR").toString(),
+        is("total: 1,234.50 EUR"));
+  }
+
+  @Test
+  public void escapeJson() {
+    final ValueFormat json = ValueFormat.of("json");
+
+    assertThat(json.format("plain text, nothing to escape"), is("plain text, nothing to escape"));
+    assertThat(json.format("say \"hi\"\\path\n\ttab\u0001\u001f end"),
+        is("say \\\"hi\\\"\\\\path\\n\\ttab\\u0001\\u001f end"));
+    assertThat(json.format("\b\f\r"), is("\\b\\f\\r"));
+    assertThat(json.format("ünï\"cødé 😀"), is("ünï\\\"cødé 😀"));
+    assertThat(json.format(-1.5), is("-1.5"));
+    assertThat(json.format((Object) null), is("null"));
+  }
+
+  @Test
+  public void escapeHtml() {
+    assertThat(ValueFormat.of("html").format("<a href=\"x\">Tom & Jerry's</a>"),
+        is("&lt;a href=&quot;x&quot;&gt;Tom &amp; Jerry&#39;s&lt;/a&gt;"));
+    assertThat(ValueFormat.of("html").format(new StringBuilder("a<b")), is("a&lt;b"));
+  }
+
+  @Test
+  public void quoteCsvFieldsOnlyWhenNeeded() {
+    final ValueFormat csv = ValueFormat.of("csv");
+
+    assertThat(csv.format("plain"), is("plain"));
+    assertThat(csv.format("Doe, John"), is("\"Doe, John\""));
+    assertThat(csv.format("say \"hi\""), is("\"say \"\"hi\"\"\""));
+    assertThat(csv.format("two\nlines"), is("\"two\nlines\""));
+    assertThat(csv.format(1234567), is("1234567"));
+  }
+
+  @Test
+  public void escapeLikeCharacterByCharacter() {
+    final Random random = new Random(22);
+    final String alphabet = "ab <>&\"',\\\n\r\t\u0000\u001f\u0020\u0100\u013c\u0122\u8000\uffff"
+        + "\u2028é";
+    for (int i = 0; i < 20_000; i++) {
+      final StringBuilder value = new StringBuilder();
+      for (int j = random.nextInt(24); j > 0; j--) {
+        value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      for (Escaping escaping : Escaping.values()) {
+        final StringBuilder expected = new StringBuilder();
+        boolean quote = false;
+        for (int j = 0; j < value.length(); j++) {
+          if (escaping.matches(value.charAt(j))) {
+            escaping.escape(expected, value.charAt(j));
+            quote = true;
+          } else {
+            expected.append(value.charAt(j));
+          }
+        }
+        final String text = escaping == Escaping.CSV && quote
+            ? "\"" + expected + "\""
+            : expected.toString();
+        final StringBuilder actual = new StringBuilder();
+        escaping.escape(actual, value);
+        assertThat(escaping + " of " + value, actual.toString(), is(text));
+      }
+    }
+  }
+
+  @Test
+  public void acceptsTypeDescriptors() {
+    assertThat(ValueFormat.of("%d").accepts("I"), is(true));
+    assertThat(ValueFormat.of("%x").accepts("Ljava/lang/Long;"), is(true));
+    assertThat(ValueFormat.of("%d").accepts("D"), is(false));
+    assertThat(ValueFormat.of("%d").accepts("C"), is(false));
+    assertThat(ValueFormat.of("%.2f").accepts("Ljava/lang/Double;"), is(true));
+    assertThat(ValueFormat.of("%.2f").accepts("Ljava/math/BigDecimal;"), is(false));
+    assertThat(ValueFormat.of("%s").accepts("[I"), is(true));
+    assertThat(ValueFormat.of("iso").accepts("Ljava/time/LocalDate;"), is(true));
+    assertThat(ValueFormat.of("iso").accepts("Ljava/util/Date;"), is(false));
+    assertThat(ValueFormat.of("json").accepts("Ljava/lang/Object;"), is(true));
+  }
+
+  @Test
+  public void rejectInvalidSpecifiers() {
+    for (String specifier : List.of("", "%", "d", "%q", "%.f", "%-d", "%0d", "%-05d", "%+ d",
+        "%#d", "%+x", "%,o", "%.2d", "%#s", "%--5d", "%5", "%99999999999d", "ISO", "%n")) {
+      assertThrows(specifier, IllegalArgumentException.class, () -> ValueFormat.of(specifier));
+    }
+  }
+
+  @Test
+  public void rejectMismatchedValues() {
+    final IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> ValueFormat.of("%.2f").format("12"));
+
+    assertThat(e.getMessage(), is("Format '%.2f' cannot format java.lang.String,"
+        + " it expects float, double or their wrappers"));
+    assertThrows(IllegalArgumentException.class, () -> ValueFormat.of("%d").format(1.5));
+    assertThrows(IllegalArgumentException.class,
+        () -> ValueFormat.of("iso").format(DayOfWeek.MONDAY));
+  }
+}